@@ -0,0 +1,62 @@
+package com.example.lab1.benchmark;
+
+import com.example.lab1.utils.CaptchaUtil;
+import com.example.lab1.utils.GlyphAtlasCaptchaRenderer;
+import com.example.lab1.utils.Graphics2DCaptchaRenderer;
+import com.example.lab1.utils.InMemoryCaptchaStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CaptchaUtil} 的绘制、PNG 编码以及内存存储的登记和校验。不配置预渲染池。
+ * renderer 为 atlas 时使用预渲染字形图集，为 graphics2d 时使用原来的 Graphics2D 绘制。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CaptchaUtilBenchmark {
+
+    @Param({"atlas", "graphics2d"})
+    public String renderer;
+
+    @Setup
+    public void setUp() {
+        CaptchaUtil.setCaptchaRenderer("atlas".equals(renderer)
+                ? new GlyphAtlasCaptchaRenderer()
+                : new Graphics2DCaptchaRenderer());
+        CaptchaUtil.setCaptchaPool(null);
+        CaptchaUtil.setCaptchaStore(new InMemoryCaptchaStore(100_000, 5 * 60 * 1000L, 1000L));
+    }
+
+    @Benchmark
+    public Map<String, Object> generateCaptcha() {
+        return CaptchaUtil.generateCaptcha();
+    }
+
+    @Benchmark
+    public CaptchaUtil.RenderedCaptcha renderCaptcha() {
+        return CaptchaUtil.renderCaptcha();
+    }
+
+    // 登记后立即校验，存储规模保持不变
+    @Benchmark
+    public boolean storeAndValidate() {
+        String captchaId = CaptchaUtil.storeCaptcha("123456");
+        return CaptchaUtil.validateCaptcha(captchaId, "123456");
+    }
+}
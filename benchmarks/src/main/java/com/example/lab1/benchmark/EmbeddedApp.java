@@ -0,0 +1,43 @@
+package com.example.lab1.benchmark;
+
+import com.example.lab1.Lab1Application;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 在当前进程内以 H2 内存库启动应用，供压测使用。
+ */
+final class EmbeddedApp {
+
+    private EmbeddedApp() {
+    }
+
+    // overrides 形如 "key=value"，以命令行参数传入，优先级高于 application.properties
+    static ConfigurableApplicationContext start(String database, String... overrides) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--password.bcrypt.calibrate=false",
+                "--jwt.revocation.log-path=",
+                "--audit.journal.path=",
+                // 所有请求都来自本机，且会反复登录同一批用户，压测时关闭登录限流
+                "--login.throttle.enabled=false"));
+        for (String override : overrides) {
+            args.add("--" + override);
+        }
+        return new SpringApplicationBuilder(Lab1Application.class).run(args.toArray(String[]::new));
+    }
+
+    static int port(ConfigurableApplicationContext context) {
+        return Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+    }
+}
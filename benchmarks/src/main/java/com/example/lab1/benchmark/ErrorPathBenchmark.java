@@ -0,0 +1,141 @@
+package com.example.lab1.benchmark;
+
+import com.example.lab1.dto.LoginRequest;
+import com.example.lab1.dto.RequestValidator;
+import com.example.lab1.exception.BadRequestException;
+import com.example.lab1.exception.GlobalExceptionHandler;
+import com.example.lab1.exception.ValidationFailedException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 登录请求从参数校验到生成响应体的开销，按 errorPercent 混合三类请求：成功、参数校验失败、用户名或密码错误（两类失败各占一半）。
+ * 不含 bcrypt、验证码和数据库，只比较错误路径的写法：
+ * <ul>
+ *     <li>legacy：Bean Validation 校验、每次 new 带堆栈的 BadRequestException，错误体建 HashMap 再由 Jackson 序列化；</li>
+ *     <li>current：{@link RequestValidator}、预先分配的异常和预先编码的响应体（{@link GlobalExceptionHandler}）。</li>
+ * </ul>
+ * 异常在 stackDepth 层调用栈之下抛出，模拟 Tomcat + Spring MVC 请求线程上的栈深度（填充堆栈的开销与深度成正比）。
+ * legacy 没有计入 Spring 为 MethodArgumentNotValidException 建 BindingResult 的开销，实际差距更大。
+ * 用 -prof gc 查看每次操作的分配量。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorPathBenchmark {
+
+    private static final int REQUESTS = 1024;
+
+    @Param({"10", "50", "90", "99"})
+    public int errorPercent;
+
+    @Param({"120"})
+    public int stackDepth;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private Validator validator;
+    private LoginRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+        Random random = new Random(42);
+        requests = new LoginRequest[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            int roll = random.nextInt(200);
+            if (roll >= errorPercent * 2) {
+                requests[i] = new LoginRequest("user" + i, "Pass123", "captcha-id", "123456");
+            } else if (roll % 2 == 0) {
+                requests[i] = new LoginRequest("", "", "captcha-id", "123456");
+            } else {
+                requests[i] = new LoginRequest("user" + i, "wrong", "captcha-id", "123456");
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] legacy() throws JsonProcessingException {
+        LoginRequest request = nextRequest();
+        Set<ConstraintViolation<LoginRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            Map<String, String> errors = new HashMap<>();
+            for (ConstraintViolation<LoginRequest> violation : violations) {
+                errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+            }
+            return objectMapper.writeValueAsBytes(errors);
+        }
+        try {
+            return success(atDepth(stackDepth, () -> login(request, () -> new BadRequestException("用户名或密码错误"))));
+        } catch (BadRequestException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return objectMapper.writeValueAsBytes(error);
+        }
+    }
+
+    @Benchmark
+    public byte[] current() throws JsonProcessingException {
+        LoginRequest request = nextRequest();
+        try {
+            RequestValidator.validate(request);
+        } catch (ValidationFailedException e) {
+            return handler.handleValidationFailedException(e).getBody();
+        }
+        try {
+            return success(atDepth(stackDepth, () -> login(request, () -> BadRequestException.BAD_CREDENTIALS)));
+        } catch (BadRequestException e) {
+            return handler.handleBadRequestException(e).getBody();
+        }
+    }
+
+    private LoginRequest nextRequest() {
+        LoginRequest request = requests[next];
+        next = (next + 1) & (REQUESTS - 1);
+        return request;
+    }
+
+    // 成功时的响应体两种写法相同
+    private byte[] success(String token) throws JsonProcessingException {
+        Map<String, String> response = new HashMap<>();
+        response.put("token", token);
+        response.put("message", "登录成功");
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    private static String login(LoginRequest request, Supplier<BadRequestException> failure) {
+        if (!"Pass123".equals(request.password())) {
+            throw failure.get();
+        }
+        return "token-" + request.username();
+    }
+
+    private static String atDepth(int depth, Supplier<String> action) {
+        return depth <= 0 ? action.get() : atDepth(depth - 1, action);
+    }
+}
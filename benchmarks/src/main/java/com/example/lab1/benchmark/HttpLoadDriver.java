@@ -0,0 +1,263 @@
+package com.example.lab1.benchmark;
+
+import com.example.lab1.entity.User;
+import com.example.lab1.repository.UserStore;
+import com.example.lab1.service.UsernameIndex;
+import com.example.lab1.utils.PasswordUtil;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 端到端 HTTP 压测：在进程内以 H2 内存库启动应用（开启验证码测试钩子），预置 N 个用户，
+ * 然后按固定到达率（开环）发起会话。新用户会话依次：
+ * 取验证码 -> 通过测试钩子读答案 -> 注册 -> 再取验证码 -> 登录 -> 重复若干次 查询个人信息 / 校验 token；
+ * 老用户会话跳过注册，随机登录一个预置用户。
+ * <p>
+ * 每个接口单独记录 HdrHistogram 延迟；session 一项从计划开始时间算起，包含排队等待，不受协调遗漏影响。
+ * 系统属性：bench.users（预置用户数，默认 10000）、bench.returning-ratio（老用户会话的比例，默认 0.5）、
+ * bench.rate（每秒新会话数，默认 20）、
+ * bench.duration-seconds（默认 60）、bench.profile-calls（每个会话的查询次数，默认 10）、
+ * bench.bcrypt-cost（默认 10）、bench.max-sessions（同时进行的会话上限，超出则丢弃并计数，默认 5000）、
+ * bench.hgrm-dir（设置后把各接口的百分位分布写成 .hgrm 文件）。
+ */
+public final class HttpLoadDriver {
+
+    private static final Pattern CAPTCHA_ID = Pattern.compile("\"captchaId\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern CAPTCHA_TEXT = Pattern.compile("\"captchaText\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final String PASSWORD = "Pass123456";
+    private static final String[] ENDPOINTS = {"captcha", "captcha-hook", "register", "login", "profile", "validate-token", "session"};
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final int profileCalls;
+    private final int seededUsers;
+    private final double returningRatio;
+    private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> errors = new LinkedHashMap<>();
+    private final AtomicLong sessionIds = new AtomicLong();
+
+    private HttpLoadDriver(HttpClient client, int port, int profileCalls, int seededUsers, double returningRatio) {
+        this.client = client;
+        this.baseUrl = "http://127.0.0.1:" + port;
+        this.profileCalls = profileCalls;
+        this.seededUsers = seededUsers;
+        this.returningRatio = seededUsers > 0 ? returningRatio : 0;
+        for (String endpoint : ENDPOINTS) {
+            histograms.put(endpoint, new ConcurrentHistogram(3));
+            errors.put(endpoint, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("bench.users", 10_000);
+        double returningRatio = Double.parseDouble(System.getProperty("bench.returning-ratio", "0.5"));
+        double rate = Double.parseDouble(System.getProperty("bench.rate", "20"));
+        int durationSeconds = Integer.getInteger("bench.duration-seconds", 60);
+        int profileCalls = Integer.getInteger("bench.profile-calls", 10);
+        int bcryptCost = Integer.getInteger("bench.bcrypt-cost", 10);
+        int maxSessions = Integer.getInteger("bench.max-sessions", 5000);
+        String hgrmDir = System.getProperty("bench.hgrm-dir");
+
+        try (ConfigurableApplicationContext context = EmbeddedApp.start("load",
+                "captcha.test-hook.enabled=true", "password.bcrypt.cost=" + bcryptCost);
+             ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            seed(context.getBean(UserStore.class), context.getBean(UsernameIndex.class), users);
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientExecutor)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            HttpLoadDriver driver = new HttpLoadDriver(client, EmbeddedApp.port(context), profileCalls, users, returningRatio);
+            driver.run(rate, durationSeconds, maxSessions);
+            driver.report(hgrmDir);
+        }
+    }
+
+    // 直接通过仓库批量写入，所有预置用户共用一个哈希；写完后同步重建用户名索引，
+    // 绕过注册流程写入的用户名否则要等到下次定时重建才进索引
+    private static void seed(UserStore repository, UsernameIndex usernameIndex, int users) {
+        String hash = PasswordUtil.encryptPassword(PASSWORD);
+        List<User> batch = new ArrayList<>(1000);
+        for (int i = 0; i < users; i++) {
+            batch.add(new User("seed-" + i, hash));
+            if (batch.size() == 1000 || i == users - 1) {
+                repository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        usernameIndex.rebuild();
+        System.out.printf("已预置 %d 个用户%n", users);
+    }
+
+    // 开环：按计划时间启动会话，不等待前一个会话结束
+    private void run(double rate, int durationSeconds, int maxSessions) throws InterruptedException {
+        long intervalNanos = (long) (1_000_000_000L / rate);
+        long start = System.nanoTime();
+        long end = start + durationSeconds * 1_000_000_000L;
+        AtomicInteger inFlight = new AtomicInteger();
+        long started = 0;
+        long dropped = 0;
+        for (long intended = start; intended < end; intended += intervalNanos) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.get() >= maxSessions) {
+                dropped++;
+                continue;
+            }
+            inFlight.incrementAndGet();
+            started++;
+            long scheduledAt = intended;
+            Thread.ofVirtual().start(() -> {
+                try {
+                    session(scheduledAt);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(50);
+        }
+        System.out.printf("计划到达率 %.1f 会话/秒，启动 %d 个会话，丢弃 %d 个，未完成 %d 个%n",
+                rate, started, dropped, inFlight.get());
+    }
+
+    private void session(long scheduledAt) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean returning = random.nextDouble() < returningRatio;
+        String username = returning ? "seed-" + random.nextInt(seededUsers) : "load-" + sessionIds.incrementAndGet();
+        try {
+            String captchaId;
+            String body;
+            if (!returning) {
+                captchaId = captcha();
+                body = "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD
+                        + "\",\"captchaId\":\"" + captchaId + "\",\"captchaText\":\"" + captchaText(captchaId) + "\"}";
+                call("register", post("/api/users/register", body), null);
+            }
+
+            captchaId = captcha();
+            body = "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD
+                    + "\",\"captchaId\":\"" + captchaId + "\",\"captchaText\":\"" + captchaText(captchaId) + "\"}";
+            String token = call("login", post("/api/users/login", body), TOKEN);
+
+            for (int i = 0; i < profileCalls; i++) {
+                call("profile", get("/api/users/profile", token), null);
+                call("validate-token", get("/api/users/validate-token", token), null);
+            }
+            record("session", System.nanoTime() - scheduledAt);
+        } catch (StepFailedException e) {
+            errors.get("session").incrementAndGet();
+        }
+    }
+
+    private String captcha() {
+        return call("captcha", get("/api/users/captcha", null), CAPTCHA_ID);
+    }
+
+    private String captchaText(String captchaId) {
+        return call("captcha-hook", get("/api/test/captcha/" + captchaId, null), CAPTCHA_TEXT);
+    }
+
+    // 发送请求并记录延迟，非 200 或取不到所需字段时记为失败并中止会话
+    private String call(String endpoint, HttpRequest request, Pattern extract) {
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException | InterruptedException e) {
+            errors.get(endpoint).incrementAndGet();
+            throw new StepFailedException();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (response.statusCode() != 200) {
+            errors.get(endpoint).incrementAndGet();
+            throw new StepFailedException();
+        }
+        record(endpoint, elapsed);
+        if (extract == null) {
+            return null;
+        }
+        Matcher matcher = extract.matcher(response.body());
+        if (!matcher.find()) {
+            errors.get(endpoint).incrementAndGet();
+            throw new StepFailedException();
+        }
+        return matcher.group(1);
+    }
+
+    private void record(String endpoint, long nanos) {
+        histograms.get(endpoint).recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    private HttpRequest get(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private void report(String hgrmDir) throws IOException {
+        System.out.printf("%-15s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        for (String endpoint : ENDPOINTS) {
+            Histogram histogram = histograms.get(endpoint);
+            System.out.printf("%-15s %9d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", endpoint,
+                    histogram.getTotalCount(), errors.get(endpoint).get(),
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+            if (hgrmDir != null) {
+                File dir = new File(hgrmDir);
+                dir.mkdirs();
+                try (PrintStream out = new PrintStream(new File(dir, endpoint + ".hgrm"))) {
+                    histogram.outputPercentileDistribution(out, 1000.0);
+                }
+            }
+        }
+    }
+
+    // 会话中某一步失败，已在对应接口上计数
+    private static final class StepFailedException extends RuntimeException {
+        StepFailedException() {
+            super(null, null, false, false);
+        }
+    }
+}
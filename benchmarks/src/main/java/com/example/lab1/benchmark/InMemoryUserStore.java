@@ -0,0 +1,79 @@
+package com.example.lab1.benchmark;
+
+import com.example.lab1.entity.User;
+import com.example.lab1.repository.UserCredentials;
+import com.example.lab1.repository.UserStore;
+import com.example.lab1.repository.UsernameRow;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基准测试用的内存版 {@link UserStore}，不访问数据库，测得的只是业务逻辑本身的开销。
+ */
+final class InMemoryUserStore implements UserStore {
+
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    @Override
+    public User save(User user) {
+        if (user.getId() == null) {
+            user.setId(ids.incrementAndGet());
+        }
+        users.put(user.getUsername(), user);
+        return user;
+    }
+
+    @Override
+    public List<User> saveAll(List<User> batch) {
+        return batch.stream().map(this::save).toList();
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        return users.containsKey(username);
+    }
+
+    @Override
+    public UserCredentials findCredentialsByUsername(String username) {
+        User user = users.get(username);
+        return user == null ? null : new UserCredentials(user.getId(), user.getPassword());
+    }
+
+    @Override
+    public List<String> findExistingUsernames(Collection<String> usernames) {
+        return usernames.stream().filter(users::containsKey).toList();
+    }
+
+    @Override
+    public List<UsernameRow> findUsernamesAfter(long afterId, Pageable pageable) {
+        return users.values().stream()
+                .filter(user -> user.getId() > afterId)
+                .sorted(Comparator.comparing(User::getId))
+                .limit(pageable.getPageSize())
+                .map(user -> new UsernameRow(user.getId(), user.getUsername()))
+                .toList();
+    }
+
+    @Override
+    public int updatePassword(Long id, String oldHash, String newHash) {
+        for (User user : users.values()) {
+            if (user.getId().equals(id) && user.getPassword().equals(oldHash)) {
+                user.setPassword(newHash);
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public long count() {
+        return users.size();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.lab1.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 对比两次 JMH 结果（-rf json 的输出），按基准名和参数逐项列出得分和每次操作分配量的变化。
+ * <p>
+ * 用法：{@code java -cp target/benchmarks.jar com.example.lab1.benchmark.JmhResultDiff old.json new.json}
+ */
+public final class JmhResultDiff {
+
+    private static final String ALLOC_NORM = "gc.alloc.rate.norm";
+
+    private record Row(double score, String unit, double allocBytes) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("用法: JmhResultDiff <旧结果.json> <新结果.json>");
+            System.exit(2);
+        }
+        Map<String, Row> before = read(new File(args[0]));
+        Map<String, Row> after = read(new File(args[1]));
+
+        System.out.printf("%-70s %14s %14s %9s %12s %12s%n", "benchmark", "before", "after", "change", "B/op before", "B/op after");
+        Map<String, Row> all = new TreeMap<>(before);
+        all.putAll(after);
+        for (String name : all.keySet()) {
+            Row old = before.get(name);
+            Row now = after.get(name);
+            System.out.printf("%-70s %14s %14s %9s %12s %12s%n", name,
+                    old == null ? "-" : format(old.score()),
+                    now == null ? "-" : format(now.score()),
+                    old == null || now == null ? "-" : String.format("%+.1f%%", (now.score() / old.score() - 1) * 100),
+                    old == null ? "-" : format(old.allocBytes()),
+                    now == null ? "-" : format(now.allocBytes()));
+        }
+    }
+
+    private static Map<String, Row> read(File file) throws IOException {
+        Map<String, Row> rows = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder name = new StringBuilder(result.path("benchmark").asText()
+                    .replace("com.example.lab1.benchmark.", ""));
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                name.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            JsonNode primary = result.path("primaryMetric");
+            double alloc = Double.NaN;
+            Iterator<Map.Entry<String, JsonNode>> secondary = result.path("secondaryMetrics").fields();
+            while (secondary.hasNext()) {
+                Map.Entry<String, JsonNode> metric = secondary.next();
+                if (metric.getKey().endsWith(ALLOC_NORM)) {
+                    alloc = metric.getValue().path("score").asDouble();
+                }
+            }
+            rows.put(name.toString(), new Row(primary.path("score").asDouble(), primary.path("scoreUnit").asText(), alloc));
+        }
+        return rows;
+    }
+
+    private static String format(double value) {
+        return Double.isNaN(value) ? "-" : String.format("%.1f", value);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.lab1.benchmark;
+
+import com.example.lab1.utils.JWTUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JWTUtil} 的签发和校验。cacheSize 为 0 时每次都走验签，否则第二次起命中已验签缓存。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    @Param({"0", "10000"})
+    public int cacheSize;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JWTUtil.setSecretKey("benchmark-secret-key-with-at-least-32-characters");
+        JWTUtil.setTokenCacheSize(cacheSize);
+        token = JWTUtil.generateToken("benchmarkUser");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return JWTUtil.generateToken("benchmarkUser");
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return JWTUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public String getUsernameFromToken() {
+        return JWTUtil.getUsernameFromToken(token);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.lab1.benchmark;
+
+import com.example.lab1.utils.Hs256TokenVerifier;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * jjwt 完整解析与 {@link Hs256TokenVerifier} 快速验签的对比，分有效 token 和已过期 token 两种情况。
+ * 用 -prof gc 查看每次操作的分配量（gc.alloc.rate.norm）。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtVerifyBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-with-at-least-32-characters";
+
+    private Key key;
+    private Hs256TokenVerifier fastVerifier;
+    private String validToken;
+    private String expiredToken;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        fastVerifier = new Hs256TokenVerifier(SECRET);
+        long now = System.currentTimeMillis();
+        validToken = token(new Date(now), new Date(now + TimeUnit.DAYS.toMillis(1)));
+        expiredToken = token(new Date(now - 20_000), new Date(now - 10_000));
+    }
+
+    private String token(Date issuedAt, Date expiration) {
+        return Jwts.builder()
+                .setSubject("benchmarkUser")
+                .setIssuedAt(issuedAt)
+                .setExpiration(expiration)
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public String jjwtValid() {
+        Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(validToken).getBody();
+        return claims.getSubject();
+    }
+
+    @Benchmark
+    public String fastPathValid() {
+        return fastVerifier.verify(validToken, System.currentTimeMillis()).subject();
+    }
+
+    @Benchmark
+    public boolean jjwtExpired() {
+        try {
+            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(expiredToken);
+            return true;
+        } catch (JwtException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean fastPathExpired() {
+        return fastVerifier.verify(expiredToken, System.currentTimeMillis()).status() == Hs256TokenVerifier.Status.VALID;
+    }
+}
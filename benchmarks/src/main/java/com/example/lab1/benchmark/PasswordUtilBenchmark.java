@@ -0,0 +1,55 @@
+package com.example.lab1.benchmark;
+
+import com.example.lab1.utils.PasswordUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PasswordUtil} 的哈希、校验和 cost 解析。不配置 bcrypt 线程池，直接在基准线程上计算。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordUtilBenchmark {
+
+    @Param({"4", "10"})
+    public int cost;
+
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        PasswordUtil.setHashPool(null);
+        PasswordUtil.setLogRounds(cost);
+        hash = PasswordUtil.encryptPassword("Pass123456");
+    }
+
+    @Benchmark
+    public String encryptPassword() {
+        return PasswordUtil.encryptPassword("Pass123456");
+    }
+
+    @Benchmark
+    public boolean checkPassword() {
+        return PasswordUtil.checkPassword("Pass123456", hash);
+    }
+
+    @Benchmark
+    public boolean needsRehash() {
+        return PasswordUtil.needsRehash(hash);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.lab1.benchmark;
+
+import com.example.lab1.utils.JWTUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 冷启动耗时：从启动 JVM 进程到 GET /api/users/validate-token 第一次返回 {"valid":true} 的时间。
+ * <p>
+ * 需要先在项目根目录执行 mvn -Pfast-startup package。两种方式交替各启动若干次：
+ * <ul>
+ *     <li>baseline：解压后的 jar 直接启动，不开 AOT、不用 CDS 归档；</li>
+ *     <li>fast-startup：通过 scripts/start-fast.sh 启动，使用 AOT 生成的 Bean 定义和 AppCDS 归档。</li>
+ * </ul>
+ * 两种方式都用 H2 内存库（H2 jar 追加到类路径末尾），输出最小值、中位数和最大值。
+ * 系统属性：bench.runs（每种方式的启动次数，默认 5）、bench.project-dir（项目根目录，默认 ..）、
+ * bench.timeout-seconds（单次启动超时，默认 120）。
+ */
+public final class StartupBenchmark {
+
+    private static final String MAIN_CLASS = "com.example.lab1.Lab1Application";
+    private static final String SECRET = "startup-benchmark-secret-key-0123456789abcdef";
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = Integer.getInteger("bench.runs", 5);
+        File projectDir = new File(System.getProperty("bench.project-dir", "..")).getCanonicalFile();
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(Integer.getInteger("bench.timeout-seconds", 120));
+
+        File appDir = new File(projectDir, "target/fast-startup");
+        File launcher = new File(projectDir, "scripts/start-fast.sh");
+        File[] jars = appDir.listFiles((dir, name) -> name.endsWith("-exec.jar"));
+        if (jars == null || jars.length == 0 || !new File(appDir, "application.jsa").isFile()) {
+            throw new IllegalStateException("未找到 " + appDir + " 下的 jar 或 application.jsa，请先执行 mvn -Pfast-startup package");
+        }
+        String h2Jar = new File(Class.forName("org.h2.Driver").getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        String java = System.getProperty("java.home") + "/bin/java";
+
+        JWTUtil.setSecretKey(SECRET);
+        String token = JWTUtil.generateToken("startup-benchmark");
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        // 默认配置的 AOT 构建启用了登录审计，运行时不能关闭，两种模式都写到临时目录
+        Path auditDir = Files.createTempDirectory("startup-benchmark-audit");
+
+        long[] baseline = new long[runs];
+        long[] fast = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            int port = freePort();
+            List<String> command = new ArrayList<>(List.of(java, "-cp", jars[0].getName() + File.pathSeparator + h2Jar, MAIN_CLASS));
+            command.addAll(appArgs(port, auditDir));
+            baseline[i] = timeToFirstResponse(new ProcessBuilder(command).directory(appDir), client, port, token, timeoutMillis);
+
+            port = freePort();
+            command = new ArrayList<>(List.of("sh", launcher.getPath()));
+            command.addAll(appArgs(port, auditDir));
+            ProcessBuilder builder = new ProcessBuilder(command);
+            builder.environment().put("APP_DIR", appDir.getPath());
+            builder.environment().put("EXTRA_CLASSPATH", h2Jar);
+            builder.environment().put("JAVA_HOME", System.getProperty("java.home"));
+            fast[i] = timeToFirstResponse(builder, client, port, token, timeoutMillis);
+
+            System.out.printf("run %d: baseline %d ms, fast-startup %d ms%n", i + 1, baseline[i], fast[i]);
+        }
+
+        System.out.printf("%-14s %8s %8s %8s%n", "mode", "min", "median", "max");
+        report("baseline", baseline);
+        report("fast-startup", fast);
+    }
+
+    private static List<String> appArgs(int port, Path auditDir) {
+        return List.of(
+                "--server.port=" + port,
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--spring.datasource.url=jdbc:h2:mem:startup;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--password.bcrypt.calibrate=false",
+                "--jwt.revocation.log-path=",
+                "--audit.journal.path=" + auditDir,
+                "--jwt.secret=" + SECRET);
+    }
+
+    // 启动进程并轮询接口，返回毫秒数；结束后销毁进程
+    private static long timeToFirstResponse(ProcessBuilder builder, HttpClient client, int port, String token,
+                                            long timeoutMillis) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/users/validate-token"))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        builder.redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try {
+            while (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(timeoutMillis)) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("应用进程提前退出，退出码 " + process.exitValue());
+                }
+                try {
+                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() == 200 && response.body().contains("\"valid\":true")) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    // 端口尚未监听
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("应用在 " + timeoutMillis + " ms 内未就绪");
+        } finally {
+            process.descendants().forEach(ProcessHandle::destroy);
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void report(String mode, long[] millis) {
+        long[] sorted = millis.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-14s %6d ms %6d ms %6d ms%n", mode, sorted[0], sorted[sorted.length / 2], sorted[sorted.length - 1]);
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.lab1.benchmark;
+
+import com.example.lab1.utils.CaptchaUtil;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 平台线程与虚拟线程两种模式下的 HTTP 压测对比。
+ * <p>
+ * 在同一进程内先后以 spring.threads.virtual.enabled=false/true 启动应用（H2 内存库），
+ * 按注册 5%、登录 15%、查询个人信息 80% 的比例发请求，逐级提高并发（闭环：每个客户端收到响应后立即发下一个），
+ * 输出每级的吞吐量、p50、p99 和失败数。验证码直接通过 {@link CaptchaUtil} 在进程内登记，不走图片接口。
+ * <p>
+ * 可用系统属性调整：bench.concurrency（默认 16,64,256,1024）、bench.duration-seconds（默认 10）、
+ * bench.warmup-seconds（默认 3）、bench.users（预先注册的用户数，默认 200）、bench.bcrypt-cost（默认 4）。
+ */
+public final class ThreadModeLoadBenchmark {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final String PASSWORD = "Pass123456";
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final List<String> usernames = new ArrayList<>();
+    private final List<String> tokens = new ArrayList<>();
+    private final AtomicLong registered = new AtomicLong();
+    private final String namePrefix;
+
+    private ThreadModeLoadBenchmark(HttpClient client, int port, String namePrefix) {
+        this.client = client;
+        this.baseUrl = "http://127.0.0.1:" + port + "/api/users";
+        this.namePrefix = namePrefix;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] levels = Arrays.stream(System.getProperty("bench.concurrency", "16,64,256,1024").split(","))
+                .mapToInt(level -> Integer.parseInt(level.trim()))
+                .toArray();
+        int durationSeconds = Integer.getInteger("bench.duration-seconds", 10);
+        int warmupSeconds = Integer.getInteger("bench.warmup-seconds", 3);
+        int users = Integer.getInteger("bench.users", 200);
+        int bcryptCost = Integer.getInteger("bench.bcrypt-cost", 4);
+
+        System.out.printf("%-9s %8s %12s %10s %10s %8s%n", "mode", "clients", "req/s", "p50(ms)", "p99(ms)", "errors");
+        for (boolean virtual : new boolean[]{false, true}) {
+            String mode = virtual ? "virtual" : "platform";
+            try (ConfigurableApplicationContext context = EmbeddedApp.start("bench-" + mode,
+                    "spring.threads.virtual.enabled=" + virtual, "password.bcrypt.cost=" + bcryptCost);
+                 ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+                int port = EmbeddedApp.port(context);
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(clientExecutor)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .build();
+                ThreadModeLoadBenchmark benchmark = new ThreadModeLoadBenchmark(client, port, mode);
+                benchmark.seed(users);
+                for (int level : levels) {
+                    benchmark.run(level, warmupSeconds);
+                    Stats stats = benchmark.run(level, durationSeconds);
+                    System.out.printf("%-9s %8d %12.0f %10.2f %10.2f %8d%n", mode, level,
+                            stats.completed / (double) durationSeconds,
+                            stats.percentileMillis(0.50), stats.percentileMillis(0.99), stats.errors);
+                }
+            }
+        }
+    }
+
+    // 预先注册并登录一批用户，供登录和查询请求使用
+    private void seed(int users) throws Exception {
+        for (int i = 0; i < users; i++) {
+            String username = namePrefix + "-seed-" + i;
+            send(register(username));
+            HttpResponse<String> response = send(login(username));
+            Matcher matcher = TOKEN.matcher(response.body());
+            if (response.statusCode() != 200 || !matcher.find()) {
+                throw new IllegalStateException("预置用户登录失败: " + response.body());
+            }
+            usernames.add(username);
+            tokens.add(matcher.group(1));
+        }
+    }
+
+    private Stats run(int clients, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        LatencyRecorder[] recorders = new LatencyRecorder[clients];
+        Thread[] threads = new Thread[clients];
+        for (int c = 0; c < clients; c++) {
+            LatencyRecorder recorder = recorders[c] = new LatencyRecorder();
+            threads[c] = Thread.ofVirtual().start(() -> {
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = nextRequest();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = send(request);
+                        recorder.record(System.nanoTime() - start, response.statusCode() == 200);
+                    } catch (Exception e) {
+                        recorder.record(System.nanoTime() - start, false);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return Stats.merge(recorders);
+    }
+
+    private HttpRequest nextRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int roll = random.nextInt(100);
+        if (roll < 5) {
+            return register(namePrefix + "-" + registered.incrementAndGet());
+        }
+        int user = random.nextInt(usernames.size());
+        if (roll < 20) {
+            return login(usernames.get(user));
+        }
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/profile"))
+                .header("Authorization", "Bearer " + tokens.get(user))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest register(String username) {
+        String captchaId = CaptchaUtil.storeCaptcha("123456");
+        return post("/register", "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD
+                + "\",\"captchaId\":\"" + captchaId + "\",\"captchaText\":\"123456\"}");
+    }
+
+    private HttpRequest login(String username) {
+        String captchaId = CaptchaUtil.storeCaptcha("123456");
+        return post("/login", "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD
+                + "\",\"captchaId\":\"" + captchaId + "\",\"captchaText\":\"123456\"}");
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    // 每个客户端一份，避免记录延迟时互相竞争
+    private static final class LatencyRecorder {
+        long[] nanos = new long[1024];
+        int count;
+        long errors;
+
+        void record(long latencyNanos, boolean ok) {
+            if (!ok) {
+                errors++;
+                return;
+            }
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = latencyNanos;
+        }
+    }
+
+    private record Stats(long[] sortedNanos, long completed, long errors) {
+
+        static Stats merge(LatencyRecorder[] recorders) {
+            int total = 0;
+            long errors = 0;
+            for (LatencyRecorder recorder : recorders) {
+                total += recorder.count;
+                errors += recorder.errors;
+            }
+            long[] all = new long[total];
+            int offset = 0;
+            for (LatencyRecorder recorder : recorders) {
+                System.arraycopy(recorder.nanos, 0, all, offset, recorder.count);
+                offset += recorder.count;
+            }
+            Arrays.sort(all);
+            return new Stats(all, total, errors);
+        }
+
+        double percentileMillis(double percentile) {
+            if (sortedNanos.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(percentile * sortedNanos.length) - 1);
+            return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.lab1.benchmark;
+
+import com.example.lab1.dto.LoginRequest;
+import com.example.lab1.dto.UserResponse;
+import com.example.lab1.entity.User;
+import com.example.lab1.repository.UserStore;
+import com.example.lab1.service.AdminPolicy;
+import com.example.lab1.service.LoginAuditService;
+import com.example.lab1.service.LoginThrottle;
+import com.example.lab1.service.ReadYourWrites;
+import com.example.lab1.service.UserProfileCache;
+import com.example.lab1.service.UserService;
+import com.example.lab1.service.UserServiceMetrics;
+import com.example.lab1.service.UsernameIndex;
+import com.example.lab1.utils.CaptchaUtil;
+import com.example.lab1.utils.InMemoryCaptchaStore;
+import com.example.lab1.utils.JWTUtil;
+import com.example.lab1.utils.PasswordUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserService} 的登录和按 token 查询用户信息，使用内存仓库，不含数据库开销。
+ * <p>
+ * 登录包含一次验证码登记和校验；bcrypt cost 固定为 4，衡量的是 bcrypt 以外的开销。
+ * profileCacheSize 为 0 时关闭用户信息缓存。各阶段计时开启，记录到 SimpleMeterRegistry；
+ * 反复登录同一用户，因此关闭登录限流。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    @Param({"0", "10000"})
+    public int profileCacheSize;
+
+    private UserService userService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        PasswordUtil.setHashPool(null);
+        PasswordUtil.setLogRounds(4);
+        CaptchaUtil.setCaptchaStore(new InMemoryCaptchaStore(100_000, 5 * 60 * 1000L, 1000L));
+        JWTUtil.setSecretKey("benchmark-secret-key-with-at-least-32-characters");
+
+        UserStore repository = new InMemoryUserStore();
+        repository.save(new User("benchmarkUser", PasswordUtil.encryptPassword("Pass123456")));
+        UsernameIndex usernameIndex = new UsernameIndex(repository, 1000, 0.01, 1000, 0);
+        usernameIndex.rebuild();
+        userService = new UserService(repository, new UserProfileCache(profileCacheSize, 600, 30),
+                new UserServiceMetrics(new SimpleMeterRegistry()), new LoginThrottle(false, null, null), usernameIndex,
+                new ReadYourWrites(0, 0), new LoginAuditService(Optional.empty(), new AdminPolicy("")));
+        token = JWTUtil.generateToken("benchmarkUser");
+    }
+
+    @Benchmark
+    public String loginUser() {
+        String captchaId = CaptchaUtil.storeCaptcha("123456");
+        return userService.loginUser(new LoginRequest("benchmarkUser", "Pass123456", captchaId, "123456"));
+    }
+
+    @Benchmark
+    public UserResponse getUserProfileByToken() {
+        return userService.getUserProfileByToken(token);
+    }
+}
@@ -0,0 +1,27 @@
+#!/usr/bin/env sh
+# 使用 mvn -Pfast-startup package 的产物启动：AOT 生成的 Bean 定义 + AppCDS 归档。
+# 应用参数原样传给 Spring Boot，例如：scripts/start-fast.sh --server.port=8081
+# EXTRA_CLASSPATH 可追加 JDBC 驱动等 jar，追加在归档时的类路径之后不影响归档生效。
+# 必须使用与构建时相同的 JDK，否则 JVM 会忽略归档并照常启动。
+set -e
+
+APP_DIR="${APP_DIR:-$(cd "$(dirname "$0")/.." && pwd)/target/fast-startup}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+
+JAR=$(ls "$APP_DIR"/*-exec.jar 2>/dev/null | head -n 1)
+if [ -z "$JAR" ] || [ ! -f "$APP_DIR/application.jsa" ]; then
+    echo "未找到 $APP_DIR 下的 jar 或 application.jsa，请先执行 mvn -Pfast-startup package" >&2
+    exit 1
+fi
+
+# 类路径必须与训练运行一致（相对 APP_DIR 的 jar 文件名），因此在 APP_DIR 下启动
+cd "$APP_DIR"
+CLASSPATH_ARG=$(basename "$JAR")${EXTRA_CLASSPATH:+:$EXTRA_CLASSPATH}
+
+exec "$JAVA" \
+    -XX:SharedArchiveFile=application.jsa \
+    -Xlog:cds=error \
+    -Dspring.aot.enabled=true \
+    $JAVA_OPTS \
+    -cp "$CLASSPATH_ARG" \
+    com.example.lab1.Lab1Application "$@"
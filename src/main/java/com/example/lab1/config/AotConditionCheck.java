@@ -0,0 +1,51 @@
+package com.example.lab1.config;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * AOT 模式（-Dspring.aot.enabled=true）下 Bean 定义在构建期生成，{@code @ConditionalOnExpression} 的结果随之固定：
+ * 构建时 user.shards.urls 为空、运行时再配置分片，应用仍会按单库启动，不会报错。
+ * 这里在创建任何 Bean 之前用运行时的配置重新判断这些条件，与构建结果不一致时启动失败。非 AOT 模式下条件照常在运行时评估，不做检查。
+ */
+@Component
+public class AotConditionCheck implements BeanFactoryPostProcessor, EnvironmentAware {
+
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        if (AotDetector.useGeneratedArtifacts()) {
+            check(beanFactory, environment);
+        }
+    }
+
+    static void check(ConfigurableListableBeanFactory beanFactory, Environment environment) {
+        boolean sharded = isSet(environment, "user.shards.urls");
+        require(beanFactory, "shardingConfig", sharded, "user.shards.urls");
+        require(beanFactory, "dataSourceRoutingConfig", isSet(environment, "datasource.replica.urls") && !sharded,
+                "datasource.replica.urls");
+        require(beanFactory, "loginJournal", isSet(environment, "audit.journal.path"), "audit.journal.path");
+    }
+
+    private static boolean isSet(Environment environment, String property) {
+        return !environment.getProperty(property, "").isBlank();
+    }
+
+    private static void require(ConfigurableListableBeanFactory beanFactory, String beanName, boolean expected,
+                                String property) {
+        if (beanFactory.containsBeanDefinition(beanName) != expected) {
+            throw new IllegalStateException(property + " 与 AOT 构建时的配置不一致（构建时" + (expected ? "未" : "已")
+                    + "启用），请用相同的取值重新执行 mvn -Pfast-startup package，或去掉 -Dspring.aot.enabled=true 启动");
+        }
+    }
+}
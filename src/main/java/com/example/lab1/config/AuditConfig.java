@@ -0,0 +1,59 @@
+package com.example.lab1.config;
+
+import com.example.lab1.utils.LoginJournal;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class AuditConfig {
+
+    @Value("${instrumentation.enabled:true}")
+    private boolean instrumentation;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public AuditConfig(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // 登录审计日志，path 为空时不创建，登录和注册不做记录。关闭时写完队列中剩余的事件
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("!'${audit.journal.path:}'.isBlank()")
+    public LoginJournal loginJournal(@Value("${audit.journal.path}") String path,
+                                     @Value("${audit.journal.segment-bytes:67108864}") int segmentBytes,
+                                     @Value("${audit.journal.fsync-ms:1000}") long fsyncMillis,
+                                     @Value("${audit.journal.queue-capacity:65536}") int queueCapacity,
+                                     @Value("${audit.journal.batch-size:1024}") int batchSize,
+                                     @Value("${audit.journal.max-segments:64}") int maxSegments,
+                                     @Value("${audit.journal.history-limit:20}") int historyLimit) {
+        LoginJournal journal = new LoginJournal(Path.of(path), segmentBytes, fsyncMillis, queueCapacity, batchSize,
+                maxSegments, historyLimit);
+        journal.start();
+        if (instrumentation) {
+            meterRegistry.ifAvailable(registry -> bindMetrics(journal, registry));
+        }
+        return journal;
+    }
+
+    private static void bindMetrics(LoginJournal journal, MeterRegistry registry) {
+        Gauge.builder("audit.journal.queued", journal, LoginJournal::getQueued).register(registry);
+        Gauge.builder("audit.journal.segments", journal, LoginJournal::getSegments).register(registry);
+        FunctionCounter.builder("audit.journal.events", journal, LoginJournal::getWritten)
+                .tag("result", "written")
+                .register(registry);
+        FunctionCounter.builder("audit.journal.events", journal, LoginJournal::getDropped)
+                .tag("result", "dropped")
+                .register(registry);
+        FunctionCounter.builder("audit.journal.events", journal, LoginJournal::getFailed)
+                .tag("result", "failed")
+                .register(registry);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.lab1.config;
+
+import com.example.lab1.utils.BcryptCostCalibrator;
+import com.example.lab1.utils.PasswordUtil;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class BcryptCostConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(BcryptCostConfig.class);
+
+    @Value("${password.bcrypt.calibrate:true}")
+    private boolean calibrate;
+
+    @Value("${password.bcrypt.cost:10}")
+    private int fixedCost;
+
+    @Value("${password.bcrypt.target-ms:250}")
+    private long targetMillis;
+
+    @Value("${password.bcrypt.min-cost:10}")
+    private int minCost;
+
+    @Value("${password.bcrypt.max-cost:14}")
+    private int maxCost;
+
+    // 按本机速度选出 bcrypt cost，关闭校准时使用固定值
+    @PostConstruct
+    public void init() {
+        int cost = calibrate ? new BcryptCostCalibrator(targetMillis, minCost, maxCost).calibrate() : fixedCost;
+        PasswordUtil.setLogRounds(cost);
+        log.info("bcrypt cost 设为 {}（校准: {}，目标耗时 {}ms）", cost, calibrate, targetMillis);
+    }
+}
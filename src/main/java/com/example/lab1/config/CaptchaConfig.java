@@ -0,0 +1,147 @@
+package com.example.lab1.config;
+
+import com.example.lab1.utils.CaptchaPool;
+import com.example.lab1.utils.CaptchaRenderer;
+import com.example.lab1.utils.CaptchaStore;
+import com.example.lab1.utils.CaptchaUtil;
+import com.example.lab1.utils.EmbeddedCaptchaServer;
+import com.example.lab1.utils.GlyphAtlasCaptchaRenderer;
+import com.example.lab1.utils.Graphics2DCaptchaRenderer;
+import com.example.lab1.utils.InMemoryCaptchaStore;
+import com.example.lab1.utils.PngEncoder;
+import com.example.lab1.utils.RemoteCaptchaStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+@Configuration
+public class CaptchaConfig {
+
+    // 默认：进程内有界、按 TTL 过期的验证码存储
+    @Bean
+    @ConditionalOnProperty(name = "captcha.store.type", havingValue = "memory", matchIfMissing = true)
+    public CaptchaStore captchaStore(@Value("${captcha.store.capacity:100000}") int capacity,
+                                     @Value("${captcha.store.ttl-seconds:300}") long ttlSeconds,
+                                     @Value("${captcha.store.tick-ms:1000}") long tickMillis,
+                                     @Value("${instrumentation.enabled:true}") boolean instrumentation,
+                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        InMemoryCaptchaStore store = new InMemoryCaptchaStore(capacity, ttlSeconds * 1000, tickMillis);
+        if (instrumentation) {
+            meterRegistry.ifAvailable(registry -> bindStoreMetrics(store, registry));
+        }
+        CaptchaUtil.setCaptchaStore(store);
+        return store;
+    }
+
+    // 绘制方式：atlas 使用预渲染字形直接写像素，graphics2d 逐张用 Graphics2D 绘制
+    @Bean
+    public CaptchaRenderer captchaRenderer(@Value("${captcha.renderer:atlas}") String renderer) {
+        CaptchaRenderer captchaRenderer = switch (renderer) {
+            case "atlas" -> new GlyphAtlasCaptchaRenderer();
+            case "graphics2d" -> new Graphics2DCaptchaRenderer();
+            default -> throw new IllegalArgumentException("未知的验证码绘制方式: " + renderer);
+        };
+        CaptchaUtil.setCaptchaRenderer(captchaRenderer);
+        return captchaRenderer;
+    }
+
+    // PNG 编码参数，compression-quality 越高压缩越轻、编码越快
+    @Bean
+    public PngEncoder captchaPngEncoder(@Value("${captcha.png.encoder-pool-size:16}") int poolSize,
+                                        @Value("${captcha.png.compression-quality:0.75}") float compressionQuality) {
+        PngEncoder encoder = new PngEncoder(poolSize, compressionQuality);
+        CaptchaUtil.setPngEncoder(encoder);
+        return encoder;
+    }
+
+    // 创建预渲染验证码池并挂到 CaptchaUtil 上
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "captcha.pool.enabled", havingValue = "true", matchIfMissing = true)
+    public CaptchaPool captchaPool(@Value("${captcha.pool.size:64}") int size,
+                                   @Value("${captcha.pool.refill-per-second:200}") int refillPerSecond,
+                                   @Value("${captcha.pool.fallback:RENDER}") CaptchaPool.Fallback fallback,
+                                   @Value("${captcha.pool.block-timeout-ms:50}") long blockTimeoutMillis,
+                                   @Value("${instrumentation.enabled:true}") boolean instrumentation,
+                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        CaptchaPool pool = new CaptchaPool(size, refillPerSecond, fallback, blockTimeoutMillis);
+        if (instrumentation) {
+            meterRegistry.ifAvailable(registry -> bindPoolMetrics(pool, registry));
+        }
+        pool.start();
+        CaptchaUtil.setCaptchaPool(pool);
+        return pool;
+    }
+
+    @PreDestroy
+    public void detachCaptchaPool() {
+        CaptchaUtil.setCaptchaPool(null);
+    }
+
+    // 未过期验证码数量，以及因过期和容量上限被清理的数量
+    private static void bindStoreMetrics(InMemoryCaptchaStore store, MeterRegistry registry) {
+        Gauge.builder("captcha.store.size", store, InMemoryCaptchaStore::size)
+                .description("存储中的验证码数量")
+                .register(registry);
+        FunctionCounter.builder("captcha.store.removed", store, InMemoryCaptchaStore::getExpirations)
+                .tag("cause", "expired")
+                .register(registry);
+        FunctionCounter.builder("captcha.store.removed", store, InMemoryCaptchaStore::getCapacityEvictions)
+                .tag("cause", "capacity")
+                .register(registry);
+    }
+
+    private static void bindPoolMetrics(CaptchaPool pool, MeterRegistry registry) {
+        Gauge.builder("captcha.pool.available", pool, CaptchaPool::available).register(registry);
+        FunctionCounter.builder("captcha.pool.requests", pool, CaptchaPool::getHits)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("captcha.pool.requests", pool, CaptchaPool::getMisses)
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    // 多节点共享：通过 RESP 协议访问 Redis，或访问本地替身服务器
+    @Configuration
+    @ConditionalOnProperty(name = "captcha.store.type", havingValue = "remote")
+    static class RemoteCaptchaStoreConfig {
+
+        @Bean(destroyMethod = "close")
+        @ConditionalOnProperty(name = "captcha.store.remote.embedded", havingValue = "true")
+        public EmbeddedCaptchaServer embeddedCaptchaServer(@Value("${captcha.store.remote.port:6379}") int port,
+                                                           @Value("${instrumentation.enabled:true}") boolean instrumentation,
+                                                           ObjectProvider<MeterRegistry> meterRegistry)
+                throws IOException {
+            EmbeddedCaptchaServer server = new EmbeddedCaptchaServer(port);
+            // 真正的 Redis 可能还存着其他数据，只对替身服务器统计数量
+            if (instrumentation) {
+                meterRegistry.ifAvailable(registry -> Gauge.builder("captcha.store.size", server, EmbeddedCaptchaServer::size)
+                        .description("存储中的验证码数量")
+                        .register(registry));
+            }
+            return server;
+        }
+
+        @Bean(destroyMethod = "close")
+        public RemoteCaptchaStore captchaStore(ObjectProvider<EmbeddedCaptchaServer> embeddedServer,
+                                               @Value("${captcha.store.remote.host:localhost}") String host,
+                                               @Value("${captcha.store.remote.port:6379}") int port,
+                                               @Value("${captcha.store.remote.pool-size:16}") int poolSize,
+                                               @Value("${captcha.store.remote.timeout-ms:500}") int timeoutMillis,
+                                               @Value("${captcha.store.ttl-seconds:300}") long ttlSeconds) {
+            EmbeddedCaptchaServer server = embeddedServer.getIfAvailable();
+            RemoteCaptchaStore store = server != null
+                    ? new RemoteCaptchaStore("localhost", server.getPort(), ttlSeconds * 1000, poolSize, timeoutMillis)
+                    : new RemoteCaptchaStore(host, port, ttlSeconds * 1000, poolSize, timeoutMillis);
+            CaptchaUtil.setCaptchaStore(store);
+            return store;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.lab1.config;
+
+import com.example.lab1.utils.CaptchaStore;
+import com.example.lab1.utils.CaptchaTestHook;
+import com.example.lab1.utils.CaptchaUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// 压测用：包装验证码存储，通过 /api/test/captcha/{captchaId} 读取答案
+@Configuration
+@ConditionalOnProperty(name = "captcha.test-hook.enabled", havingValue = "true")
+public class CaptchaTestHookConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(CaptchaTestHookConfig.class);
+
+    @Bean
+    public CaptchaTestHook captchaTestHook(CaptchaStore captchaStore,
+                                           @Value("${captcha.test-hook.capacity:100000}") int capacity,
+                                           @Value("${captcha.store.ttl-seconds:300}") long ttlSeconds) {
+        CaptchaTestHook hook = new CaptchaTestHook(captchaStore, capacity, ttlSeconds * 1000);
+        CaptchaUtil.setCaptchaStore(hook.store());
+        log.warn("验证码测试钩子已启用，任何人都能读取验证码答案，切勿在生产环境使用");
+        return hook;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.lab1.config;
+
+import com.example.lab1.utils.ReadWriteRoutingDataSource;
+import com.example.lab1.utils.ReplicaDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 配置了只读副本（datasource.replica.urls 非空）时替换默认数据源：写入和读写事务走主库，只读事务走副本。
+ * 主库和各副本都是 HikariCP 连接池，共用 spring.datasource.hikari.* 配置；连接池在第一次取连接时才建连。
+ * 同时配置了分片时不生效，由 {@link ShardingConfig} 报错。
+ */
+@Configuration
+@ConditionalOnExpression("!'${datasource.replica.urls:}'.isBlank() && '${user.shards.urls:}'.isBlank()")
+public class DataSourceRoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public ReadWriteRoutingDataSource dataSource(DataSourceProperties properties,
+                                                 Environment environment,
+                                                 @Value("${datasource.replica.urls}") String urls,
+                                                 @Value("${datasource.replica.username:${spring.datasource.username:}}") String username,
+                                                 @Value("${datasource.replica.password:${spring.datasource.password:}}") String password,
+                                                 @Value("${datasource.replica.health-check-ms:5000}") long healthCheckMillis,
+                                                 @Value("${datasource.replica.validation-timeout-seconds:1}") int validationTimeoutSeconds,
+                                                 @Value("${datasource.replica.connection-timeout-ms:250}") long connectionTimeoutMillis,
+                                                 @Value("${instrumentation.enabled:true}") boolean instrumentation,
+                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        bindPoolSettings(primary, environment, "primary");
+
+        List<ReplicaDataSource.Replica> replicas = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.getDriverClassName())
+                    .url(url.trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            String name = "replica-" + replicas.size();
+            bindPoolSettings(replica, environment, name);
+            // 副本取不到连接时要尽快退回主库，不沿用主库的连接超时
+            replica.setConnectionTimeout(connectionTimeoutMillis);
+            replica.setReadOnly(true);
+            replicas.add(new ReplicaDataSource.Replica(name, replica));
+        }
+
+        ReplicaDataSource replicaDataSource = new ReplicaDataSource(replicas, primary, validationTimeoutSeconds);
+        replicaDataSource.start(healthCheckMillis);
+        if (instrumentation) {
+            meterRegistry.ifAvailable(registry -> bindMetrics(replicaDataSource, registry));
+        }
+        return new ReadWriteRoutingDataSource(primary, replicaDataSource);
+    }
+
+    // 与默认数据源一样应用 spring.datasource.hikari.*，连接池名区分主库和各副本
+    private static void bindPoolSettings(HikariDataSource dataSource, Environment environment, String poolName) {
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(poolName);
+    }
+
+    private static void bindMetrics(ReplicaDataSource dataSource, MeterRegistry registry) {
+        for (ReplicaDataSource.Replica replica : dataSource.getReplicas()) {
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy() ? 1 : 0)
+                    .tag("replica", replica.name())
+                    .register(registry);
+        }
+        FunctionCounter.builder("datasource.read.connections", dataSource, ReplicaDataSource::getReplicaConnections)
+                .tag("target", "replica")
+                .register(registry);
+        FunctionCounter.builder("datasource.read.connections", dataSource, ReplicaDataSource::getPrimaryFallbacks)
+                .description("副本全部不可用、改从主库读取的次数")
+                .tag("target", "primary_fallback")
+                .register(registry);
+    }
+}
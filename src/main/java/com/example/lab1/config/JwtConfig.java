@@ -0,0 +1,104 @@
+package com.example.lab1.config;
+
+import com.example.lab1.utils.JWTUtil;
+import com.example.lab1.utils.TokenRevocationList;
+import com.example.lab1.utils.VerifiedTokenCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class JwtConfig {
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @Value("${jwt.key-id:default}")
+    private String keyId;
+
+    // 轮换期间的上一个密钥：只用于验签，到宽限期结束为止
+    @Value("${jwt.previous-key-id:}")
+    private String previousKeyId;
+
+    @Value("${jwt.previous-secret:}")
+    private String previousSecret;
+
+    @Value("${jwt.key-grace-ms:${jwt.expiration-ms:86400000}}")
+    private long keyGraceMillis;
+
+    @Value("${jwt.expiration-ms:86400000}")
+    private long expirationMillis;
+
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    @Value("${instrumentation.enabled:true}")
+    private boolean instrumentation;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public JwtConfig(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // 把配置的密钥、有效期和缓存容量写入 JWTUtil。配置了上一个密钥时，由它负责不带 kid 的旧 token
+    @PostConstruct
+    public void init() {
+        JWTUtil.setTokenCacheSize(cacheMaxSize);
+        JWTUtil.setSecretKey(keyId, secret);
+        if (!previousKeyId.isBlank() && !previousSecret.isBlank()) {
+            JWTUtil.addVerificationKey(previousKeyId, previousSecret, true, System.currentTimeMillis() + keyGraceMillis);
+        }
+        JWTUtil.setKeyGracePeriod(keyGraceMillis);
+        JWTUtil.setExpirationTime(expirationMillis);
+        if (instrumentation) {
+            meterRegistry.ifAvailable(registry -> bindMetrics(JWTUtil.getTokenCache(), registry));
+        }
+    }
+
+    /**
+     * token 注销表：注册到 JWTUtil 后，验签通过但不在缓存中的 token 都要经过它检查。
+     * log-path 为空时只保存在内存中，重启后注销记录丢失。
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "jwt.revocation.enabled", havingValue = "true", matchIfMissing = true)
+    public TokenRevocationList tokenRevocationList(
+            @Value("${jwt.revocation.expected-per-bucket:100000}") int expectedPerBucket,
+            @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${jwt.revocation.log-path:}") String logPath,
+            @Value("${jwt.revocation.log-sync:false}") boolean logSync) {
+        TokenRevocationList list = new TokenRevocationList(expirationMillis, expectedPerBucket, falsePositiveRate,
+                logPath.isBlank() ? null : Path.of(logPath), logSync, System.currentTimeMillis());
+        list.start();
+        JWTUtil.setRevocationList(list);
+        if (instrumentation) {
+            meterRegistry.ifAvailable(registry -> bindMetrics(list, registry));
+        }
+        return list;
+    }
+
+    private static void bindMetrics(TokenRevocationList list, MeterRegistry registry) {
+        Gauge.builder("jwt.revocation.size", list, TokenRevocationList::size).register(registry);
+        FunctionCounter.builder("jwt.revocation.checks", list, TokenRevocationList::getChecks).register(registry);
+        FunctionCounter.builder("jwt.revocation.exact-lookups", list, TokenRevocationList::getExactLookups)
+                .register(registry);
+    }
+
+    private static void bindMetrics(VerifiedTokenCache cache, MeterRegistry registry) {
+        Gauge.builder("jwt.cache.size", cache, VerifiedTokenCache::size).register(registry);
+        FunctionCounter.builder("jwt.cache.requests", cache, VerifiedTokenCache::getHits)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("jwt.cache.requests", cache, VerifiedTokenCache::getMisses)
+                .tag("result", "miss")
+                .register(registry);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.lab1.config;
+
+import com.example.lab1.utils.PasswordHashPool;
+import com.example.lab1.utils.PasswordUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@ConditionalOnProperty(name = "password.hash.pool.enabled", havingValue = "true", matchIfMissing = true)
+public class PasswordHashConfig {
+
+    // bcrypt 专用线程池，线程数默认等于 CPU 核数
+    @Bean(destroyMethod = "shutdown")
+    public PasswordHashPool passwordHashPool(@Value("${password.hash.pool.threads:0}") int threads,
+                                             @Value("${password.hash.pool.queue-capacity:64}") int queueCapacity,
+                                             @Value("${password.hash.pool.max-wait-ms:2000}") long maxWaitMillis,
+                                             @Value("${instrumentation.enabled:true}") boolean instrumentation,
+                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        int poolThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        PasswordHashPool pool = new PasswordHashPool(poolThreads, queueCapacity, maxWaitMillis);
+        if (instrumentation) {
+            meterRegistry.ifAvailable(registry -> bindMetrics(pool, registry));
+        }
+        PasswordUtil.setHashPool(pool);
+        return pool;
+    }
+
+    @PreDestroy
+    public void detachHashPool() {
+        PasswordUtil.setHashPool(null);
+    }
+
+    // 队列深度、排队时间和拒绝次数，通过 /actuator/metrics 查看
+    private static void bindMetrics(PasswordHashPool pool, MeterRegistry registry) {
+        Gauge.builder("password.hash.queue.depth", pool, PasswordHashPool::getQueueDepth)
+                .description("等待 bcrypt 线程的任务数")
+                .register(registry);
+        Gauge.builder("password.hash.active", pool, PasswordHashPool::getActiveCount)
+                .register(registry);
+        FunctionTimer.builder("password.hash.queue.wait", pool,
+                        PasswordHashPool::getStartedCount, PasswordHashPool::getTotalWaitNanos, TimeUnit.NANOSECONDS)
+                .description("任务在队列中的等待时间")
+                .register(registry);
+        FunctionCounter.builder("password.hash.rejected", pool, PasswordHashPool::getRejectedCount)
+                .description("因队列已满被拒绝的请求数")
+                .register(registry);
+        FunctionCounter.builder("password.hash.timeout", pool, PasswordHashPool::getTimedOutCount)
+                .description("排队超时的请求数")
+                .register(registry);
+    }
+}
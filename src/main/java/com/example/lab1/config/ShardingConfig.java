@@ -0,0 +1,163 @@
+package com.example.lab1.config;
+
+import com.example.lab1.entity.User;
+import com.example.lab1.repository.ShardMetadata;
+import com.example.lab1.repository.ShardedUserStore;
+import com.example.lab1.repository.UserRepository;
+import com.example.lab1.repository.UserStore;
+import com.example.lab1.utils.ShardLayout;
+import com.example.lab1.utils.ShardRouter;
+import com.example.lab1.utils.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 配置了分片（user.shards.urls 非空）时替换默认数据源和 {@link UserStore}：用户按用户名哈希分布在各分片上。
+ * <p>
+ * 当前分片和 user.shards.next-urls 中的目标分片都建 HikariCP 连接池，共用 spring.datasource.hikari.* 配置，
+ * 连接池名按地址首次出现的顺序为 shard-0、shard-1……，同一地址在两个布局中是同一个分片。
+ * 分片模式不支持只读副本，两者同时配置时启动失败。
+ * <p>
+ * 生效的布局记录在 {@link ShardMetadata} 中，有记录时以记录为准，user.shards.urls 只决定首次启动的布局和元数据所在的分片。
+ */
+@Configuration
+@ConditionalOnExpression("!'${user.shards.urls:}'.isBlank()")
+public class ShardingConfig {
+
+    private static final String CREATE_TABLE = "create table if not exists users ("
+            + "id bigint not null, username varchar(50) not null, password varchar(255) not null, "
+            + "primary key (id), constraint " + User.USERNAME_CONSTRAINT + " unique (username))";
+
+    @Value("${user.shards.urls}")
+    private String urls;
+
+    @Value("${user.shards.next-urls:}")
+    private String nextUrls;
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public ShardRoutingDataSource dataSource(DataSourceProperties properties,
+                                             Environment environment,
+                                             @Value("${user.shards.username:${spring.datasource.username:}}") String username,
+                                             @Value("${user.shards.password:${spring.datasource.password:}}") String password,
+                                             @Value("${user.shards.create-schema:true}") boolean createSchema,
+                                             @Value("${datasource.replica.urls:}") String replicaUrls) {
+        if (!replicaUrls.isBlank()) {
+            throw new IllegalStateException("分片模式不支持只读副本，user.shards.urls 和 datasource.replica.urls 不能同时配置");
+        }
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        for (Map.Entry<String, String> shard : shardNames().entrySet()) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.getDriverClassName())
+                    .url(shard.getKey())
+                    .username(username)
+                    .password(password)
+                    .build();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+            dataSource.setPoolName(shard.getValue());
+            if (createSchema) {
+                new JdbcTemplate(dataSource).execute(CREATE_TABLE);
+            }
+            shards.put(shard.getValue(), dataSource);
+        }
+        return new ShardRoutingDataSource(shards, layout(urls).shards().get(0));
+    }
+
+    // 元数据放在默认分片上，迁移要求目标布局的第一个分片不变，所以它始终在 user.shards.urls 的第一个地址上
+    @Bean(destroyMethod = "close")
+    public ShardMetadata shardMetadata(ShardRoutingDataSource dataSource,
+                                       @Value("${user.shards.create-schema:true}") boolean createSchema,
+                                       @Value("${user.shards.heartbeat-ms:5000}") long heartbeatMillis) {
+        Map<String, String> urlsByName = new LinkedHashMap<>();
+        shardNames().forEach((url, name) -> urlsByName.put(name, url));
+        ShardMetadata metadata = new ShardMetadata(dataSource.shard(layout(urls).shards().get(0)), urlsByName,
+                heartbeatMillis);
+        if (createSchema) {
+            metadata.createSchema();
+        }
+        metadata.start();
+        return metadata;
+    }
+
+    // 按持久化的布局路由；目标布局已经生效时（迁移完成后还没改配置）不再作为待迁移的布局
+    @Bean
+    public ShardRouter shardRouter(ShardMetadata metadata,
+                                   @Value("${instrumentation.enabled:true}") boolean instrumentation,
+                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        ShardLayout current = metadata.resolve(layout(urls));
+        ShardLayout planned = nextUrls.isBlank() ? null : layout(nextUrls);
+        if (planned != null && planned.shards().equals(current.shards())) {
+            planned = null;
+        }
+        ShardRouter router = new ShardRouter(current, planned);
+        if (instrumentation) {
+            meterRegistry.ifAvailable(registry -> {
+                Gauge.builder("user.shards.count", router, r -> r.routing().current().size())
+                        .register(registry);
+                Gauge.builder("user.shards.migrating", router, r -> r.routing().migrating() ? 1 : 0)
+                        .description("是否处于分片迁移的双写阶段")
+                        .register(registry);
+            });
+        }
+        return router;
+    }
+
+    // 取代单库的 JpaUserStore；UserRepository 本身不按分片路由，业务代码只通过 UserStore 访问用户表
+    @Bean
+    @Primary
+    public UserStore shardedUserStore(UserRepository userRepository,
+                                      ShardRouter shardRouter,
+                                      ShardRoutingDataSource dataSource) {
+        return new ShardedUserStore(userRepository, shardRouter, dataSource);
+    }
+
+    private ShardLayout layout(String list) {
+        Map<String, String> names = shardNames();
+        List<String> shards = new ArrayList<>();
+        for (String url : split(list)) {
+            shards.add(names.get(url));
+        }
+        return new ShardLayout(shards);
+    }
+
+    // 地址到分片名，先当前布局后目标布局，按首次出现的顺序编号
+    private Map<String, String> shardNames() {
+        Map<String, String> names = new LinkedHashMap<>();
+        List<String> all = new ArrayList<>(split(urls));
+        all.addAll(split(nextUrls));
+        for (String url : all) {
+            names.putIfAbsent(url, "shard-" + names.size());
+        }
+        return names;
+    }
+
+    private static List<String> split(String list) {
+        List<String> values = new ArrayList<>();
+        for (String value : list.split(",")) {
+            if (!value.isBlank()) {
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.lab1.config;
+
+import com.example.lab1.utils.UserIdGenerator;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class UserIdConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(UserIdConfig.class);
+
+    @Value("${user.id.worker-id:}")
+    private String workerId;
+
+    @Value("${user.shards.urls:}")
+    private String shardUrls;
+
+    @Value("${datasource.replica.urls:}")
+    private String replicaUrls;
+
+    // 多节点部署时每个节点必须配置不同的节点号
+    @PostConstruct
+    public void init() {
+        int id = resolveWorkerId(workerId, !shardUrls.isBlank() || !replicaUrls.isBlank());
+        UserIdGenerator.setWorkerId(id);
+        log.info("用户主键节点号设为 {}", id);
+    }
+
+    // 节点号相同的两个节点会生成相同的主键：分片迁移按“不存在才插入”复制时会跳过冲突的行。
+    // 配置了分片或只读副本按多节点部署对待，必须显式配置；单库未配置时按单节点使用 0
+    static int resolveWorkerId(String workerId, boolean multiNode) {
+        if (!workerId.isBlank()) {
+            return Integer.parseInt(workerId.trim());
+        }
+        if (multiNode) {
+            throw new IllegalStateException("配置了分片或只读副本时必须为每个节点配置不同的 user.id.worker-id（USER_ID_WORKER_ID）");
+        }
+        log.warn("未配置 user.id.worker-id，按单节点部署使用 0；多节点部署时每个节点必须配置不同的节点号");
+        return 0;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.lab1.controller;
+
+import com.example.lab1.utils.CaptchaTestHook;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+// 仅在 captcha.test-hook.enabled=true 时注册，供压测脚本读取验证码答案
+@RestController
+@RequestMapping("/api/test/captcha")
+@ConditionalOnProperty(name = "captcha.test-hook.enabled", havingValue = "true")
+public class CaptchaTestHookController {
+
+    private final CaptchaTestHook captchaTestHook;
+
+    public CaptchaTestHookController(CaptchaTestHook captchaTestHook) {
+        this.captchaTestHook = captchaTestHook;
+    }
+
+    @GetMapping("/{captchaId}")
+    public ResponseEntity<Map<String, String>> getCaptchaText(@PathVariable String captchaId) {
+        String text = captchaTestHook.peek(captchaId);
+        if (text == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "验证码不存在");
+        }
+        return ResponseEntity.ok(Map.of("captchaText", text));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.lab1.controller;
+
+import com.example.lab1.service.ReshardingService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+// 仅在配置了分片（user.shards.urls 非空）时注册，供管理员发起和查看在线分片迁移
+@RestController
+@RequestMapping("/api/admin/shards")
+@ConditionalOnExpression("!'${user.shards.urls:}'.isBlank()")
+public class ShardAdminController {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final ReshardingService reshardingService;
+
+    public ShardAdminController(ReshardingService reshardingService) {
+        this.reshardingService = reshardingService;
+    }
+
+    // 迁移在后台执行，立即返回当前状态
+    @PostMapping("/reshard")
+    public ResponseEntity<Map<String, Object>> reshard(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reshardingService.start(extractToken(authorization)));
+    }
+
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> status(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        return ResponseEntity.ok(reshardingService.status(extractToken(authorization)));
+    }
+
+    private static String extractToken(String authorization) {
+        return authorization.startsWith(BEARER_PREFIX) ? authorization.substring(BEARER_PREFIX.length()) : authorization;
+    }
+}
@@ -1,2 +1,166 @@
-package com.example.lab1.service;public class UserController {
+package com.example.lab1.controller;
+
+import com.example.lab1.dto.ImportUserRequest;
+import com.example.lab1.dto.LoginRequest;
+import com.example.lab1.dto.NewUserRequest;
+import com.example.lab1.dto.RequestValidator;
+import com.example.lab1.dto.UserImportResult;
+import com.example.lab1.dto.UserResponse;
+import com.example.lab1.exception.BadRequestException;
+import com.example.lab1.service.LoginAuditService;
+import com.example.lab1.service.SessionService;
+import com.example.lab1.service.UserImportService;
+import com.example.lab1.service.UserService;
+import com.example.lab1.utils.CaptchaUtil;
+import com.example.lab1.utils.LoginJournal;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/users")
+public class UserController {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String CAPTCHA_ID_HEADER = "X-Captcha-Id";
+
+    private final UserService userService;
+    private final UserImportService userImportService;
+    private final SessionService sessionService;
+    private final LoginAuditService loginAuditService;
+
+    public UserController(UserService userService, UserImportService userImportService, SessionService sessionService,
+                          LoginAuditService loginAuditService) {
+        this.userService = userService;
+        this.userImportService = userImportService;
+        this.sessionService = sessionService;
+        this.loginAuditService = loginAuditService;
+    }
+
+    // 参数校验不走 @Valid，由 RequestValidator 直接判断，失败时抛出预先建好的异常
+    @PostMapping("/register")
+    public ResponseEntity<UserResponse> registerUser(@RequestBody NewUserRequest request) {
+        RequestValidator.validate(request);
+        return ResponseEntity.ok(userService.registerUser(request));
+    }
+
+    // 注册页输入用户名时检查是否可用，大多数新用户名不查库
+    @GetMapping("/availability")
+    public ResponseEntity<Map<String, Object>> checkAvailability(@RequestParam String username) {
+        if (username.isBlank()) {
+            throw BadRequestException.USERNAME_BLANK;
+        }
+        if (username.length() < 3 || username.length() > 50) {
+            throw BadRequestException.USERNAME_LENGTH;
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("username", username);
+        response.put("available", userService.isUsernameAvailable(username));
+        return ResponseEntity.ok(response);
+    }
+
+    // 管理员批量导入，逐条校验，单条失败不影响其余记录
+    @PostMapping("/register/batch")
+    public ResponseEntity<UserImportResult> importUsers(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                                        @RequestBody List<ImportUserRequest> requests) {
+        return ResponseEntity.ok(userImportService.importUsers(extractToken(authorization), requests));
+    }
+
+    // 客户端 IP 用于按 IP 限流；只有 server.forward-headers-strategy=native 且直连方是受信代理时才取自 X-Forwarded-For
+    @PostMapping("/login")
+    public ResponseEntity<Map<String, String>> loginUser(@RequestBody LoginRequest request,
+                                                         HttpServletRequest httpRequest) {
+        RequestValidator.validate(request);
+        String token = userService.loginUser(request, httpRequest.getRemoteAddr());
+
+        Map<String, String> response = new HashMap<>();
+        response.put("token", token);
+        response.put("message", "登录成功");
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Map<String, String>> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        sessionService.logout(extractToken(authorization));
+        return ResponseEntity.ok(Map.of("message", "已退出登录"));
+    }
+
+    // 管理员强制下线：该用户此前签发的 token 全部失效
+    @PostMapping("/{username}/revoke-sessions")
+    public ResponseEntity<Map<String, String>> revokeSessions(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                                              @PathVariable String username) {
+        sessionService.revokeSessions(extractToken(authorization), username);
+        return ResponseEntity.ok(Map.of("message", "已注销该用户的全部登录"));
+    }
+
+    // 获取验证码：从预渲染池取一张，登记后返回 id 和 base64 图片
+    @GetMapping("/captcha")
+    public ResponseEntity<Map<String, String>> getCaptcha() {
+        CaptchaUtil.RenderedCaptcha captcha = CaptchaUtil.nextCaptcha();
+        String captchaId = CaptchaUtil.storeCaptcha(captcha.text());
+
+        Map<String, String> response = new HashMap<>();
+        response.put("captchaId", captchaId);
+        response.put("captchaImage", "data:image/png;base64," + Base64.getEncoder().encodeToString(captcha.png()));
+        return ResponseEntity.ok(response);
+    }
+
+    // 获取验证码图片：直接返回 PNG 字节，captchaId 放在响应头中，省去 base64 和 JSON 序列化
+    @GetMapping("/captcha/image")
+    public ResponseEntity<byte[]> getCaptchaImage() {
+        CaptchaUtil.RenderedCaptcha captcha = CaptchaUtil.nextCaptcha();
+        String captchaId = CaptchaUtil.storeCaptcha(captcha.text());
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .contentLength(captcha.png().length)
+                .cacheControl(CacheControl.noStore())
+                .header(CAPTCHA_ID_HEADER, captchaId)
+                .body(captcha.png());
+    }
+
+    @GetMapping("/validate-token")
+    public ResponseEntity<Map<String, Boolean>> validateToken(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        Map<String, Boolean> response = new HashMap<>();
+        response.put("valid", userService.validateToken(extractToken(authorization)));
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/profile")
+    public ResponseEntity<UserResponse> getUserProfile(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        return ResponseEntity.ok(userService.getUserProfileByToken(extractToken(authorization)));
+    }
+
+    // 登录历史：按审计日志的索引读取最近 limit 条，本人或管理员可查
+    @GetMapping("/{id}/login-history")
+    public ResponseEntity<Map<String, Object>> getLoginHistory(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                                               @PathVariable long id,
+                                                               @RequestParam(defaultValue = "20") int limit) {
+        UserResponse caller = userService.getUserProfileByToken(extractToken(authorization));
+        List<LoginJournal.Event> events = loginAuditService.history(caller, id, limit);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("userId", String.valueOf(id));
+        response.put("events", events);
+        return ResponseEntity.ok(response);
+    }
+
+    // 去掉 "Bearer " 前缀
+    private static String extractToken(String authorization) {
+        return authorization.startsWith(BEARER_PREFIX) ? authorization.substring(BEARER_PREFIX.length()) : authorization;
+    }
 }
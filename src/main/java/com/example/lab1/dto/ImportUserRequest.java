@@ -0,0 +1,14 @@
+package com.example.lab1.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+// 批量导入的单条记录，校验规则与注册一致，但不需要验证码
+public record ImportUserRequest(
+        @NotBlank(message = "用户名不能为空")
+        @Size(min = 3, max = 50, message = "用户名长度必须在3到50个字符之间")
+        String username,
+        @NotBlank(message = "密码不能为空")
+        @Size(min = 6, max = 72, message = "密码长度必须在6到72个字符之间")
+        String password) {
+}
@@ -1,2 +1,14 @@
-package com.example.lab1.dto;public class LoginRequest {
+package com.example.lab1.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record LoginRequest(
+        @NotBlank(message = "用户名不能为空") String username,
+        @NotBlank(message = "密码不能为空") String password,
+        String captchaId,
+        String captchaText) {
+
+    public LoginRequest(String username, String password) {
+        this(username, password, null, null);
+    }
 }
@@ -1,2 +1,15 @@
-package com.example.lab1.dto;public class NewUserRequest {
+package com.example.lab1.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public record NewUserRequest(
+        @NotBlank(message = "用户名不能为空")
+        @Size(min = 3, max = 50, message = "用户名长度必须在3到50个字符之间")
+        String username,
+        @NotBlank(message = "密码不能为空")
+        @Size(min = 6, max = 72, message = "密码长度必须在6到72个字符之间")
+        String password,
+        @NotBlank(message = "验证码ID不能为空") String captchaId,
+        @NotBlank(message = "验证码不能为空") String captchaText) {
 }
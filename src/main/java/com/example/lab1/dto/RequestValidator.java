@@ -0,0 +1,98 @@
+package com.example.lab1.dto;
+
+import com.example.lab1.exception.ValidationFailedException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 注册和登录请求的参数校验，规则与 {@link NewUserRequest}、{@link LoginRequest} 上的约束注解一致。
+ * <p>
+ * 这两个接口是被刷的主要目标，不经过 Bean Validation（反射读取字段、逐条生成 FieldError），直接按字段判断。
+ * 每个字段最多一条错误（@NotBlank 优先于 @Size），错误组合有限，启动时为每种组合建好不带堆栈的异常和编码好的响应体，
+ * 校验失败时直接抛出，不再分配。
+ */
+public final class RequestValidator {
+
+    private enum Violation {
+        USERNAME_BLANK("username", "用户名不能为空"),
+        USERNAME_SIZE("username", "用户名长度必须在3到50个字符之间"),
+        PASSWORD_BLANK("password", "密码不能为空"),
+        PASSWORD_SIZE("password", "密码长度必须在6到72个字符之间"),
+        CAPTCHA_ID_BLANK("captchaId", "验证码ID不能为空"),
+        CAPTCHA_TEXT_BLANK("captchaText", "验证码不能为空");
+
+        private final String field;
+        private final String message;
+
+        Violation(String field, String message) {
+            this.field = field;
+            this.message = message;
+        }
+
+        int bit() {
+            return 1 << ordinal();
+        }
+    }
+
+    // 下标为违反规则的位掩码
+    private static final ValidationFailedException[] FAILURES = new ValidationFailedException[1 << Violation.values().length];
+
+    static {
+        for (int mask = 1; mask < FAILURES.length; mask++) {
+            Map<String, String> errors = new LinkedHashMap<>();
+            for (Violation violation : Violation.values()) {
+                if ((mask & violation.bit()) != 0) {
+                    errors.putIfAbsent(violation.field, violation.message);
+                }
+            }
+            FAILURES[mask] = new ValidationFailedException(errors);
+        }
+    }
+
+    private RequestValidator() {
+    }
+
+    public static void validate(NewUserRequest request) {
+        int mask = checkSize(request.username(), 3, 50, Violation.USERNAME_BLANK, Violation.USERNAME_SIZE)
+                | checkSize(request.password(), 6, 72, Violation.PASSWORD_BLANK, Violation.PASSWORD_SIZE)
+                | checkBlank(request.captchaId(), Violation.CAPTCHA_ID_BLANK)
+                | checkBlank(request.captchaText(), Violation.CAPTCHA_TEXT_BLANK);
+        if (mask != 0) {
+            throw FAILURES[mask];
+        }
+    }
+
+    public static void validate(LoginRequest request) {
+        int mask = checkBlank(request.username(), Violation.USERNAME_BLANK)
+                | checkBlank(request.password(), Violation.PASSWORD_BLANK);
+        if (mask != 0) {
+            throw FAILURES[mask];
+        }
+    }
+
+    private static int checkBlank(String value, Violation blank) {
+        return isBlank(value) ? blank.bit() : 0;
+    }
+
+    // @Size 不检查 null，null 只算 @NotBlank 一条
+    private static int checkSize(String value, int min, int max, Violation blank, Violation size) {
+        if (isBlank(value)) {
+            return blank.bit();
+        }
+        return value.length() < min || value.length() > max ? size.bit() : 0;
+    }
+
+    // 与 @NotBlank 相同：null，或 trim() 之后为空（所有字符都不大于空格）
+    private static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
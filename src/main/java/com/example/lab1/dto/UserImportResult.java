@@ -0,0 +1,10 @@
+package com.example.lab1.dto;
+
+import java.util.List;
+
+// 批量导入结果：成功条数和逐条失败原因，index 为记录在请求中的下标
+public record UserImportResult(int total, int imported, List<Failure> failures) {
+
+    public record Failure(int index, String username, String reason) {
+    }
+}
@@ -1,2 +1,8 @@
-package com.example.lab1.dto;public class UserResponse {
+package com.example.lab1.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+// id 超过 2^53，按字符串输出，避免 JavaScript 客户端解析成 double 丢失精度
+public record UserResponse(@JsonSerialize(using = ToStringSerializer.class) Long id, String username) {
 }
@@ -1,2 +1,68 @@
-package com.example.lab1.entity;public class User {
+package com.example.lab1.entity;
+
+import com.example.lab1.utils.UserIdGenerator;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+@Entity
+// 用户名唯一约束：注册时直接插入，由数据库判重
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"))
+public class User {
+
+    public static final String USERNAME_CONSTRAINT = "uk_users_username";
+
+    // 主键在插入前由 UserIdGenerator 在内存中生成，全局唯一，分片之间无需协调；
+    // 不必逐行取回自增 id，批量插入时 Hibernate 仍能合并成 JDBC batch
+    @Id
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String username;
+
+    // bcrypt 哈希后的密码
+    @Column(nullable = false)
+    private String password;
+
+    public User() {
+    }
+
+    public User(String username, String password) {
+        this.username = username;
+        this.password = password;
+    }
+
+    @PrePersist
+    void assignId() {
+        if (id == null) {
+            id = UserIdGenerator.nextId();
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
 }
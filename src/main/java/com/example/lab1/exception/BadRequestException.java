@@ -1,2 +1,37 @@
-package com.example.lab1.exception;public class BadRequestException {
+package com.example.lab1.exception;
+
+/**
+ * 业务错误，由 {@link GlobalExceptionHandler} 转换为 400 {"error": 错误信息}。
+ * <p>
+ * 被刷接口时大部分请求都以验证码错误、用户名或密码错误结束，这些固定错误用下面预先分配的实例：
+ * 不填充堆栈、不记录 suppressed，响应体预先编码，可以在多个线程间共享抛出，每次失败不再分配。
+ */
+public class BadRequestException extends RuntimeException {
+
+    public static final BadRequestException CAPTCHA_INVALID = preallocated("验证码错误");
+    public static final BadRequestException BAD_CREDENTIALS = preallocated("用户名或密码错误");
+    public static final BadRequestException USERNAME_TAKEN = preallocated("用户名已存在");
+    public static final BadRequestException USERNAME_BLANK = preallocated("用户名不能为空");
+    public static final BadRequestException USERNAME_LENGTH = preallocated("用户名长度必须在3到50个字符之间");
+
+    private final byte[] body;
+
+    public BadRequestException(String message) {
+        super(message);
+        this.body = null;
+    }
+
+    private BadRequestException(String message, byte[] body) {
+        super(message, null, false, false);
+        this.body = body;
+    }
+
+    private static BadRequestException preallocated(String message) {
+        return new BadRequestException(message, ErrorBody.of(message));
+    }
+
+    // 编码后的响应体，预先分配的实例直接返回同一个数组，调用方不能修改
+    public byte[] getBody() {
+        return body != null ? body : ErrorBody.of(getMessage());
+    }
 }
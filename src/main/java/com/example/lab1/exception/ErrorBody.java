@@ -0,0 +1,65 @@
+package com.example.lab1.exception;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 错误响应体的 JSON 编码，输出与 Jackson 序列化同样内容的 Map 一致（UTF-8，不转义中文）。
+ * 固定的错误信息在创建异常时编码一次，之后每次响应直接写出字节数组，不再建 Map、不经过 Jackson。
+ */
+public final class ErrorBody {
+
+    private ErrorBody() {
+    }
+
+    // {"error": message}
+    public static byte[] of(String message) {
+        StringBuilder json = new StringBuilder(24 + (message == null ? 4 : message.length()));
+        json.append("{\"error\":");
+        appendString(json, message);
+        return json.append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // {字段名: 错误信息, ...}，按 map 的迭代顺序
+    public static byte[] of(Map<String, String> fields) {
+        StringBuilder json = new StringBuilder(64);
+        json.append('{');
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            appendString(json, field.getKey());
+            json.append(':');
+            appendString(json, field.getValue());
+        }
+        return json.append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                case '\b' -> json.append("\\b");
+                case '\f' -> json.append("\\f");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04X", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -1,2 +1,62 @@
-package com.example.lab1.exception;public class GlobalExceptionHandler {
+package com.example.lab1.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 响应体都是编码好的 JSON 字节，由 ByteArrayHttpMessageConverter 原样写出，不经过 Jackson
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    // 业务错误，返回 {"error": 错误信息}
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<byte[]> handleBadRequestException(BadRequestException ex) {
+        return json(HttpStatus.BAD_REQUEST, ex.getBody());
+    }
+
+    // 注册、登录的参数校验错误，返回 {字段名: 错误信息}
+    @ExceptionHandler(ValidationFailedException.class)
+    public ResponseEntity<byte[]> handleValidationFailedException(ValidationFailedException ex) {
+        return json(HttpStatus.BAD_REQUEST, ex.getBody());
+    }
+
+    // 其他接口 @Valid 的参数校验错误，返回 {字段名: 错误信息}
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<byte[]> handleValidationExceptions(MethodArgumentNotValidException ex) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (FieldError error : ex.getBindingResult().getFieldErrors()) {
+            errors.put(error.getField(), error.getDefaultMessage());
+        }
+        return json(HttpStatus.BAD_REQUEST, ErrorBody.of(errors));
+    }
+
+    // 服务过载，让客户端稍后重试而不是排队等待
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<byte[]> handleServiceBusyException(ServiceBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(ex.getBody());
+    }
+
+    // 登录限流，返回 429 和需要等待的秒数
+    @ExceptionHandler(TooManyAttemptsException.class)
+    public ResponseEntity<byte[]> handleTooManyAttemptsException(TooManyAttemptsException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(ex.getBody());
+    }
+
+    private static ResponseEntity<byte[]> json(HttpStatus status, byte[] body) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
 }
@@ -0,0 +1,22 @@
+package com.example.lab1.exception;
+
+/**
+ * 服务过载时快速失败，由 {@link GlobalExceptionHandler} 转换为 503 并带 Retry-After。
+ * 过载时每个被拒绝的请求都会抛出，使用预先分配、不带堆栈的 {@link #BUSY}。
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    public static final ServiceBusyException BUSY = new ServiceBusyException("服务繁忙，请稍后重试");
+
+    private final byte[] body;
+
+    public ServiceBusyException(String message) {
+        super(message, null, false, false);
+        this.body = ErrorBody.of(message);
+    }
+
+    // 调用方不能修改
+    public byte[] getBody() {
+        return body;
+    }
+}
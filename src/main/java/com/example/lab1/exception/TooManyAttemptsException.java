@@ -0,0 +1,27 @@
+package com.example.lab1.exception;
+
+/**
+ * 登录尝试过于频繁或账号 / IP 已被临时锁定，由 {@link GlobalExceptionHandler} 转换为 429 并带 Retry-After。
+ * 被锁定期间的每次尝试都会抛出，所以不填充堆栈，响应体预先编码。
+ */
+public class TooManyAttemptsException extends RuntimeException {
+
+    private static final String MESSAGE = "尝试次数过多，请稍后再试";
+    private static final byte[] BODY = ErrorBody.of(MESSAGE);
+
+    private final long retryAfterSeconds;
+
+    public TooManyAttemptsException(long retryAfterSeconds) {
+        super(MESSAGE, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    // 调用方不能修改
+    public byte[] getBody() {
+        return BODY;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.lab1.exception;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 请求参数校验失败，由 {@link GlobalExceptionHandler} 转换为 400 {字段名: 错误信息}。
+ * <p>
+ * 不填充堆栈，响应体在创建时编码；错误组合固定的校验（见 {@link com.example.lab1.dto.RequestValidator}）预先为每种组合建好实例。
+ */
+public class ValidationFailedException extends RuntimeException {
+
+    private final Map<String, String> errors;
+    private final byte[] body;
+
+    public ValidationFailedException(Map<String, String> errors) {
+        super("参数校验失败: " + errors, null, false, false);
+        this.errors = Collections.unmodifiableMap(new LinkedHashMap<>(errors));
+        this.body = ErrorBody.of(this.errors);
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+
+    // 调用方不能修改
+    public byte[] getBody() {
+        return body;
+    }
+}
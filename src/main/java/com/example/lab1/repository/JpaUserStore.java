@@ -0,0 +1,59 @@
+package com.example.lab1.repository;
+
+import com.example.lab1.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+// 单库时的 UserStore，事务和读写分离都由 UserRepository 上的注解处理
+@Component
+public class JpaUserStore implements UserStore {
+
+    private final UserRepository userRepository;
+
+    public JpaUserStore(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public User save(User user) {
+        return userRepository.save(user);
+    }
+
+    @Override
+    public List<User> saveAll(List<User> users) {
+        return userRepository.saveAll(users);
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        return userRepository.existsByUsername(username);
+    }
+
+    @Override
+    public UserCredentials findCredentialsByUsername(String username) {
+        return userRepository.findCredentialsByUsername(username);
+    }
+
+    @Override
+    public List<String> findExistingUsernames(Collection<String> usernames) {
+        return userRepository.findExistingUsernames(usernames);
+    }
+
+    @Override
+    public List<UsernameRow> findUsernamesAfter(long afterId, Pageable pageable) {
+        return userRepository.findUsernamesAfter(afterId, pageable);
+    }
+
+    @Override
+    public int updatePassword(Long id, String oldHash, String newHash) {
+        return userRepository.updatePassword(id, oldHash, newHash);
+    }
+
+    @Override
+    public long count() {
+        return userRepository.count();
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.lab1.repository;
+
+import com.example.lab1.utils.ShardLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分片布局和迁移阶段的持久化记录，保存在默认分片（user.shards.urls 的第一个地址）上。
+ * 启动时按这里记录的布局路由，迁移后重启不依赖是否已经修改 user.shards.urls。
+ * <p>
+ * shard_layout 只有一行：生效布局的分片地址、迁移阶段，以及迁移涉及的另一个布局
+ * （MIGRATING 时是目标布局，CLEANING 时是待清理的旧布局）和发起迁移的节点。
+ * shard_nodes 记录各节点的心跳，每 heartbeat-ms 更新一次，3 个周期内有心跳的节点视为在运行；比较用各节点的本地时钟。
+ */
+public class ShardMetadata implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardMetadata.class);
+
+    public enum Phase {
+        IDLE, MIGRATING, CLEANING
+    }
+
+    public record State(ShardLayout layout, Phase phase, ShardLayout pending, String owner) {
+    }
+
+    private static final String CREATE_LAYOUT_TABLE = "create table if not exists shard_layout ("
+            + "id int not null, urls varchar(4000) not null, phase varchar(16) not null, "
+            + "pending_urls varchar(4000), owner_node varchar(255), primary key (id))";
+    private static final String CREATE_NODES_TABLE = "create table if not exists shard_nodes ("
+            + "node varchar(255) not null, heartbeat_at bigint not null, primary key (node))";
+
+    private final JdbcTemplate jdbc;
+    // 分片名到地址；持久化的是地址，分片名随配置中地址的顺序变化
+    private final Map<String, String> urls;
+    private final long heartbeatMillis;
+    private final String nodeId;
+    private final ScheduledExecutorService heartbeat;
+
+    public ShardMetadata(DataSource dataSource, Map<String, String> urls, long heartbeatMillis) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.urls = new LinkedHashMap<>(urls);
+        this.heartbeatMillis = Math.max(100, heartbeatMillis);
+        this.nodeId = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "shard-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void createSchema() {
+        jdbc.execute(CREATE_LAYOUT_TABLE);
+        jdbc.execute(CREATE_NODES_TABLE);
+    }
+
+    // 先同步写一次心跳，返回后本节点即可被其他节点看到
+    public void start() {
+        beat(System.currentTimeMillis());
+        heartbeat.scheduleWithFixedDelay(() -> {
+            try {
+                beat(System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                log.warn("写入分片节点心跳失败", e);
+            }
+        }, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 启动时决定使用的布局：有持久化记录时以记录为准，否则使用配置的布局。
+     * 其他节点正在迁移时拒绝启动；发起迁移的节点已经停止时，未切换的迁移作废、回到迁移前的布局，已切换的保留新布局。
+     */
+    public ShardLayout resolve(ShardLayout configured) {
+        State state = load();
+        if (state == null) {
+            return configured;
+        }
+        long now = System.currentTimeMillis();
+        if (state.phase() == Phase.MIGRATING) {
+            if (isLive(state.owner(), now)) {
+                throw new IllegalStateException("节点 " + state.owner() + " 正在进行分片迁移，迁移结束后再启动其他节点");
+            }
+            log.warn("节点 {} 的分片迁移 {} -> {} 未切换就已停止，继续使用原布局", state.owner(), state.layout(), state.pending());
+            save(new State(state.layout(), Phase.IDLE, null, null));
+        } else if (state.phase() == Phase.CLEANING && !isLive(state.owner(), now)) {
+            log.warn("节点 {} 已切换到分片布局 {} 但未清理完旧布局 {}，重新发起迁移会继续清理",
+                    state.owner(), state.layout(), state.pending());
+        }
+        if (!state.layout().shards().equals(configured.shards())) {
+            log.warn("按持久化的分片布局 {} 路由，与 user.shards.urls 配置的 {} 不同，请更新配置", state.layout(), configured);
+        }
+        return state.layout();
+    }
+
+    public State load() {
+        List<State> states = jdbc.query("select urls, phase, pending_urls, owner_node from shard_layout where id = 1",
+                (rs, i) -> new State(layout(rs.getString(1)), Phase.valueOf(rs.getString(2)),
+                        rs.getString(3) == null ? null : layout(rs.getString(3)), rs.getString(4)));
+        return states.isEmpty() ? null : states.get(0);
+    }
+
+    public void save(State state) {
+        String layoutUrls = urls(state.layout());
+        String pendingUrls = state.pending() == null ? null : urls(state.pending());
+        int updated = jdbc.update("update shard_layout set urls = ?, phase = ?, pending_urls = ?, owner_node = ? where id = 1",
+                layoutUrls, state.phase().name(), pendingUrls, state.owner());
+        if (updated == 0) {
+            jdbc.update("insert into shard_layout (id, urls, phase, pending_urls, owner_node) values (1, ?, ?, ?, ?)",
+                    layoutUrls, state.phase().name(), pendingUrls, state.owner());
+        }
+    }
+
+    // 除本节点外仍在运行的节点
+    public List<String> otherLiveNodes() {
+        return jdbc.queryForList("select node from shard_nodes where heartbeat_at >= ? and node <> ? order by node",
+                String.class, System.currentTimeMillis() - 3 * heartbeatMillis, nodeId);
+    }
+
+    @Override
+    public void close() {
+        heartbeat.shutdownNow();
+        try {
+            jdbc.update("delete from shard_nodes where node = ?", nodeId);
+        } catch (RuntimeException e) {
+            log.warn("删除分片节点心跳失败", e);
+        }
+    }
+
+    private void beat(long nowMillis) {
+        if (jdbc.update("update shard_nodes set heartbeat_at = ? where node = ?", nowMillis, nodeId) == 0) {
+            jdbc.update("insert into shard_nodes (node, heartbeat_at) values (?, ?)", nodeId, nowMillis);
+        }
+    }
+
+    private boolean isLive(String node, long nowMillis) {
+        if (node == null) {
+            return false;
+        }
+        List<Long> beats = jdbc.queryForList("select heartbeat_at from shard_nodes where node = ?", Long.class, node);
+        return !beats.isEmpty() && beats.get(0) >= nowMillis - 3 * heartbeatMillis;
+    }
+
+    private String urls(ShardLayout layout) {
+        List<String> list = new ArrayList<>();
+        for (String shard : layout.shards()) {
+            list.add(urls.get(shard));
+        }
+        return String.join(",", list);
+    }
+
+    private ShardLayout layout(String list) {
+        List<String> shards = new ArrayList<>();
+        for (String url : list.split(",")) {
+            String shard = shardOf(url);
+            if (shard == null) {
+                throw new IllegalStateException("持久化的分片布局引用了未配置的地址 " + url
+                        + "，请把它加入 user.shards.urls 或 user.shards.next-urls");
+            }
+            shards.add(shard);
+        }
+        return new ShardLayout(shards);
+    }
+
+    private String shardOf(String url) {
+        for (Map.Entry<String, String> entry : urls.entrySet()) {
+            if (entry.getValue().equals(url)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+}
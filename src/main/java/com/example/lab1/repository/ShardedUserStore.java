@@ -0,0 +1,173 @@
+package com.example.lab1.repository;
+
+import com.example.lab1.entity.User;
+import com.example.lab1.utils.ShardRouter;
+import com.example.lab1.utils.ShardRoutingDataSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分片模式下的 {@link UserStore}：按用户名把调用转给对应分片上的 {@link UserRepository}。
+ * <p>
+ * 以用户名为键的方法只访问一个分片；saveAll、findExistingUsernames 按分片分组，每组在各自分片上一个事务；
+ * 不带用户名的 updatePassword、count、findUsernamesAfter 在所有分片上执行后合并结果。
+ * 每个分片各自开事务，所以不能在外层事务中调用。
+ * <p>
+ * 迁移期间写入同时写到目标布局：save 之后在目标分片上按“不存在才插入”补一行，updatePassword 在新旧分片上都执行，
+ * 这样复制过程中新写入的数据不会丢，复制前后的改动也能由复制工具对齐。
+ */
+public class ShardedUserStore implements UserStore {
+
+    // 目标分片上已有该用户名或主键时不插入
+    public static final String INSERT_IF_ABSENT = "insert into users (id, username, password) "
+            + "select ?, ?, ? from dual where not exists (select 1 from users where id = ? or username = ?)";
+
+    private final UserRepository delegate;
+    private final ShardRouter router;
+    private final ShardRoutingDataSource dataSource;
+    private final Map<String, JdbcTemplate> jdbcTemplates = new ConcurrentHashMap<>();
+
+    public ShardedUserStore(UserRepository delegate, ShardRouter router, ShardRoutingDataSource dataSource) {
+        this.delegate = delegate;
+        this.router = router;
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public User save(User user) {
+        ShardRouter.Routing routing = routing();
+        User saved = ShardRoutingDataSource.on(routing.current().shardOf(user.getUsername()), () -> delegate.save(user));
+        mirror(routing, List.of(user));
+        return saved;
+    }
+
+    @Override
+    public List<User> saveAll(List<User> users) {
+        ShardRouter.Routing routing = routing();
+        Map<String, List<User>> groups = new LinkedHashMap<>();
+        for (User user : users) {
+            groups.computeIfAbsent(routing.current().shardOf(user.getUsername()), k -> new ArrayList<>()).add(user);
+        }
+        List<User> saved = new ArrayList<>();
+        for (Map.Entry<String, List<User>> group : groups.entrySet()) {
+            saved.addAll(ShardRoutingDataSource.on(group.getKey(), () -> delegate.saveAll(group.getValue())));
+            mirror(routing, group.getValue());
+        }
+        return saved;
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        return ShardRoutingDataSource.on(routing().current().shardOf(username),
+                () -> delegate.existsByUsername(username));
+    }
+
+    @Override
+    public UserCredentials findCredentialsByUsername(String username) {
+        return ShardRoutingDataSource.on(routing().current().shardOf(username),
+                () -> delegate.findCredentialsByUsername(username));
+    }
+
+    @Override
+    public List<String> findExistingUsernames(Collection<String> usernames) {
+        ShardRouter.Routing routing = routing();
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (String username : usernames) {
+            groups.computeIfAbsent(routing.current().shardOf(username), k -> new ArrayList<>()).add(username);
+        }
+        List<String> existing = new ArrayList<>();
+        for (Map.Entry<String, List<String>> group : groups.entrySet()) {
+            existing.addAll(ShardRoutingDataSource.on(group.getKey(),
+                    () -> delegate.findExistingUsernames(group.getValue())));
+        }
+        return existing;
+    }
+
+    // 各分片各取一页，按主键归并后取前 pageSize 条
+    @Override
+    public List<UsernameRow> findUsernamesAfter(long afterId, Pageable pageable) {
+        List<UsernameRow> rows = new ArrayList<>();
+        for (String shard : routing().current().shards()) {
+            rows.addAll(ShardRoutingDataSource.on(shard, () -> delegate.findUsernamesAfter(afterId, pageable)));
+        }
+        rows.sort(Comparator.comparing(UsernameRow::id));
+        int pageSize = pageable.getPageSize();
+        return rows.size() > pageSize ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+    }
+
+    // 只知道主键，在所有分片上按旧哈希条件更新；迁移期间目标分片上的副本一起更新，返回值只计当前布局
+    @Override
+    public int updatePassword(Long id, String oldHash, String newHash) {
+        ShardRouter.Routing routing = routing();
+        int updated = 0;
+        for (String shard : routing.current().shards()) {
+            updated += ShardRoutingDataSource.on(shard, () -> delegate.updatePassword(id, oldHash, newHash));
+        }
+        if (routing.migrating()) {
+            for (String shard : routing.next().shards()) {
+                if (!routing.current().shards().contains(shard)) {
+                    ShardRoutingDataSource.on(shard, () -> delegate.updatePassword(id, oldHash, newHash));
+                }
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public long count() {
+        long count = 0;
+        for (String shard : routing().current().shards()) {
+            count += ShardRoutingDataSource.on(shard, delegate::count);
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "ShardedUserStore" + router.routing().current();
+    }
+
+    private ShardRouter.Routing routing() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("分片模式下不能在外层事务中访问用户表");
+        }
+        return router.routing();
+    }
+
+    // 迁移期间把新写入的行补到目标分片
+    private void mirror(ShardRouter.Routing routing, List<User> users) {
+        if (!routing.migrating()) {
+            return;
+        }
+        for (User user : users) {
+            String source = routing.current().shardOf(user.getUsername());
+            String target = routing.next().shardOf(user.getUsername());
+            if (!target.equals(source)) {
+                insertIfAbsent(jdbc(target), user.getId(), user.getUsername(), user.getPassword());
+            }
+        }
+    }
+
+    private JdbcTemplate jdbc(String shard) {
+        return jdbcTemplates.computeIfAbsent(shard, name -> new JdbcTemplate(dataSource.shard(name)));
+    }
+
+    // 返回是否插入；并发插入同一行时唯一约束冲突，同样视为已存在
+    public static boolean insertIfAbsent(JdbcTemplate jdbc, Long id, String username, String password) {
+        try {
+            return jdbc.update(INSERT_IF_ABSENT, id, username, password, id, username) > 0;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.lab1.repository;
+
+/**
+ * 登录和查询用户信息时只需要的列：主键和密码哈希。
+ * <p>
+ * 通过 JPQL 构造表达式直接生成，不是受管实体，不进持久化上下文，也不参与脏检查。
+ */
+public record UserCredentials(Long id, String passwordHash) {
+}
@@ -1,2 +1,67 @@
-package com.example.lab1.repository;public class UserRepository {
+package com.example.lab1.repository;
+
+import com.example.lab1.entity.User;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+// 查询方法默认在只读事务中执行，配置了只读副本时从副本读取；save 等写方法沿用 SimpleJpaRepository 的读写事务
+@Repository
+@Transactional(readOnly = true)
+public interface UserRepository extends JpaRepository<User, Long> {
+
+    User findByUsername(String username);
+
+    boolean existsByUsername(String username);
+
+    // 只读取主键和密码哈希，不加载实体
+    @Transactional(readOnly = true)
+    @Query("select new com.example.lab1.repository.UserCredentials(u.id, u.password) from User u where u.username = :username")
+    UserCredentials findCredentialsByUsername(@Param("username") String username);
+
+    // 批量导入时一次查出已被占用的用户名
+    @Transactional(readOnly = true)
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    // 按主键分批读取用户名（keyset 分页），用于构建用户名索引；每批只取 pageable 的大小，不用 offset
+    @Transactional(readOnly = true)
+    @Query("select new com.example.lab1.repository.UsernameRow(u.id, u.username) from User u where u.id > :afterId order by u.id")
+    List<UsernameRow> findUsernamesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // 仅当密码哈希仍是 oldHash 时才更新，避免覆盖并发修改
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :newHash where u.id = :id and u.password = :oldHash")
+    int updatePassword(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
+    // 是否违反了用户名唯一约束；主键冲突、非空和长度等其他约束返回 false。
+    // Hibernate 能解析出约束名时按约束名判断（H2 会带上 schema 和索引后缀），JdbcTemplate 抛出的异常只能按数据库的报错信息判断
+    static boolean isUsernameConflict(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                return mentionsUsernameConstraint(violation.getConstraintName());
+            }
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && mentionsUsernameConstraint(cause.getMessage())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean mentionsUsernameConstraint(String text) {
+        return text.toLowerCase(Locale.ROOT).contains(User.USERNAME_CONSTRAINT);
+    }
 }
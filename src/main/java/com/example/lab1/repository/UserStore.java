@@ -0,0 +1,30 @@
+package com.example.lab1.repository;
+
+import com.example.lab1.entity.User;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 业务代码对用户表的全部访问。单库时由 {@link JpaUserStore} 直接转给 {@link UserRepository}；
+ * 配置了分片时由 {@link ShardedUserStore} 按用户名路由到各分片。需要新的访问方式时先加到这里，两边一起实现。
+ */
+public interface UserStore {
+
+    User save(User user);
+
+    List<User> saveAll(List<User> users);
+
+    boolean existsByUsername(String username);
+
+    UserCredentials findCredentialsByUsername(String username);
+
+    List<String> findExistingUsernames(Collection<String> usernames);
+
+    List<UsernameRow> findUsernamesAfter(long afterId, Pageable pageable);
+
+    int updatePassword(Long id, String oldHash, String newHash);
+
+    long count();
+}
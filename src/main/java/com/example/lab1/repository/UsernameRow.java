@@ -0,0 +1,7 @@
+package com.example.lab1.repository;
+
+/**
+ * 构建用户名索引时按主键分批读取的行：主键用作下一批的起点。
+ */
+public record UsernameRow(Long id, String username) {
+}
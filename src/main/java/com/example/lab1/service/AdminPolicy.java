@@ -0,0 +1,47 @@
+package com.example.lab1.service;
+
+import com.example.lab1.utils.JWTUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 管理员名单（admin.usernames，逗号分隔的用户名），为空时没有管理员。
+ * 批量导入、强制下线、分片迁移和查看他人登录历史都按这份名单判断。
+ */
+@Component
+public class AdminPolicy {
+
+    private final Set<String> admins;
+
+    public AdminPolicy(@Value("${admin.usernames:}") String usernames) {
+        this.admins = new HashSet<>();
+        for (String admin : usernames.split(",")) {
+            if (!admin.isBlank()) {
+                this.admins.add(admin.trim());
+            }
+        }
+    }
+
+    public boolean isAdmin(String username) {
+        return username != null && admins.contains(username);
+    }
+
+    // 校验 token 并要求调用者是管理员，返回其用户名
+    public String requireAdmin(String token) {
+        String username;
+        try {
+            username = JWTUtil.getUsernameFromToken(token);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "无效的Token");
+        }
+        if (!isAdmin(username)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "无权限");
+        }
+        return username;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.lab1.service;
+
+import com.example.lab1.dto.UserResponse;
+import com.example.lab1.utils.LoginJournal;
+import com.example.lab1.utils.LoginJournal.Type;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 登录和注册的审计记录。事件交给 {@link LoginJournal} 的队列后立即返回，登录请求中不做任何 IO；
+ * 未配置审计日志（audit.journal.path 为空）时不记录。
+ * <p>
+ * 审计日志按节点各自保存：多节点部署时 history 只返回处理本次查询的节点上的记录，完整的历史需要汇总各节点的日志目录。
+ */
+@Service
+public class LoginAuditService {
+
+    private static final int MAX_HISTORY = 100;
+
+    private final LoginJournal journal;
+    private final AdminPolicy adminPolicy;
+
+    public LoginAuditService(Optional<LoginJournal> journal, AdminPolicy adminPolicy) {
+        this.journal = journal.orElse(null);
+        this.adminPolicy = adminPolicy;
+    }
+
+    public void loginSucceeded(Long userId, String username, String clientIp) {
+        record(Type.LOGIN_SUCCESS, userId, username, clientIp);
+    }
+
+    // userId 为 null 表示用户名不存在或还没查到用户
+    public void loginFailed(Type reason, Long userId, String username, String clientIp) {
+        record(reason, userId, username, clientIp);
+    }
+
+    public void registered(Long userId, String username) {
+        record(Type.REGISTER, userId, username, null);
+    }
+
+    // 用户最近的登录和注册记录，新的在前；只能查自己的，管理员可以查任何人
+    public List<LoginJournal.Event> history(UserResponse caller, long userId, int limit) {
+        if ((caller.id() == null || caller.id() != userId) && !adminPolicy.isAdmin(caller.username())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "无权限");
+        }
+        if (journal == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "未启用登录审计");
+        }
+        return journal.history(userId, Math.min(Math.max(limit, 1), MAX_HISTORY));
+    }
+
+    private void record(Type type, Long userId, String username, String clientIp) {
+        if (journal != null) {
+            journal.record(type, userId == null ? 0 : userId, username, clientIp);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.lab1.service;
+
+import com.example.lab1.exception.TooManyAttemptsException;
+import com.example.lab1.utils.TokenBucketLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 登录限流，在校验验证码和密码之前执行，撞库流量不会消耗 bcrypt。
+ * <p>
+ * 按用户名和客户端 IP 各维护一组令牌桶；密码错误计入两者的连续失败次数，达到阈值后按指数退避锁定。
+ */
+@Component
+public class LoginThrottle {
+
+    private final boolean enabled;
+    private final TokenBucketLimiter usernames;
+    private final TokenBucketLimiter clientIps;
+
+    @Autowired
+    public LoginThrottle(@Value("${login.throttle.enabled:true}") boolean enabled,
+                         @Value("${login.throttle.username.capacity:10}") int usernameCapacity,
+                         @Value("${login.throttle.username.refill-per-minute:5}") double usernameRefillPerMinute,
+                         @Value("${login.throttle.username.lockout-threshold:5}") int usernameLockoutThreshold,
+                         @Value("${login.throttle.ip.capacity:100}") int ipCapacity,
+                         @Value("${login.throttle.ip.refill-per-minute:60}") double ipRefillPerMinute,
+                         @Value("${login.throttle.ip.lockout-threshold:50}") int ipLockoutThreshold,
+                         @Value("${login.throttle.lockout-base-seconds:30}") long lockoutBaseSeconds,
+                         @Value("${login.throttle.lockout-max-seconds:3600}") long lockoutMaxSeconds,
+                         @Value("${login.throttle.max-keys:100000}") int maxKeys,
+                         @Value("${login.throttle.idle-seconds:900}") long idleSeconds) {
+        this(enabled,
+                new TokenBucketLimiter(usernameCapacity, usernameRefillPerMinute, usernameLockoutThreshold,
+                        lockoutBaseSeconds * 1000, lockoutMaxSeconds * 1000, maxKeys, idleSeconds * 1000),
+                new TokenBucketLimiter(ipCapacity, ipRefillPerMinute, ipLockoutThreshold,
+                        lockoutBaseSeconds * 1000, lockoutMaxSeconds * 1000, maxKeys, idleSeconds * 1000));
+    }
+
+    public LoginThrottle(boolean enabled, TokenBucketLimiter usernames, TokenBucketLimiter clientIps) {
+        this.enabled = enabled;
+        this.usernames = usernames;
+        this.clientIps = clientIps;
+    }
+
+    // 超出限制时抛出 TooManyAttemptsException；clientIp 为 null 时只按用户名限流
+    public void checkAllowed(String username, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long waitMillis = clientIp == null ? 0 : clientIps.acquire(clientIp);
+        if (waitMillis == 0 && username != null) {
+            waitMillis = usernames.acquire(username);
+        }
+        if (waitMillis > 0) {
+            throw new TooManyAttemptsException((waitMillis + 999) / 1000);
+        }
+    }
+
+    public void recordFailure(String username, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        if (username != null) {
+            usernames.recordFailure(username);
+        }
+        if (clientIp != null) {
+            clientIps.recordFailure(clientIp);
+        }
+    }
+
+    public void recordSuccess(String username, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        if (username != null) {
+            usernames.recordSuccess(username);
+        }
+        if (clientIp != null) {
+            clientIps.recordSuccess(clientIp);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.lab1.service;
+
+import com.example.lab1.utils.ReplicaDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 读自己的写：用户名写入主库后的一段时间内，按该用户名的查询改走主库，避开只读副本的复制延迟。
+ * 例如刚注册就查询个人信息时，副本上可能还没有这一行。
+ * <p>
+ * 只记录本节点的写入，其他节点的写入仍可能读到旧数据；登录不经过这里，凭据总是从主库读取。
+ * 没有配置副本时查询本来就走主库，这里不起作用。
+ * <p>
+ * 最多记录 maxKeys 个用户名。记满且没有过期条目时，丢弃最早到期的约四分之一，这些用户名的查询提前恢复正常路由。
+ */
+@Component
+public class ReadYourWrites {
+
+    private final long windowMillis;
+    private final int maxKeys;
+    private final LongSupplier clock;
+    private final Map<String, Long> recentWrites = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReadYourWrites(@Value("${datasource.replica.read-your-writes-ms:5000}") long windowMillis,
+                          @Value("${datasource.replica.read-your-writes-max-keys:100000}") int maxKeys) {
+        this(windowMillis, maxKeys, System::currentTimeMillis);
+    }
+
+    ReadYourWrites(long windowMillis, int maxKeys, LongSupplier clock) {
+        this.windowMillis = windowMillis;
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+    }
+
+    // 在写入提交之后调用
+    public void markWritten(String username) {
+        if (windowMillis <= 0) {
+            return;
+        }
+        long now = clock.getAsLong();
+        if (recentWrites.size() >= maxKeys) {
+            recentWrites.values().removeIf(until -> until <= now);
+            if (recentWrites.size() >= maxKeys) {
+                evictSoonest();
+            }
+        }
+        recentWrites.put(username, now + windowMillis);
+    }
+
+    // 排序一次腾出一批位置，之后的写入不必每次都排序；到期时间相同的条目一起丢弃
+    private void evictSoonest() {
+        long[] untils = recentWrites.values().stream().mapToLong(Long::longValue).sorted().toArray();
+        int keep = maxKeys * 3 / 4;
+        if (untils.length > keep) {
+            long cutoff = untils[untils.length - keep - 1];
+            recentWrites.values().removeIf(until -> until <= cutoff);
+        }
+    }
+
+    // 执行按 username 的查询：窗口内走主库，否则按事务类型正常路由
+    public <T> T read(String username, Supplier<T> query) {
+        Long until = recentWrites.get(username);
+        if (until == null) {
+            return query.get();
+        }
+        if (until <= clock.getAsLong()) {
+            recentWrites.remove(username, until);
+            return query.get();
+        }
+        return ReplicaDataSource.onPrimary(query);
+    }
+
+    int size() {
+        return recentWrites.size();
+    }
+
+    boolean isTracked(String username) {
+        return recentWrites.containsKey(username);
+    }
+}
@@ -0,0 +1,388 @@
+package com.example.lab1.service;
+
+import com.example.lab1.exception.BadRequestException;
+import com.example.lab1.repository.ShardMetadata;
+import com.example.lab1.repository.ShardedUserStore;
+import com.example.lab1.utils.ShardLayout;
+import com.example.lab1.utils.ShardRouter;
+import com.example.lab1.utils.ShardRoutingDataSource;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 在线调整分片：把用户从当前布局迁到 user.shards.next-urls 配置的布局，迁移期间照常读写。
+ * <p>
+ * 步骤：
+ * <ol>
+ *     <li>开启双写，等待 settle-ms，让开启前已经开始的写入结束；</li>
+ *     <li>逐个旧分片按主键分批读出，目标分片不同的行按“不存在才插入”批量写入目标分片；
+ *     每批写完后先读目标分片、再读源分片，密码不一致的按目标分片上读到的值做条件更新，修正复制期间的并发改密；
+ *     目标分片上找不到主键和用户名都相同的行时中止迁移；</li>
+ *     <li>切换到新布局，再等待 settle-ms，让仍按旧布局执行的请求结束；</li>
+ *     <li>从旧分片删除已迁走的行，只删除目标分片上主键和用户名都相同的行。</li>
+ * </ol>
+ * 切换失败前会回到原布局，已复制的行留在目标分片上，重新执行时会被覆盖或跳过。
+ * <p>
+ * 路由布局只在内存中切换，节点之间不协调，所以迁移要求只有本节点在运行：发起时和切换前检查 {@link ShardMetadata} 中的心跳，
+ * 有其他节点时拒绝或中止；迁移期间其他节点拒绝启动。每个阶段都写入 {@link ShardMetadata}，
+ * 切换后本节点或其他节点重启都按新布局路由；清理中途停止的，重新发起迁移时只继续清理。
+ * 目标布局的第一个分片必须与当前布局相同，元数据保存在这个分片上。
+ */
+@Service
+@ConditionalOnExpression("!'${user.shards.urls:}'.isBlank()")
+public class ReshardingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReshardingService.class);
+
+    private record Row(long id, String username, String password) {
+    }
+
+    private final ShardRouter router;
+    private final ShardRoutingDataSource dataSource;
+    private final ShardMetadata metadata;
+    private final AdminPolicy adminPolicy;
+    private final int batchSize;
+    private final long settleMillis;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile String phase = "IDLE";
+    private volatile String error;
+    private final AtomicLong copied = new AtomicLong();
+    private final AtomicLong reconciled = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+
+    public ReshardingService(ShardRouter router,
+                             ShardRoutingDataSource dataSource,
+                             ShardMetadata metadata,
+                             AdminPolicy adminPolicy,
+                             @Value("${user.shards.batch-size:1000}") int batchSize,
+                             @Value("${user.shards.settle-ms:2000}") long settleMillis) {
+        this.router = router;
+        this.dataSource = dataSource;
+        this.metadata = metadata;
+        this.adminPolicy = adminPolicy;
+        this.batchSize = Math.max(1, batchSize);
+        this.settleMillis = settleMillis;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "resharding");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // 管理员发起迁移，在后台线程上执行，进度通过 status 查询
+    public Map<String, Object> start(String token) {
+        adminPolicy.requireAdmin(token);
+        ShardMetadata.State state = metadata.load();
+        ShardLayout next = router.planned();
+        if (!cleaning(state)) {
+            if (next == null) {
+                throw new BadRequestException("未配置目标分片");
+            }
+            if (!next.shards().get(0).equals(router.routing().current().shards().get(0))) {
+                throw new BadRequestException("目标布局的第一个分片必须与当前布局相同");
+            }
+        }
+        List<String> others = metadata.otherLiveNodes();
+        if (!others.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "分片迁移要求只有本节点在运行，其他节点: " + others);
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "分片迁移正在进行");
+        }
+        executor.execute(() -> {
+            try {
+                run(state, next);
+            } catch (RuntimeException e) {
+                log.error("分片迁移失败", e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return status();
+    }
+
+    public Map<String, Object> status(String token) {
+        adminPolicy.requireAdmin(token);
+        return status();
+    }
+
+    /**
+     * 在调用线程上执行一次完整迁移，结束后返回状态。
+     */
+    public Map<String, Object> reshard() {
+        ShardMetadata.State state = metadata.load();
+        ShardLayout next = router.planned();
+        if (!cleaning(state)) {
+            if (next == null) {
+                throw new IllegalStateException("未配置目标分片");
+            }
+            if (!next.shards().get(0).equals(router.routing().current().shards().get(0))) {
+                throw new IllegalStateException("目标布局的第一个分片必须与当前布局相同");
+            }
+        }
+        requireSingleNode();
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("分片迁移正在进行");
+        }
+        try {
+            run(state, next);
+        } finally {
+            running.set(false);
+        }
+        return status();
+    }
+
+    private Map<String, Object> status() {
+        ShardRouter.Routing routing = router.routing();
+        ShardLayout next = routing.migrating() ? routing.next() : router.planned();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("phase", phase);
+        status.put("currentShards", routing.current().shards());
+        status.put("nextShards", next == null ? List.of() : next.shards());
+        status.put("copied", copied.get());
+        status.put("reconciled", reconciled.get());
+        status.put("deleted", deleted.get());
+        if (error != null) {
+            status.put("error", error);
+        }
+        return status;
+    }
+
+    // 上次迁移已切换布局但没有清理完
+    private boolean cleaning(ShardMetadata.State state) {
+        return state != null && state.phase() == ShardMetadata.Phase.CLEANING;
+    }
+
+    private void run(ShardMetadata.State state, ShardLayout next) {
+        copied.set(0);
+        reconciled.set(0);
+        deleted.set(0);
+        error = null;
+        if (cleaning(state)) {
+            log.info("继续清理上次分片迁移: {} -> {}", state.pending(), state.layout());
+            clean(state.pending(), state.layout());
+        } else {
+            migrate(next);
+        }
+    }
+
+    private void migrate(ShardLayout next) {
+        ShardLayout current = router.routing().current();
+        log.info("开始分片迁移: {} -> {}", current, next);
+        try {
+            phase = "DUAL_WRITE";
+            metadata.save(new ShardMetadata.State(current, ShardMetadata.Phase.MIGRATING, next, metadata.nodeId()));
+            router.startMigration(next);
+            settle();
+            phase = "COPYING";
+            for (String source : current.shards()) {
+                copyShard(source, next);
+            }
+            // 复制期间启动的节点按旧布局路由且不双写，切换后它写入的行会丢失
+            requireSingleNode();
+            metadata.save(new ShardMetadata.State(next, ShardMetadata.Phase.CLEANING, current, metadata.nodeId()));
+            router.switchToNext();
+        } catch (RuntimeException e) {
+            router.abortMigration();
+            try {
+                metadata.save(new ShardMetadata.State(current, ShardMetadata.Phase.IDLE, null, null));
+            } catch (RuntimeException saveFailure) {
+                e.addSuppressed(saveFailure);
+            }
+            fail(e);
+            throw e;
+        }
+        phase = "SWITCHED";
+        clean(current, next);
+    }
+
+    private void clean(ShardLayout previous, ShardLayout current) {
+        try {
+            settle();
+            phase = "CLEANING";
+            for (String source : previous.shards()) {
+                cleanShard(source, current);
+            }
+            metadata.save(new ShardMetadata.State(current, ShardMetadata.Phase.IDLE, null, null));
+        } catch (RuntimeException e) {
+            fail(e);
+            throw e;
+        }
+        phase = "DONE";
+        log.info("分片迁移完成: 复制 {} 行，修正 {} 行，删除 {} 行", copied.get(), reconciled.get(), deleted.get());
+    }
+
+    private void requireSingleNode() {
+        List<String> others = metadata.otherLiveNodes();
+        if (!others.isEmpty()) {
+            throw new IllegalStateException("分片迁移要求只有本节点在运行，其他节点: " + others);
+        }
+    }
+
+    private void fail(RuntimeException e) {
+        phase = "FAILED";
+        error = e.getMessage();
+    }
+
+    private void settle() {
+        try {
+            Thread.sleep(settleMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("分片迁移被中断", e);
+        }
+    }
+
+    // 把 source 上目标分片不同的行复制过去
+    private void copyShard(String source, ShardLayout next) {
+        JdbcTemplate sourceJdbc = jdbc(source);
+        long afterId = 0;
+        List<Row> rows;
+        do {
+            rows = readBatch(sourceJdbc, afterId);
+            for (Map.Entry<String, List<Row>> group : groupByTarget(rows, source, next).entrySet()) {
+                JdbcTemplate targetJdbc = jdbc(group.getKey());
+                copyBatch(targetJdbc, group.getValue());
+                reconcileBatch(sourceJdbc, group.getKey(), targetJdbc, group.getValue());
+            }
+            if (!rows.isEmpty()) {
+                afterId = rows.get(rows.size() - 1).id();
+            }
+        } while (rows.size() == batchSize);
+    }
+
+    private void copyBatch(JdbcTemplate target, List<Row> rows) {
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            args.add(new Object[]{row.id(), row.username(), row.password(), row.id(), row.username()});
+        }
+        try {
+            for (int inserted : target.batchUpdate(ShardedUserStore.INSERT_IF_ABSENT, args)) {
+                if (inserted != 0) {
+                    copied.incrementAndGet();
+                }
+            }
+        } catch (DataIntegrityViolationException e) {
+            // 与双写并发插入了同一行，逐条重试
+            for (Row row : rows) {
+                if (ShardedUserStore.insertIfAbsent(target, row.id(), row.username(), row.password())) {
+                    copied.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    // 先读目标再读源：两次读取之间的改密已双写到目标分片，条件更新会失败，不会用旧值覆盖。
+    // 主键和用户名都相同才算同一个用户；目标分片上没有这一行说明主键或用户名被另一行占用，此时切换会丢失该用户，中止迁移
+    private void reconcileBatch(JdbcTemplate source, String targetShard, JdbcTemplate target, List<Row> rows) {
+        List<Long> ids = rows.stream().map(Row::id).toList();
+        Map<Long, Row> targetSeen = rows(target, ids);
+        Map<Long, Row> sourceNow = rows(source, ids);
+        List<Object[]> updates = new ArrayList<>();
+        for (Row row : rows) {
+            Row copy = targetSeen.get(row.id());
+            if (copy == null || !copy.username().equals(row.username())) {
+                throw new IllegalStateException("用户 " + row.username() + "（主键 " + row.id() + "）无法复制到分片 "
+                        + targetShard + "：目标分片上已有相同主键或用户名的其他用户，请检查各节点的 user.id.worker-id 是否重复");
+            }
+            Row latest = sourceNow.get(row.id());
+            if (latest != null && latest.username().equals(row.username()) && !latest.password().equals(copy.password())) {
+                updates.add(new Object[]{latest.password(), row.id(), row.username(), copy.password()});
+            }
+        }
+        if (!updates.isEmpty()) {
+            for (int updated : target.batchUpdate(
+                    "update users set password = ? where id = ? and username = ? and password = ?", updates)) {
+                if (updated != 0) {
+                    reconciled.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    // 删除 source 上已迁走的行
+    private void cleanShard(String source, ShardLayout next) {
+        JdbcTemplate sourceJdbc = jdbc(source);
+        long afterId = 0;
+        List<Row> rows;
+        do {
+            rows = readBatch(sourceJdbc, afterId);
+            for (Map.Entry<String, List<Row>> group : groupByTarget(rows, source, next).entrySet()) {
+                List<Long> ids = group.getValue().stream().map(Row::id).toList();
+                Map<Long, Row> present = rows(jdbc(group.getKey()), ids);
+                List<Object[]> deletes = new ArrayList<>();
+                for (Row row : group.getValue()) {
+                    Row copy = present.get(row.id());
+                    if (copy != null && copy.username().equals(row.username())) {
+                        deletes.add(new Object[]{row.id(), row.username()});
+                    } else {
+                        log.warn("分片 {} 上的用户 {}（主键 {}）在目标分片 {} 上不存在，保留未删除",
+                                source, row.username(), row.id(), group.getKey());
+                    }
+                }
+                if (!deletes.isEmpty()) {
+                    sourceJdbc.batchUpdate("delete from users where id = ? and username = ?", deletes);
+                    deleted.addAndGet(deletes.size());
+                }
+            }
+            if (!rows.isEmpty()) {
+                afterId = rows.get(rows.size() - 1).id();
+            }
+        } while (rows.size() == batchSize);
+    }
+
+    private List<Row> readBatch(JdbcTemplate jdbc, long afterId) {
+        return jdbc.query("select id, username, password from users where id > ? order by id limit ?",
+                (rs, i) -> new Row(rs.getLong(1), rs.getString(2), rs.getString(3)), afterId, batchSize);
+    }
+
+    private static Map<String, List<Row>> groupByTarget(List<Row> rows, String source, ShardLayout next) {
+        Map<String, List<Row>> groups = new LinkedHashMap<>();
+        for (Row row : rows) {
+            String target = next.shardOf(row.username());
+            if (!target.equals(source)) {
+                groups.computeIfAbsent(target, k -> new ArrayList<>()).add(row);
+            }
+        }
+        return groups;
+    }
+
+    private static Map<Long, Row> rows(JdbcTemplate jdbc, List<Long> ids) {
+        Map<Long, Row> rows = new HashMap<>();
+        new NamedParameterJdbcTemplate(jdbc).query("select id, username, password from users where id in (:ids)",
+                Map.of("ids", ids), rs -> {
+                    rows.put(rs.getLong(1), new Row(rs.getLong(1), rs.getString(2), rs.getString(3)));
+                });
+        return rows;
+    }
+
+    private JdbcTemplate jdbc(String shard) {
+        return new JdbcTemplate(dataSource.shard(shard));
+    }
+}
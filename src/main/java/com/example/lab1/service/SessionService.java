@@ -0,0 +1,40 @@
+package com.example.lab1.service;
+
+import com.example.lab1.utils.JWTUtil;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 退出登录和强制下线。注销记录在 {@link com.example.lab1.utils.TokenRevocationList} 中，校验 token 时不访问数据库。
+ */
+@Service
+public class SessionService {
+
+    private final AdminPolicy adminPolicy;
+
+    public SessionService(AdminPolicy adminPolicy) {
+        this.adminPolicy = adminPolicy;
+    }
+
+    // 注销当前 token，之后用它访问任何接口都视为无效
+    public void logout(String token) {
+        try {
+            JWTUtil.revokeToken(token);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "未启用 token 注销");
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "无效的Token");
+        }
+    }
+
+    // 管理员注销某个用户此刻之前签发的全部 token
+    public void revokeSessions(String token, String username) {
+        adminPolicy.requireAdmin(token);
+        try {
+            JWTUtil.revokeUser(username);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "未启用 token 注销");
+        }
+    }
+}
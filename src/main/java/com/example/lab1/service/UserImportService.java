@@ -0,0 +1,229 @@
+package com.example.lab1.service;
+
+import com.example.lab1.dto.ImportUserRequest;
+import com.example.lab1.dto.UserImportResult;
+import com.example.lab1.entity.User;
+import com.example.lab1.exception.BadRequestException;
+import com.example.lab1.repository.UserCredentials;
+import com.example.lab1.repository.UserRepository;
+import com.example.lab1.repository.UserStore;
+import com.example.lab1.utils.PasswordUtil;
+import com.example.lab1.utils.ReplicaDataSource;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 管理员批量导入用户。
+ * <p>
+ * 记录按 chunk 处理：先做参数校验和批内查重，再用一条 IN 查询排除已存在的用户名，
+ * 剩下的密码在独立线程池上并行哈希（不占用登录用的 bcrypt 线程池），最后用 saveAll 批量插入
+ * （单库时一个事务；分片时每个分片一个事务，可能只有部分分片提交）。
+ * 插入时如果被并发注册抢先占用了用户名，该 chunk 退回逐条插入，只把冲突的记录标记为失败。
+ */
+@Service
+public class UserImportService {
+
+    private final UserStore userStore;
+    private final UserProfileCache profileCache;
+    private final UsernameIndex usernameIndex;
+    private final ReadYourWrites readYourWrites;
+    private final Validator validator;
+    private final AdminPolicy adminPolicy;
+    private final int maxRecords;
+    private final int chunkSize;
+    private final ExecutorService hashExecutor;
+
+    public UserImportService(UserStore userStore,
+                             UserProfileCache profileCache,
+                             UsernameIndex usernameIndex,
+                             ReadYourWrites readYourWrites,
+                             Validator validator,
+                             AdminPolicy adminPolicy,
+                             @Value("${user.import.max-records:100000}") int maxRecords,
+                             @Value("${user.import.chunk-size:1000}") int chunkSize,
+                             @Value("${user.import.hash-threads:0}") int hashThreads) {
+        this.userStore = userStore;
+        this.profileCache = profileCache;
+        this.usernameIndex = usernameIndex;
+        this.readYourWrites = readYourWrites;
+        this.validator = validator;
+        this.adminPolicy = adminPolicy;
+        this.maxRecords = maxRecords;
+        this.chunkSize = Math.max(1, chunkSize);
+
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger index = new AtomicInteger();
+        this.hashExecutor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "user-import-hash-" + index.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashExecutor.shutdownNow();
+    }
+
+    public UserImportResult importUsers(String token, List<ImportUserRequest> requests) {
+        adminPolicy.requireAdmin(token);
+        if (requests == null || requests.isEmpty()) {
+            throw new BadRequestException("导入数据不能为空");
+        }
+        if (requests.size() > maxRecords) {
+            throw new BadRequestException("单次最多导入" + maxRecords + "条");
+        }
+
+        List<UserImportResult.Failure> failures = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int imported = 0;
+        for (int from = 0; from < requests.size(); from += chunkSize) {
+            int to = Math.min(requests.size(), from + chunkSize);
+            imported += importChunk(requests, from, to, seen, failures);
+        }
+        failures.sort(Comparator.comparingInt(UserImportResult.Failure::index));
+        return new UserImportResult(requests.size(), imported, failures);
+    }
+
+    private int importChunk(List<ImportUserRequest> requests, int from, int to,
+                            Set<String> seen, List<UserImportResult.Failure> failures) {
+        // 参数校验和批内查重
+        List<Integer> candidates = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            ImportUserRequest request = requests.get(i);
+            String invalid = validate(request);
+            if (invalid != null) {
+                failures.add(new UserImportResult.Failure(i, request == null ? null : request.username(), invalid));
+            } else if (!seen.add(request.username())) {
+                failures.add(new UserImportResult.Failure(i, request.username(), "用户名重复"));
+            } else {
+                candidates.add(i);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        // 只把用户名索引判定可能已存在的用户名放进一次 IN 查询，全部是新用户名时不查库
+        List<String> usernames = new ArrayList<>();
+        for (int i : candidates) {
+            if (usernameIndex.mightContain(requests.get(i).username())) {
+                usernames.add(requests.get(i).username());
+            }
+        }
+        Set<String> existing = usernames.isEmpty()
+                ? Set.of()
+                : new HashSet<>(userStore.findExistingUsernames(usernames));
+        List<Integer> accepted = new ArrayList<>(candidates.size());
+        for (int i : candidates) {
+            if (existing.contains(requests.get(i).username())) {
+                failures.add(new UserImportResult.Failure(i, requests.get(i).username(), "用户名已存在"));
+            } else {
+                accepted.add(i);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return 0;
+        }
+
+        String[] hashes = hashAll(requests, accepted);
+        List<User> users = new ArrayList<>(accepted.size());
+        for (int k = 0; k < accepted.size(); k++) {
+            users.add(new User(requests.get(accepted.get(k)).username(), hashes[k]));
+        }
+
+        int inserted;
+        try {
+            userStore.saveAll(users);
+            inserted = users.size();
+        } catch (DataIntegrityViolationException e) {
+            inserted = insertOneByOne(requests, accepted, hashes, failures);
+        }
+        // 冲突的用户名同样已存在，一并加入索引
+        for (User user : users) {
+            profileCache.invalidate(user.getUsername());
+            usernameIndex.add(user.getUsername());
+            readYourWrites.markWritten(user.getUsername());
+        }
+        return inserted;
+    }
+
+    // 整批插入冲突时逐条重试，只标记真正冲突的记录；分片时其他分片上已提交的记录按密码哈希（含随机盐）认出
+    private int insertOneByOne(List<ImportUserRequest> requests, List<Integer> accepted, String[] hashes,
+                               List<UserImportResult.Failure> failures) {
+        int inserted = 0;
+        for (int k = 0; k < accepted.size(); k++) {
+            int i = accepted.get(k);
+            String username = requests.get(i).username();
+            try {
+                userStore.save(new User(username, hashes[k]));
+                inserted++;
+            } catch (DataIntegrityViolationException e) {
+                if (!UserRepository.isUsernameConflict(e)) {
+                    throw e;
+                }
+                if (insertedByThisBatch(username, hashes[k])) {
+                    inserted++;
+                } else {
+                    failures.add(new UserImportResult.Failure(i, username, "用户名已存在"));
+                }
+            }
+        }
+        return inserted;
+    }
+
+    private boolean insertedByThisBatch(String username, String hash) {
+        UserCredentials credentials = ReplicaDataSource.onPrimary(() -> userStore.findCredentialsByUsername(username));
+        return credentials != null && hash.equals(credentials.passwordHash());
+    }
+
+    private String[] hashAll(List<ImportUserRequest> requests, List<Integer> accepted) {
+        List<Callable<String>> tasks = new ArrayList<>(accepted.size());
+        for (int i : accepted) {
+            String password = requests.get(i).password();
+            tasks.add(() -> PasswordUtil.encryptPasswordInline(password));
+        }
+        String[] hashes = new String[tasks.size()];
+        try {
+            List<Future<String>> futures = hashExecutor.invokeAll(tasks);
+            for (int k = 0; k < futures.size(); k++) {
+                hashes[k] = futures.get(k).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("批量导入被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("密码哈希失败", e.getCause());
+        }
+        return hashes;
+    }
+
+    // 返回校验错误（多条时按字典序用分号连接），通过时返回 null
+    private String validate(ImportUserRequest request) {
+        if (request == null) {
+            return "记录不能为空";
+        }
+        Set<ConstraintViolation<ImportUserRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("；"));
+    }
+}
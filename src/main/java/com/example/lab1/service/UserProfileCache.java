@@ -0,0 +1,118 @@
+package com.example.lab1.service;
+
+import com.example.lab1.dto.UserResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 按用户名缓存 {@link UserResponse}，有容量上限。
+ * <p>
+ * 用户名不存在也会缓存（负缓存），但有效期很短，防止用伪造但签名有效的 token 反复打数据库。
+ * 写入数据库的路径负责调用 {@link #put} 或 {@link #invalidate} 保持一致。
+ */
+@Component
+public class UserProfileCache {
+
+    /**
+     * 缓存查询结果：user 为 null 表示已知该用户不存在。
+     */
+    public record CachedProfile(UserResponse user) {
+    }
+
+    private record Entry(CachedProfile profile, long expiresAtMillis) {
+    }
+
+    private static final CachedProfile MISSING = new CachedProfile(null);
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public UserProfileCache(@Value("${user.profile-cache.max-size:10000}") int maxSize,
+                            @Value("${user.profile-cache.ttl-seconds:600}") long ttlSeconds,
+                            @Value("${user.profile-cache.negative-ttl-seconds:30}") long negativeTtlSeconds) {
+        this(maxSize, ttlSeconds * 1000, negativeTtlSeconds * 1000, System::currentTimeMillis);
+    }
+
+    UserProfileCache(int maxSize, long ttlMillis, long negativeTtlMillis, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.clock = clock;
+    }
+
+    // 未命中返回 null
+    public CachedProfile get(String username) {
+        Entry entry = entries.get(username);
+        if (entry != null) {
+            if (entry.expiresAtMillis() > clock.getAsLong()) {
+                hits.incrementAndGet();
+                return entry.profile();
+            }
+            entries.remove(username, entry);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    // 写入用户信息，覆盖负缓存
+    public void put(UserResponse user) {
+        if (maxSize <= 0) {
+            return;
+        }
+        ensureCapacity();
+        entries.put(user.username(), new Entry(new CachedProfile(user), clock.getAsLong() + ttlMillis));
+    }
+
+    // 记录用户不存在；已有条目（例如刚注册写入的）时不覆盖
+    public void putMissing(String username) {
+        if (maxSize <= 0) {
+            return;
+        }
+        ensureCapacity();
+        entries.putIfAbsent(username, new Entry(MISSING, clock.getAsLong() + negativeTtlMillis));
+    }
+
+    public void invalidate(String username) {
+        entries.remove(username);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    // 满了先清理过期条目，仍然太满就再随意淘汰八分之一
+    private void ensureCapacity() {
+        if (entries.size() < maxSize) {
+            return;
+        }
+        long now = clock.getAsLong();
+        entries.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+        int excess = entries.size() - maxSize + Math.max(1, maxSize / 8);
+        Iterator<String> it = entries.keySet().iterator();
+        while (excess-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
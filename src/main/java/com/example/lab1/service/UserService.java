@@ -1,2 +1,216 @@
-package com.example.lab1.service;public class UserService {
+package com.example.lab1.service;
+
+import com.example.lab1.dto.LoginRequest;
+import com.example.lab1.dto.NewUserRequest;
+import com.example.lab1.dto.UserResponse;
+import com.example.lab1.entity.User;
+import com.example.lab1.exception.BadRequestException;
+import com.example.lab1.exception.ServiceBusyException;
+import com.example.lab1.exception.TooManyAttemptsException;
+import com.example.lab1.repository.UserCredentials;
+import com.example.lab1.repository.UserRepository;
+import com.example.lab1.repository.UserStore;
+import com.example.lab1.service.UserServiceMetrics.Failure;
+import com.example.lab1.service.UserServiceMetrics.Stage;
+import com.example.lab1.utils.CaptchaUtil;
+import com.example.lab1.utils.JWTUtil;
+import com.example.lab1.utils.LoginJournal;
+import com.example.lab1.utils.PasswordUtil;
+import com.example.lab1.utils.ReplicaDataSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+@Service
+public class UserService {
+
+    private final UserStore userStore;
+    private final UserProfileCache profileCache;
+    private final UserServiceMetrics metrics;
+    private final LoginThrottle loginThrottle;
+    private final UsernameIndex usernameIndex;
+    private final ReadYourWrites readYourWrites;
+    private final LoginAuditService loginAudit;
+
+    public UserService(UserStore userStore, UserProfileCache profileCache, UserServiceMetrics metrics,
+                       LoginThrottle loginThrottle, UsernameIndex usernameIndex, ReadYourWrites readYourWrites,
+                       LoginAuditService loginAudit) {
+        this.userStore = userStore;
+        this.profileCache = profileCache;
+        this.metrics = metrics;
+        this.loginThrottle = loginThrottle;
+        this.usernameIndex = usernameIndex;
+        this.readYourWrites = readYourWrites;
+        this.loginAudit = loginAudit;
+    }
+
+    /**
+     * 注册：校验验证码 -> 加密密码并直接插入，用户名重复由唯一约束判定。
+     * 用户名索引判定可能已存在时，先查库确认，已占用就不再做 bcrypt；判定不存在的直接插入，不多一次查询。
+     */
+    public UserResponse registerUser(NewUserRequest request) {
+        long t = metrics.start();
+        boolean captchaValid = CaptchaUtil.validateCaptcha(request.captchaId(), request.captchaText());
+        t = metrics.lap(Stage.REGISTER_CAPTCHA, t);
+        if (!captchaValid) {
+            metrics.failure(Failure.CAPTCHA_INVALID);
+            throw BadRequestException.CAPTCHA_INVALID;
+        }
+        if (usernameIndex.mightContain(request.username())) {
+            boolean exists = readYourWrites.read(request.username(),
+                    () -> userStore.existsByUsername(request.username()));
+            t = metrics.lap(Stage.REGISTER_LOOKUP, t);
+            if (exists) {
+                metrics.failure(Failure.USERNAME_TAKEN);
+                throw BadRequestException.USERNAME_TAKEN;
+            }
+        }
+
+        User user = new User(request.username(), PasswordUtil.encryptPassword(request.password()));
+        t = metrics.lap(Stage.REGISTER_HASH, t);
+        User saved;
+        try {
+            saved = userStore.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // 只有用户名唯一约束冲突才是用户名已存在：其他节点注册、本节点索引尚未收录的用户名
+            if (!UserRepository.isUsernameConflict(e)) {
+                throw e;
+            }
+            usernameIndex.add(request.username());
+            metrics.failure(Failure.USERNAME_TAKEN);
+            throw BadRequestException.USERNAME_TAKEN;
+        } finally {
+            metrics.lap(Stage.REGISTER_SAVE, t);
+        }
+        usernameIndex.add(saved.getUsername());
+        readYourWrites.markWritten(saved.getUsername());
+        loginAudit.registered(saved.getId(), saved.getUsername());
+        UserResponse response = new UserResponse(saved.getId(), saved.getUsername());
+        profileCache.put(response);
+        return response;
+    }
+
+    // 用户名是否可用：索引判定不存在时直接返回，只有可能存在时才查库
+    public boolean isUsernameAvailable(String username) {
+        long t = metrics.start();
+        boolean possible = usernameIndex.mightContain(username);
+        t = metrics.lap(Stage.AVAILABILITY_INDEX, t);
+        if (!possible) {
+            return true;
+        }
+        boolean exists = readYourWrites.read(username, () -> userStore.existsByUsername(username));
+        metrics.lap(Stage.AVAILABILITY_LOOKUP, t);
+        return !exists;
+    }
+
+    public String loginUser(LoginRequest request) {
+        return loginUser(request, null);
+    }
+
+    // 登录：限流 -> 校验验证码 -> 校验用户名密码 -> 签发 token。成功和失败都记入审计日志（只入队）
+    public String loginUser(LoginRequest request, String clientIp) {
+        try {
+            loginThrottle.checkAllowed(request.username(), clientIp);
+        } catch (TooManyAttemptsException e) {
+            metrics.failure(Failure.THROTTLED);
+            loginAudit.loginFailed(LoginJournal.Type.THROTTLED, null, request.username(), clientIp);
+            throw e;
+        }
+
+        long t = metrics.start();
+        boolean captchaValid = CaptchaUtil.validateCaptcha(request.captchaId(), request.captchaText());
+        t = metrics.lap(Stage.LOGIN_CAPTCHA, t);
+        if (!captchaValid) {
+            metrics.failure(Failure.CAPTCHA_INVALID);
+            loginAudit.loginFailed(LoginJournal.Type.CAPTCHA_INVALID, null, request.username(), clientIp);
+            throw BadRequestException.CAPTCHA_INVALID;
+        }
+
+        // 凭据总是读主库：副本落后时，刚在其他节点注册或改过密码的用户会被误判为密码错误并计入限流。
+        // 登录的耗时以 bcrypt 为主，按用户名唯一索引的单行读取不会给主库带来明显压力
+        UserCredentials credentials = ReplicaDataSource.onPrimary(
+                () -> userStore.findCredentialsByUsername(request.username()));
+        t = metrics.lap(Stage.LOGIN_LOOKUP, t);
+        boolean passwordValid;
+        try {
+            passwordValid = credentials != null
+                    && PasswordUtil.checkPassword(request.password(), credentials.passwordHash());
+        } catch (ServiceBusyException e) {
+            loginAudit.loginFailed(LoginJournal.Type.BUSY, credentials.id(), request.username(), clientIp);
+            throw e;
+        }
+        t = metrics.lap(Stage.LOGIN_PASSWORD, t);
+        if (!passwordValid) {
+            loginThrottle.recordFailure(request.username(), clientIp);
+            metrics.failure(Failure.BAD_CREDENTIALS);
+            loginAudit.loginFailed(LoginJournal.Type.BAD_CREDENTIALS, credentials == null ? null : credentials.id(),
+                    request.username(), clientIp);
+            throw BadRequestException.BAD_CREDENTIALS;
+        }
+        loginThrottle.recordSuccess(request.username(), clientIp);
+        if (PasswordUtil.needsRehash(credentials.passwordHash())) {
+            rehashPassword(credentials, request.password());
+        }
+        String token = JWTUtil.generateToken(request.username());
+        metrics.lap(Stage.LOGIN_TOKEN, t);
+        loginAudit.loginSucceeded(credentials.id(), request.username(), clientIp);
+        return token;
+    }
+
+    // 密码 cost 低于当前配置时在后台重新哈希，逐步把存量用户迁移到更高的 cost
+    private void rehashPassword(UserCredentials credentials, String plainPassword) {
+        Long userId = credentials.id();
+        String oldHash = credentials.passwordHash();
+        PasswordUtil.rehashInBackground(plainPassword,
+                newHash -> userStore.updatePassword(userId, oldHash, newHash));
+    }
+
+    public boolean validateToken(String token) {
+        boolean valid;
+        try {
+            valid = JWTUtil.validateToken(token);
+        } catch (Exception e) {
+            valid = false;
+        }
+        if (!valid) {
+            metrics.failure(Failure.INVALID_TOKEN);
+        }
+        return valid;
+    }
+
+    // 根据 token 获取当前用户信息，优先读缓存；用户不存在的结果也短暂缓存
+    public UserResponse getUserProfileByToken(String token) {
+        long t = metrics.start();
+        String username;
+        try {
+            username = JWTUtil.getUsernameFromToken(token);
+        } catch (Exception e) {
+            metrics.failure(Failure.INVALID_TOKEN);
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "无效的Token");
+        } finally {
+            t = metrics.lap(Stage.PROFILE_TOKEN, t);
+        }
+
+        UserProfileCache.CachedProfile cached = profileCache.get(username);
+        t = metrics.lap(Stage.PROFILE_CACHE, t);
+        if (cached != null) {
+            if (cached.user() == null) {
+                metrics.failure(Failure.USER_NOT_FOUND);
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "用户不存在");
+            }
+            return cached.user();
+        }
+
+        UserCredentials credentials = readYourWrites.read(username, () -> userStore.findCredentialsByUsername(username));
+        metrics.lap(Stage.PROFILE_LOOKUP, t);
+        if (credentials == null) {
+            profileCache.putMissing(username);
+            metrics.failure(Failure.USER_NOT_FOUND);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "用户不存在");
+        }
+        UserResponse response = new UserResponse(credentials.id(), username);
+        profileCache.put(response);
+        return response;
+    }
 }
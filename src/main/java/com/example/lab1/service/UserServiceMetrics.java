@@ -0,0 +1,124 @@
+package com.example.lab1.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserService} 各阶段的耗时和失败原因计数。
+ * <p>
+ * 所有 Timer/Counter 在启动时创建好，记录时只按枚举下标取用，不做注册表查找。
+ * instrumentation.enabled=false 或没有 MeterRegistry 时完全不计时。用法：
+ * <pre>
+ * long t = metrics.start();
+ * ...
+ * t = metrics.lap(Stage.LOGIN_CAPTCHA, t);
+ * </pre>
+ */
+@Component
+public class UserServiceMetrics {
+
+    public enum Stage {
+        REGISTER_CAPTCHA("register", "captcha"),
+        REGISTER_LOOKUP("register", "lookup"),
+        REGISTER_HASH("register", "hash"),
+        REGISTER_SAVE("register", "save"),
+        LOGIN_CAPTCHA("login", "captcha"),
+        LOGIN_LOOKUP("login", "lookup"),
+        LOGIN_PASSWORD("login", "password"),
+        LOGIN_TOKEN("login", "token"),
+        PROFILE_TOKEN("profile", "token"),
+        PROFILE_CACHE("profile", "cache"),
+        PROFILE_LOOKUP("profile", "lookup"),
+        AVAILABILITY_INDEX("availability", "index"),
+        AVAILABILITY_LOOKUP("availability", "lookup");
+
+        private final String operation;
+        private final String stage;
+
+        Stage(String operation, String stage) {
+            this.operation = operation;
+            this.stage = stage;
+        }
+    }
+
+    public enum Failure {
+        // 验证码错误
+        CAPTCHA_INVALID("captcha_invalid"),
+        // 用户名或密码错误
+        BAD_CREDENTIALS("bad_credentials"),
+        // 无效的Token
+        INVALID_TOKEN("invalid_token"),
+        // 用户名已存在
+        USERNAME_TAKEN("username_taken"),
+        // 用户不存在
+        USER_NOT_FOUND("user_not_found"),
+        // 登录尝试过于频繁
+        THROTTLED("throttled");
+
+        private final String reason;
+
+        Failure(String reason) {
+            this.reason = reason;
+        }
+    }
+
+    private final Timer[] timers;
+    private final Counter[] failures;
+
+    @Autowired
+    public UserServiceMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+                              @Value("${instrumentation.enabled:true}") boolean enabled) {
+        this(enabled ? meterRegistry.getIfAvailable() : null);
+    }
+
+    // registry 为 null 时不计时
+    public UserServiceMetrics(MeterRegistry registry) {
+        if (registry == null) {
+            timers = null;
+            failures = null;
+            return;
+        }
+        timers = new Timer[Stage.values().length];
+        for (Stage stage : Stage.values()) {
+            timers[stage.ordinal()] = Timer.builder("user.stage")
+                    .description("UserService 各阶段耗时")
+                    .tag("operation", stage.operation)
+                    .tag("stage", stage.stage)
+                    .register(registry);
+        }
+        failures = new Counter[Failure.values().length];
+        for (Failure failure : Failure.values()) {
+            failures[failure.ordinal()] = Counter.builder("user.failures")
+                    .description("按原因统计的业务失败次数")
+                    .tag("reason", failure.reason)
+                    .register(registry);
+        }
+    }
+
+    public long start() {
+        return timers == null ? 0 : System.nanoTime();
+    }
+
+    // 记录从 startNanos 到现在的耗时，返回当前时间作为下一阶段的起点
+    public long lap(Stage stage, long startNanos) {
+        if (timers == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        timers[stage.ordinal()].record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public void failure(Failure failure) {
+        if (failures != null) {
+            failures[failure.ordinal()].increment();
+        }
+    }
+}
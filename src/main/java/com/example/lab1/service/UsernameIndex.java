@@ -0,0 +1,210 @@
+package com.example.lab1.service;
+
+import com.example.lab1.repository.UserStore;
+import com.example.lab1.repository.UsernameRow;
+import com.example.lab1.utils.BloomFilter;
+import com.example.lab1.utils.ReplicaDataSource;
+import com.example.lab1.utils.UserIdGenerator;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 全部已有用户名的布隆过滤器，用于用户名是否可用的判断。
+ * <p>
+ * {@link #mightContain} 返回 false 时用户名一定不存在，不必查数据库；返回 true 时可能存在，由调用方再查一次确认。
+ * 应用就绪后在后台按主键分批读出全部用户名构建过滤器，之后每隔 refresh-minutes 整体重建一次：
+ * 按当时的用户数重新确定大小，也收录其他节点注册的用户。构建完成前 {@link #mightContain} 总是返回 true。
+ * <p>
+ * 本节点写入用户后调用 {@link #add}（必须在事务提交之后）。重建期间新加入的用户名同时写入正在构建的过滤器，
+ * 提交早于重建开始的用户名则会被重建时的查询读到，切换后不会漏掉。
+ * <p>
+ * 其他节点注册的用户名靠轮询收录：每隔 tail-ms 从主库读出主键晚于 tail-lookback-seconds 之前的用户加入过滤器，
+ * 因此最多延迟 tail-ms 左右。主键按生成时间递增，回看窗口覆盖节点间的时钟偏差和提交延迟；
+ * 超出窗口才提交的用户名要等下次整体重建。注册本身由数据库唯一约束判重，不依赖索引。
+ * 用户名按小写存入：MySQL 默认排序规则不区分大小写，只差大小写的用户名也算已占用。
+ */
+@Component
+public class UsernameIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(UsernameIndex.class);
+
+    private final UserStore userStore;
+    private final int expectedUsers;
+    private final double falsePositiveRate;
+    private final int batchSize;
+    private final long refreshMinutes;
+    private final long tailMillis;
+    private final long tailLookbackMillis;
+    private ScheduledExecutorService loader;
+
+    private volatile BloomFilter filter;
+    // 正在重建的过滤器，add 同时写入；由 this 保护写入，读取不加锁
+    private volatile BloomFilter building;
+
+    public UsernameIndex(UserStore userStore, int expectedUsers, double falsePositiveRate, int batchSize,
+                         long refreshMinutes) {
+        this(userStore, expectedUsers, falsePositiveRate, batchSize, refreshMinutes, 0, 0);
+    }
+
+    @Autowired
+    public UsernameIndex(UserStore userStore,
+                         @Value("${user.username-index.expected-users:1000000}") int expectedUsers,
+                         @Value("${user.username-index.false-positive-rate:0.01}") double falsePositiveRate,
+                         @Value("${user.username-index.batch-size:10000}") int batchSize,
+                         @Value("${user.username-index.refresh-minutes:60}") long refreshMinutes,
+                         @Value("${user.username-index.tail-ms:2000}") long tailMillis,
+                         @Value("${user.username-index.tail-lookback-seconds:60}") long tailLookbackSeconds) {
+        this.userStore = userStore;
+        this.expectedUsers = Math.max(1, expectedUsers);
+        this.falsePositiveRate = falsePositiveRate;
+        this.batchSize = Math.max(1, batchSize);
+        this.refreshMinutes = refreshMinutes;
+        this.tailMillis = tailMillis;
+        this.tailLookbackMillis = tailLookbackSeconds * 1000;
+    }
+
+    // 应用就绪后开始加载，不阻塞启动；加载失败时保持“可能存在”，到下次重建再试
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (loader != null) {
+            return;
+        }
+        loader = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "username-index-loader");
+            t.setDaemon(true);
+            return t;
+        });
+        Runnable task = () -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.warn("用户名索引加载失败，暂时全部回退到数据库查询", e);
+            }
+        };
+        if (refreshMinutes > 0) {
+            loader.scheduleWithFixedDelay(task, 0, refreshMinutes, TimeUnit.MINUTES);
+        } else {
+            loader.execute(task);
+        }
+        if (tailMillis > 0) {
+            loader.scheduleWithFixedDelay(() -> {
+                try {
+                    tail(System.currentTimeMillis());
+                } catch (RuntimeException e) {
+                    log.warn("收录其他节点注册的用户名失败", e);
+                }
+            }, tailMillis, tailMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (loader != null) {
+            loader.shutdownNow();
+        }
+    }
+
+    // false 表示用户名一定不存在
+    public boolean mightContain(String username) {
+        BloomFilter current = filter;
+        return current == null || current.mightContain(key(username));
+    }
+
+    // 先读 building 再读 filter：重建结束时先发布 filter 再清空 building，两次读取之间切换也不会漏写新过滤器
+    public void add(String username) {
+        String key = key(username);
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(key);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(key);
+        }
+    }
+
+    public boolean isLoaded() {
+        return filter != null;
+    }
+
+    /**
+     * 从数据库重建过滤器，容量取配置值和当前用户数两倍中的较大者。在调用线程上同步执行。
+     * 读主库：副本的复制延迟可能漏掉重建开始前刚写入的用户名，而它们不会再经 {@link #add} 写入新过滤器。
+     */
+    public void rebuild() {
+        ReplicaDataSource.onPrimary(() -> {
+            load();
+            return null;
+        });
+    }
+
+    /**
+     * 把主键晚于 nowMillis - tail-lookback-seconds 的用户名加入过滤器，收录其他节点注册的用户。
+     * 过滤器尚未建好时跳过：此时 {@link #mightContain} 总是返回 true，建好时也已包含这些用户。
+     */
+    public void tail(long nowMillis) {
+        if (filter == null) {
+            return;
+        }
+        ReplicaDataSource.onPrimary(() -> {
+            long afterId = UserIdGenerator.firstIdAt(nowMillis - tailLookbackMillis) - 1;
+            List<UsernameRow> rows;
+            do {
+                rows = userStore.findUsernamesAfter(afterId, PageRequest.ofSize(batchSize));
+                for (UsernameRow row : rows) {
+                    add(row.username());
+                }
+                if (!rows.isEmpty()) {
+                    afterId = rows.get(rows.size() - 1).id();
+                }
+            } while (rows.size() == batchSize);
+            return null;
+        });
+    }
+
+    private void load() {
+        long count = userStore.count();
+        BloomFilter next = new BloomFilter((int) Math.min(Integer.MAX_VALUE, Math.max(expectedUsers, count * 2)),
+                falsePositiveRate);
+        synchronized (this) {
+            building = next;
+        }
+        try {
+            long afterId = 0;
+            List<UsernameRow> rows;
+            do {
+                rows = userStore.findUsernamesAfter(afterId, PageRequest.ofSize(batchSize));
+                for (UsernameRow row : rows) {
+                    next.put(key(row.username()));
+                }
+                if (!rows.isEmpty()) {
+                    afterId = rows.get(rows.size() - 1).id();
+                }
+            } while (rows.size() == batchSize);
+            synchronized (this) {
+                filter = next;
+            }
+        } finally {
+            synchronized (this) {
+                building = null;
+            }
+        }
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.lab1.utils;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.Arrays;
+
+/**
+ * 启动时测量本机 bcrypt 速度，选出不超过目标耗时的最大 cost。
+ * <p>
+ * cost 每加 1 耗时翻倍，所以只需在 minCost 上实测，再按倍数推算；选中的 cost 会再实测一次，
+ * 超出目标时退一档。结果始终落在 [minCost, maxCost] 内。
+ */
+public class BcryptCostCalibrator {
+
+    private static final String SAMPLE_PASSWORD = "calibration-Pass123";
+    private static final int SAMPLES = 3;
+
+    private final long targetMillis;
+    private final int minCost;
+    private final int maxCost;
+
+    public BcryptCostCalibrator(long targetMillis, int minCost, int maxCost) {
+        if (minCost < 4 || maxCost > 31 || minCost > maxCost) {
+            throw new IllegalArgumentException("bcrypt cost 范围必须在 4 到 31 之间且 min <= max");
+        }
+        this.targetMillis = targetMillis;
+        this.minCost = minCost;
+        this.maxCost = maxCost;
+    }
+
+    public int calibrate() {
+        // 预热一次，避免把 JIT 编译时间算进去
+        measureMillis(minCost);
+        double baseMillis = Math.max(measureMillis(minCost), 0.01);
+
+        int cost = minCost;
+        while (cost < maxCost && baseMillis * (1L << (cost + 1 - minCost)) <= targetMillis) {
+            cost++;
+        }
+        while (cost > minCost && measureMillis(cost) > targetMillis) {
+            cost--;
+        }
+        return cost;
+    }
+
+    // 取多次测量的中位数
+    double measureMillis(int cost) {
+        double[] samples = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            String salt = BCrypt.gensalt(cost);
+            long start = System.nanoTime();
+            BCrypt.hashpw(SAMPLE_PASSWORD, salt);
+            samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
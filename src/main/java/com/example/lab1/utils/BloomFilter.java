@@ -0,0 +1,90 @@
+package com.example.lab1.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 线程安全的定长布隆过滤器，只支持加入和查询。
+ * <p>
+ * 键为字符串（可从某个下标开始取后缀，省去 substring）。对键计算两个 64 位哈希，第 i 个位置取 h1 + i * h2（双重哈希）。
+ * 位数组按期望元素数和误判率确定，加入用 CAS 置位，查询只读，不加锁。
+ */
+public class BloomFilter {
+
+    private static final long SEED_1 = 0x9E3779B97F4A7C15L;
+    private static final long SEED_2 = 0xC2B2AE3D27D4EB4FL;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("期望元素数必须大于0，误判率必须在0和1之间");
+        }
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.words = new AtomicLongArray((int) Math.max(1, (bits + 63) >>> 6));
+        this.bitCount = (long) words.length() << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+    }
+
+    public void put(CharSequence key) {
+        put(key, 0);
+    }
+
+    // 加入 key 从 from 开始的后缀
+    public void put(CharSequence key, int from) {
+        long h1 = hash(key, from, SEED_1);
+        long h2 = hash(key, from, SEED_2) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = words.get(word)) & mask) == 0) {
+                if (words.compareAndSet(word, current, current | mask)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    public boolean mightContain(CharSequence key) {
+        return mightContain(key, 0);
+    }
+
+    public boolean mightContain(CharSequence key, int from) {
+        long h1 = hash(key, from, SEED_1);
+        long h2 = hash(key, from, SEED_2) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 64 位 FNV-1a 加 murmur3 的末尾混合
+    private static long hash(CharSequence s, int from, long seed) {
+        long h = seed;
+        for (int i = from; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    long bitCount() {
+        return bitCount;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.lab1.utils;
+
+import javax.imageio.stream.ImageOutputStreamImpl;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 写入可复用字节数组的 {@link javax.imageio.stream.ImageOutputStream}。
+ * <p>
+ * PNG 编码器写完数据块后会回退补写长度，因此需要可随机访问的输出；ImageIO 自带的
+ * MemoryCacheImageOutputStream 每次都要分配新的缓存块，这里直接在同一个数组上读写，{@link #reset()} 后重复使用。
+ */
+public class ByteArrayImageOutputStream extends ImageOutputStreamImpl {
+
+    private byte[] buf;
+    private int length;
+
+    public ByteArrayImageOutputStream(int initialCapacity) {
+        this.buf = new byte[initialCapacity];
+    }
+
+    // 清空内容，保留已分配的数组
+    public void reset() {
+        length = 0;
+        streamPos = 0;
+        flushedPos = 0;
+        bitOffset = 0;
+    }
+
+    public int size() {
+        return length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, length);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        flushBits();
+        ensureCapacity(streamPos + 1);
+        buf[(int) streamPos++] = (byte) b;
+        length = Math.max(length, (int) streamPos);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        flushBits();
+        ensureCapacity(streamPos + len);
+        System.arraycopy(b, off, buf, (int) streamPos, len);
+        streamPos += len;
+        length = Math.max(length, (int) streamPos);
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+        bitOffset = 0;
+        return streamPos < length ? buf[(int) streamPos++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkClosed();
+        bitOffset = 0;
+        if (streamPos >= length) {
+            return -1;
+        }
+        int n = Math.min(len, length - (int) streamPos);
+        System.arraycopy(buf, (int) streamPos, b, off, n);
+        streamPos += n;
+        return n;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    // 不关闭，由持有者复用
+    @Override
+    public void close() {
+    }
+
+    private void ensureCapacity(long required) throws IOException {
+        if (required > Integer.MAX_VALUE - 8) {
+            throw new IOException("图片过大");
+        }
+        if (required > buf.length) {
+            buf = Arrays.copyOf(buf, (int) Math.max(required, buf.length * 2L));
+        }
+    }
+}
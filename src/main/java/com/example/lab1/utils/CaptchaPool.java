@@ -0,0 +1,96 @@
+package com.example.lab1.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 预渲染验证码池。
+ * <p>
+ * 后台线程按限定速率把渲染并编码好的验证码放入有界队列，请求线程只需取出一张。
+ * 池为空时按 {@link Fallback} 决定是短暂等待还是直接在请求线程上渲染。
+ */
+public class CaptchaPool {
+
+    public enum Fallback {
+        // 池空时立即在请求线程上渲染
+        RENDER,
+        // 池空时最多等待 blockTimeoutMillis，超时后再在请求线程上渲染
+        BLOCK
+    }
+
+    private static final long TICK_MILLIS = 100;
+
+    private final BlockingQueue<CaptchaUtil.RenderedCaptcha> ready;
+    private final int refillPerTick;
+    private final Fallback fallback;
+    private final long blockTimeoutMillis;
+    private final ScheduledExecutorService producer;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CaptchaPool(int size, int refillPerSecond, Fallback fallback, long blockTimeoutMillis) {
+        if (size <= 0 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("验证码池大小和补充速率必须大于0");
+        }
+        this.ready = new ArrayBlockingQueue<>(size);
+        this.refillPerTick = Math.max(1, (int) (refillPerSecond * TICK_MILLIS / 1000));
+        this.fallback = fallback;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.producer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "captcha-pool-producer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void start() {
+        producer.scheduleWithFixedDelay(this::refill, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        producer.shutdownNow();
+    }
+
+    // 每个周期最多补充 refillPerTick 张，池满即停
+    void refill() {
+        for (int i = 0; i < refillPerTick && ready.remainingCapacity() > 0; i++) {
+            if (!ready.offer(CaptchaUtil.renderCaptcha())) {
+                return;
+            }
+        }
+    }
+
+    public CaptchaUtil.RenderedCaptcha take() {
+        CaptchaUtil.RenderedCaptcha captcha = ready.poll();
+        if (captcha == null && fallback == Fallback.BLOCK) {
+            try {
+                captcha = ready.poll(blockTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (captcha != null) {
+            hits.incrementAndGet();
+            return captcha;
+        }
+        misses.incrementAndGet();
+        return CaptchaUtil.renderCaptcha();
+    }
+
+    public int available() {
+        return ready.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+}
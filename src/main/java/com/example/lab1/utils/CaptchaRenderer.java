@@ -0,0 +1,15 @@
+package com.example.lab1.utils;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * 验证码绘制 SPI。
+ * <p>
+ * 实现把验证码文本画到调用方提供的 {@link BufferedImage#TYPE_INT_RGB} 图片上，并覆盖图片原有的全部内容，
+ * 因此同一张图片可以反复使用。默认实现为基于预渲染字形的 {@link GlyphAtlasCaptchaRenderer}，
+ * {@link Graphics2DCaptchaRenderer} 保留原来逐张用 Graphics2D 绘制的方式。
+ */
+public interface CaptchaRenderer {
+
+    void render(String text, BufferedImage image);
+}
@@ -0,0 +1,17 @@
+package com.example.lab1.utils;
+
+/**
+ * 验证码存储 SPI。
+ * <p>
+ * 实现必须保证一次性语义：validate 无论成功与否都会消费掉该 captchaId。
+ * 默认实现为进程内的 {@link InMemoryCaptchaStore}；多节点部署时使用 {@link RemoteCaptchaStore}，
+ * 让任一节点签发的验证码都能在其他节点校验。
+ */
+public interface CaptchaStore {
+
+    // 保存验证码，返回 captchaId
+    String store(String captchaText);
+
+    // 取出并校验验证码，只能使用一次
+    boolean validate(String captchaId, String userInput);
+}
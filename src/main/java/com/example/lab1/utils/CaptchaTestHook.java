@@ -0,0 +1,85 @@
+package com.example.lab1.utils;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 压测和端到端测试用的验证码钩子：包装真实存储，记下每个 captchaId 的答案，供测试脚本读取。
+ * <p>
+ * 只在 captcha.test-hook.enabled=true 时启用，生产环境绝不能打开。记录的答案在校验时删除；
+ * 取了验证码却没有提交的，按验证码存储的有效期过期，数量超过 capacity 时丢弃最早记录的答案，新的答案总能记下。
+ */
+public class CaptchaTestHook {
+
+    private record Answer(String text, long expiresAt) {
+    }
+
+    private final CaptchaStore delegate;
+    private final int capacity;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final Map<String, Answer> answers = new ConcurrentHashMap<>();
+    // 按记录顺序排列的 captchaId，有效期相同，所以队首总是最早过期的；已校验的 id 留在队列里，轮到时一并移除。
+    // 只在持有自身锁时访问，队列长度不超过 capacity
+    private final ArrayDeque<String> order = new ArrayDeque<>();
+    private final CaptchaStore recordingStore = new CaptchaStore() {
+        @Override
+        public String store(String captchaText) {
+            String captchaId = delegate.store(captchaText);
+            long now = clock.getAsLong();
+            answers.put(captchaId, new Answer(captchaText, now + ttlMillis));
+            synchronized (order) {
+                order.addLast(captchaId);
+                evict(now);
+            }
+            return captchaId;
+        }
+
+        @Override
+        public boolean validate(String captchaId, String userInput) {
+            if (captchaId != null) {
+                answers.remove(captchaId);
+            }
+            return delegate.validate(captchaId, userInput);
+        }
+    };
+
+    public CaptchaTestHook(CaptchaStore delegate, int capacity, long ttlMillis) {
+        this(delegate, capacity, ttlMillis, System::currentTimeMillis);
+    }
+
+    CaptchaTestHook(CaptchaStore delegate, int capacity, long ttlMillis, LongSupplier clock) {
+        this.delegate = delegate;
+        this.capacity = Math.max(1, capacity);
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    // 包装后的存储，需安装到 CaptchaUtil 上
+    public CaptchaStore store() {
+        return recordingStore;
+    }
+
+    // 读取答案但不消费验证码，未知、已校验或已过期的 id 返回 null
+    public String peek(String captchaId) {
+        Answer answer = answers.get(captchaId);
+        return answer == null || answer.expiresAt() <= clock.getAsLong() ? null : answer.text();
+    }
+
+    // 持有 order 的锁时调用：移除过期的和超出容量的最早记录
+    private void evict(long now) {
+        String oldest;
+        while ((oldest = order.peekFirst()) != null) {
+            Answer answer = answers.get(oldest);
+            if (answer != null && answer.expiresAt() > now && order.size() <= capacity) {
+                return;
+            }
+            order.pollFirst();
+            if (answer != null) {
+                answers.remove(oldest, answer);
+            }
+        }
+    }
+}
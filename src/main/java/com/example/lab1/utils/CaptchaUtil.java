@@ -1,2 +1,106 @@
-package com.example.lab1.utils;public class CaptchaUtil {
+package com.example.lab1.utils;
+
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class CaptchaUtil {
+
+    private static final int WIDTH = 120;
+    private static final int HEIGHT = 40;
+    private static final int CAPTCHA_LENGTH = 6;
+
+    // 默认保留 5 分钟，最多 10 万条；Spring 启动时按配置替换
+    private static volatile CaptchaStore captchaStore =
+            new InMemoryCaptchaStore(100_000, 5 * 60 * 1000L, 1000L);
+
+    // 预渲染验证码池，未配置时在请求线程上直接渲染
+    private static volatile CaptchaPool captchaPool;
+
+    // 绘制器，默认使用预渲染字形图集；Spring 启动时按配置替换
+    private static volatile CaptchaRenderer captchaRenderer = new GlyphAtlasCaptchaRenderer();
+
+    private static final ThreadLocal<BufferedImage> CANVAS =
+            ThreadLocal.withInitial(() -> new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB));
+
+    // 复用 writer 和缓冲区的 PNG 编码器；Spring 启动时按配置替换
+    private static volatile PngEncoder pngEncoder = new PngEncoder(16, 0.75f);
+
+    /**
+     * 一张已编码好的验证码：文本及其 PNG 字节。
+     */
+    public record RenderedCaptcha(String text, byte[] png) {
+    }
+
+    // 生成6位数字验证码文本
+    public static String generateCaptchaText() {
+        Random random = ThreadLocalRandom.current();
+        StringBuilder sb = new StringBuilder(CAPTCHA_LENGTH);
+        for (int i = 0; i < CAPTCHA_LENGTH; i++) {
+            sb.append(random.nextInt(10));
+        }
+        return sb.toString();
+    }
+
+    // 生成验证码文本和对应的图片，每次返回新的图片
+    public static Map<String, Object> generateCaptcha() {
+        String text = generateCaptchaText();
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        captchaRenderer.render(text, image);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("text", text);
+        result.put("image", image);
+        return result;
+    }
+
+    // 生成验证码并编码为 PNG。图片编码后即可丢弃，平台线程复用同一张画布；虚拟线程每个请求一个，复用不起作用
+    public static RenderedCaptcha renderCaptcha() {
+        String text = generateCaptchaText();
+        BufferedImage image = Thread.currentThread().isVirtual()
+                ? new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB)
+                : CANVAS.get();
+        captchaRenderer.render(text, image);
+        return new RenderedCaptcha(text, pngEncoder.encode(image));
+    }
+
+    /**
+     * 取一张可直接返回的验证码：优先从预渲染池中取，没有池时在当前线程渲染。
+     */
+    public static RenderedCaptcha nextCaptcha() {
+        CaptchaPool pool = captchaPool;
+        return pool != null ? pool.take() : renderCaptcha();
+    }
+
+    public static void setCaptchaPool(CaptchaPool pool) {
+        captchaPool = pool;
+    }
+
+    public static void setCaptchaRenderer(CaptchaRenderer renderer) {
+        captchaRenderer = renderer;
+    }
+
+    public static void setPngEncoder(PngEncoder encoder) {
+        pngEncoder = encoder;
+    }
+
+    public static void setCaptchaStore(CaptchaStore store) {
+        captchaStore = store;
+    }
+
+    public static CaptchaStore getCaptchaStore() {
+        return captchaStore;
+    }
+
+    // 保存验证码，返回 captchaId
+    public static String storeCaptcha(String captchaText) {
+        return captchaStore.store(captchaText);
+    }
+
+    // 校验验证码，无论成功与否都只能使用一次
+    public static boolean validateCaptcha(String captchaId, String userInput) {
+        return captchaStore.validate(captchaId, userInput);
+    }
 }
@@ -0,0 +1,208 @@
+package com.example.lab1.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地替身服务器：实现 {@link RemoteCaptchaStore} 用到的 RESP 命令子集（PING、SET ... PX/EX、GET、GETDEL、DEL、DBSIZE），
+ * 本地开发和测试时不需要真正的 Redis。
+ * <p>
+ * 每个连接一个虚拟线程，按顺序处理流水线中的命令。过期键在访问时惰性删除，另有后台线程每秒清理一次。
+ */
+public class EmbeddedCaptchaServer implements AutoCloseable {
+
+    private record Value(String data, long expiresAt) {
+        boolean expired(long now) {
+            return expiresAt > 0 && expiresAt <= now;
+        }
+    }
+
+    private final ServerSocket serverSocket;
+    private final Map<String, Value> data = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+    private final Thread acceptor;
+    private volatile boolean running = true;
+
+    // port 为 0 时使用随机端口
+    public EmbeddedCaptchaServer(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "embedded-captcha-server-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, 1, 1, TimeUnit.SECONDS);
+        acceptor = Thread.ofPlatform().daemon().name("embedded-captcha-server").start(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        sweeper.shutdownNow();
+        serverSocket.close();
+        acceptor.interrupt();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread.ofVirtual().start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!running) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            while (running) {
+                String[] command = readCommand(in);
+                if (command == null) {
+                    return;
+                }
+                execute(command, out);
+                // 流水线中还有待读命令时先不 flush，批量回写
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException ignored) {
+            // 客户端断开
+        }
+    }
+
+    private void execute(String[] command, OutputStream out) throws IOException {
+        long now = System.currentTimeMillis();
+        switch (command[0].toUpperCase(Locale.ROOT)) {
+            case "PING" -> writeSimple(out, "PONG");
+            case "SET" -> {
+                if (command.length < 3) {
+                    writeError(out, "wrong number of arguments for 'set'");
+                    return;
+                }
+                long expiresAt = 0;
+                if (command.length >= 5) {
+                    long amount = Long.parseLong(command[4]);
+                    String unit = command[3].toUpperCase(Locale.ROOT);
+                    expiresAt = now + ("EX".equals(unit) ? amount * 1000 : amount);
+                }
+                data.put(command[1], new Value(command[2], expiresAt));
+                writeSimple(out, "OK");
+            }
+            case "GET" -> {
+                Value value = data.get(command[1]);
+                writeBulk(out, value == null || value.expired(now) ? null : value.data());
+            }
+            case "GETDEL" -> {
+                Value value = data.remove(command[1]);
+                writeBulk(out, value == null || value.expired(now) ? null : value.data());
+            }
+            case "DEL" -> {
+                long removed = 0;
+                for (int i = 1; i < command.length; i++) {
+                    if (data.remove(command[i]) != null) {
+                        removed++;
+                    }
+                }
+                writeInteger(out, removed);
+            }
+            case "DBSIZE" -> writeInteger(out, data.size());
+            default -> writeError(out, "unknown command '" + command[0] + "'");
+        }
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        data.entrySet().removeIf(e -> e.getValue().expired(now));
+    }
+
+    private static String[] readCommand(InputStream in) throws IOException {
+        int type = in.read();
+        if (type < 0) {
+            return null;
+        }
+        if (type != '*') {
+            throw new IOException("只支持数组形式的命令");
+        }
+        int count = Integer.parseInt(readLine(in));
+        String[] args = new String[count];
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("命令参数必须是 bulk string");
+            }
+            int length = Integer.parseInt(readLine(in));
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length < length) {
+                throw new EOFException();
+            }
+            in.read();
+            in.read();
+            args[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return args;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\r') {
+            if (c < 0) {
+                throw new EOFException();
+            }
+            sb.append((char) c);
+        }
+        in.read();
+        return sb.toString();
+    }
+
+    private static void writeSimple(OutputStream out, String s) throws IOException {
+        out.write(('+' + s + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeError(OutputStream out, String s) throws IOException {
+        out.write(("-ERR " + s + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeInteger(OutputStream out, long n) throws IOException {
+        out.write((":" + n + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void writeBulk(OutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.write(("$" + bytes.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+}
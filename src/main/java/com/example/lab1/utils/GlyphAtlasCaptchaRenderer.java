@@ -0,0 +1,202 @@
+package com.example.lab1.utils;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 基于预渲染字形的验证码绘制器。
+ * <p>
+ * 构造时用 Graphics2D 把数字 0-9 按若干字体、字号和旋转角度各画一次，只保留抗锯齿后的覆盖度（0-255）
+ * 并裁掉空白，得到字形图集。之后每张验证码直接在图片的 int[] 像素数组上工作：填白底、画干扰线、
+ * 按覆盖度把随机选中的字形混合成随机颜色、再撒噪点，不再经过字体光栅化和 Graphics2D 的绘制管线。
+ * <p>
+ * 只支持数字文本和 {@link BufferedImage#TYPE_INT_RGB} 图片。
+ */
+public class GlyphAtlasCaptchaRenderer implements CaptchaRenderer {
+
+    private static final String[] FONT_NAMES = {"Arial", Font.SANS_SERIF, Font.SERIF};
+    private static final int[] FONT_SIZES = {22, 24, 26};
+    // 与 Graphics2D 绘制器相同的旋转范围 [-0.25, 0.25] 弧度
+    private static final int ROTATIONS = 9;
+    private static final double MAX_THETA = 0.25;
+
+    /**
+     * 一个预渲染字形：覆盖度按行存放，(offsetX, offsetY) 是左上角相对于基线起点的偏移。
+     */
+    record Glyph(int width, int height, int offsetX, int offsetY, byte[] coverage) {
+    }
+
+    // glyphs[digit][variant]
+    private final Glyph[][] glyphs;
+
+    public GlyphAtlasCaptchaRenderer() {
+        int variants = FONT_NAMES.length * FONT_SIZES.length * ROTATIONS;
+        glyphs = new Glyph[10][variants];
+        for (int digit = 0; digit < 10; digit++) {
+            int v = 0;
+            for (String fontName : FONT_NAMES) {
+                for (int size : FONT_SIZES) {
+                    Font font = new Font(fontName, Font.BOLD, size);
+                    for (int r = 0; r < ROTATIONS; r++) {
+                        double theta = -MAX_THETA + 2 * MAX_THETA * r / (ROTATIONS - 1);
+                        glyphs[digit][v++] = renderGlyph((char) ('0' + digit), font, theta);
+                    }
+                }
+            }
+        }
+    }
+
+    int variantCount() {
+        return glyphs[0].length;
+    }
+
+    @Override
+    public void render(String text, BufferedImage image) {
+        render(text, image, ThreadLocalRandom.current());
+    }
+
+    // 测试传入固定种子的 Random，结果可重现
+    void render(String text, BufferedImage image, Random random) {
+        if (image.getType() != BufferedImage.TYPE_INT_RGB) {
+            throw new IllegalArgumentException("验证码图片必须是 TYPE_INT_RGB");
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        Arrays.fill(pixels, 0, width * height, 0xFFFFFF);
+
+        // 干扰线
+        for (int i = 0; i < 8; i++) {
+            drawLine(pixels, width, randomColor(random, 150, 230),
+                    random.nextInt(width), random.nextInt(height), random.nextInt(width), random.nextInt(height));
+        }
+
+        // 逐个混合数字字形，带随机颜色、字体、字号和旋转
+        for (int i = 0; i < text.length(); i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("验证码只能包含数字");
+            }
+            Glyph glyph = glyphs[digit][random.nextInt(glyphs[digit].length)];
+            int x = 8 + i * 18;
+            int y = 28 + random.nextInt(6) - 3;
+            blend(pixels, width, height, glyph, x + glyph.offsetX(), y + glyph.offsetY(), randomColor(random, 20, 120));
+        }
+
+        // 噪点
+        for (int i = 0; i < 60; i++) {
+            pixels[random.nextInt(height) * width + random.nextInt(width)] = random.nextInt(0xFFFFFF);
+        }
+    }
+
+    // 按覆盖度把纯色字形混合到背景上，超出画布的部分裁掉
+    private static void blend(int[] pixels, int width, int height, Glyph glyph, int left, int top, int color) {
+        int cr = (color >> 16) & 0xFF;
+        int cg = (color >> 8) & 0xFF;
+        int cb = color & 0xFF;
+        byte[] coverage = glyph.coverage();
+        int rowStart = Math.max(0, -top);
+        int rowEnd = Math.min(glyph.height(), height - top);
+        int colStart = Math.max(0, -left);
+        int colEnd = Math.min(glyph.width(), width - left);
+        for (int row = rowStart; row < rowEnd; row++) {
+            int src = row * glyph.width();
+            int dst = (top + row) * width + left;
+            for (int col = colStart; col < colEnd; col++) {
+                int a = coverage[src + col] & 0xFF;
+                if (a == 0) {
+                    continue;
+                }
+                if (a == 255) {
+                    pixels[dst + col] = color;
+                    continue;
+                }
+                int bg = pixels[dst + col];
+                int na = 255 - a;
+                int r = (cr * a + ((bg >> 16) & 0xFF) * na + 127) / 255;
+                int g = (cg * a + ((bg >> 8) & 0xFF) * na + 127) / 255;
+                int b = (cb * a + (bg & 0xFF) * na + 127) / 255;
+                pixels[dst + col] = (r << 16) | (g << 8) | b;
+            }
+        }
+    }
+
+    // Bresenham 直线，端点都在画布内
+    private static void drawLine(int[] pixels, int width, int color, int x0, int y0, int x1, int y1) {
+        int dx = Math.abs(x1 - x0);
+        int dy = -Math.abs(y1 - y0);
+        int sx = x0 < x1 ? 1 : -1;
+        int sy = y0 < y1 ? 1 : -1;
+        int err = dx + dy;
+        while (true) {
+            pixels[y0 * width + x0] = color;
+            if (x0 == x1 && y0 == y1) {
+                return;
+            }
+            int e2 = 2 * err;
+            if (e2 >= dy) {
+                err += dy;
+                x0 += sx;
+            }
+            if (e2 <= dx) {
+                err += dx;
+                y0 += sy;
+            }
+        }
+    }
+
+    /**
+     * 以基线起点为中心旋转后绘制单个字符，读出覆盖度并裁到非空区域。
+     */
+    private static Glyph renderGlyph(char c, Font font, double theta) {
+        int box = font.getSize() * 3;
+        int originX = font.getSize();
+        int originY = font.getSize() * 2;
+        BufferedImage canvas = new BufferedImage(box, box, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = canvas.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.setFont(font);
+            g.rotate(theta, originX, originY);
+            g.drawString(String.valueOf(c), originX, originY);
+        } finally {
+            g.dispose();
+        }
+
+        byte[] gray = ((DataBufferByte) canvas.getRaster().getDataBuffer()).getData();
+        int minX = box, minY = box, maxX = -1, maxY = -1;
+        for (int y = 0; y < box; y++) {
+            for (int x = 0; x < box; x++) {
+                if (gray[y * box + x] != 0) {
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                    minY = Math.min(minY, y);
+                    maxY = Math.max(maxY, y);
+                }
+            }
+        }
+        if (maxX < 0) {
+            return new Glyph(0, 0, 0, 0, new byte[0]);
+        }
+        int w = maxX - minX + 1;
+        int h = maxY - minY + 1;
+        byte[] coverage = new byte[w * h];
+        for (int y = 0; y < h; y++) {
+            System.arraycopy(gray, (minY + y) * box + minX, coverage, y * w, w);
+        }
+        return new Glyph(w, h, minX - originX, minY - originY, coverage);
+    }
+
+    private static int randomColor(Random random, int min, int max) {
+        int bound = max - min;
+        return ((min + random.nextInt(bound)) << 16) | ((min + random.nextInt(bound)) << 8) | (min + random.nextInt(bound));
+    }
+}
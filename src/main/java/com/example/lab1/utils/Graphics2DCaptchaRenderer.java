@@ -0,0 +1,56 @@
+package com.example.lab1.utils;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 用 Graphics2D 逐张绘制验证码：开启抗锯齿，画干扰线、逐个旋转绘制数字，再撒噪点。
+ */
+public class Graphics2DCaptchaRenderer implements CaptchaRenderer {
+
+    @Override
+    public void render(String text, BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Graphics2D g = image.createGraphics();
+        try {
+            Random random = ThreadLocalRandom.current();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+
+            // 干扰线
+            for (int i = 0; i < 8; i++) {
+                g.setColor(randomColor(random, 150, 230));
+                g.drawLine(random.nextInt(width), random.nextInt(height),
+                        random.nextInt(width), random.nextInt(height));
+            }
+
+            // 逐个绘制数字，带随机颜色和轻微旋转
+            g.setFont(new Font("Arial", Font.BOLD, 24));
+            for (int i = 0; i < text.length(); i++) {
+                int x = 8 + i * 18;
+                int y = 28 + random.nextInt(6) - 3;
+                double theta = (random.nextDouble() - 0.5) * 0.5;
+                g.setColor(randomColor(random, 20, 120));
+                g.rotate(theta, x, y);
+                g.drawString(String.valueOf(text.charAt(i)), x, y);
+                g.rotate(-theta, x, y);
+            }
+
+            // 噪点
+            for (int i = 0; i < 60; i++) {
+                image.setRGB(random.nextInt(width), random.nextInt(height), random.nextInt(0xFFFFFF));
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private static Color randomColor(Random random, int min, int max) {
+        int bound = max - min;
+        return new Color(min + random.nextInt(bound), min + random.nextInt(bound), min + random.nextInt(bound));
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.lab1.utils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 针对本服务自己签发的 HS256 token 的快速验签器。
+ * <p>
+ * 直接在原字符串上定位分段、把 base64url 解码到线程内复用的缓冲区、用线程内复用的 {@link Mac} 计算签名，
+ * 并用一个极简扫描器只读取 sub/exp/iat。整个过程除了返回的 subject 外不分配对象，也不靠异常表达过期。
+ * <p>
+ * 只处理 header 与构造时给定的编码完全相同（默认为 {"alg":"HS256"}，可带 "typ":"JWT"）、
+ * payload 只含 sub/iat/exp 且没有转义的 token；其他任何情况都返回 {@link Status#UNSUPPORTED}，由调用方交给 jjwt 完整解析。
+ * <p>
+ * 虚拟线程每个请求一个，ThreadLocal 起不到复用作用，因此虚拟线程从一个有界的共享池借用 Mac 和缓冲区，
+ * 每次返回新的 {@link Result}。
+ */
+public final class Hs256TokenVerifier {
+
+    public enum Status {
+        VALID,
+        INVALID,
+        EXPIRED,
+        UNSUPPORTED
+    }
+
+    /**
+     * 验签结果，平台线程复用同一个实例，调用方需在下一次 verify 之前读完。
+     */
+    public static final class Result {
+        private Status status;
+        private String subject;
+        private long expiresAtMillis;
+        private long issuedAtMillis;
+
+        public Status status() {
+            return status;
+        }
+
+        public String subject() {
+            return subject;
+        }
+
+        public long expiresAtMillis() {
+            return expiresAtMillis;
+        }
+
+        // 没有 iat 时为 0
+        public long issuedAtMillis() {
+            return issuedAtMillis;
+        }
+
+        private Result set(Status status) {
+            this.status = status;
+            this.subject = null;
+            this.expiresAtMillis = 0;
+            this.issuedAtMillis = 0;
+            return this;
+        }
+    }
+
+    // {"alg":"HS256"} 和 {"alg":"HS256","typ":"JWT"} 的 base64url 编码
+    private static final String HEADER_ALG = "eyJhbGciOiJIUzI1NiJ9";
+    private static final String HEADER_ALG_TYP = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9";
+
+    private static final int MAX_TOKEN_LENGTH = 4096;
+    private static final int SIGNATURE_LENGTH = 32;
+    private static final int SIGNATURE_CHARS = 43;
+    private static final int MIN_KEY_LENGTH = 32;
+    private static final int SHARED_STATES = 64;
+
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final byte[] key;
+    private final String[] headers;
+    private final ThreadLocal<State> state;
+    private final BlockingQueue<State> sharedStates = new ArrayBlockingQueue<>(SHARED_STATES);
+
+    // 每个线程一份：已初始化的 Mac 和各类缓冲区
+    private static final class State {
+        final Mac mac;
+        final byte[] signingInput = new byte[MAX_TOKEN_LENGTH];
+        final byte[] payload = new byte[MAX_TOKEN_LENGTH];
+        final byte[] expected = new byte[SIGNATURE_LENGTH];
+        final byte[] actual = new byte[SIGNATURE_LENGTH];
+        final Result result = new Result();
+
+        State(byte[] key) {
+            try {
+                mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("无法初始化 HmacSHA256", e);
+            }
+        }
+    }
+
+    public Hs256TokenVerifier(String secret) {
+        this(secret, HEADER_ALG, HEADER_ALG_TYP);
+    }
+
+    // headers 为接受的 header 段（base64url 编码后的原样字符串），例如带 kid 的 header
+    public Hs256TokenVerifier(String secret, String... headers) {
+        this.key = secret.getBytes(StandardCharsets.UTF_8);
+        this.headers = headers.clone();
+        this.state = ThreadLocal.withInitial(() -> new State(key));
+    }
+
+    // 不带 kid 的两种 header，持有旧 token 签名密钥的验签器需要同时接受
+    static String[] headersWithoutKid() {
+        return new String[]{HEADER_ALG, HEADER_ALG_TYP};
+    }
+
+    public Result verify(String token, long nowMillis) {
+        if (!Thread.currentThread().isVirtual()) {
+            State s = state.get();
+            return verify(token, nowMillis, s, s.result);
+        }
+        State s = sharedStates.poll();
+        if (s == null) {
+            s = new State(key);
+        }
+        try {
+            return verify(token, nowMillis, s, new Result());
+        } finally {
+            sharedStates.offer(s);
+        }
+    }
+
+    private Result verify(String token, long nowMillis, State s, Result result) {
+        if (token == null || key.length < MIN_KEY_LENGTH || token.length() > MAX_TOKEN_LENGTH) {
+            return result.set(Status.UNSUPPORTED);
+        }
+
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot == firstDot || token.indexOf('.', firstDot + 1) != lastDot) {
+            return result.set(Status.UNSUPPORTED);
+        }
+        if (!acceptsHeader(token, firstDot)) {
+            return result.set(Status.UNSUPPORTED);
+        }
+        if (token.length() - lastDot - 1 != SIGNATURE_CHARS
+                || decode(token, lastDot + 1, token.length(), s.actual) != SIGNATURE_LENGTH) {
+            return result.set(Status.UNSUPPORTED);
+        }
+
+        // 签名输入是 header.payload 的 ASCII 字节
+        for (int i = 0; i < lastDot; i++) {
+            char c = token.charAt(i);
+            if (c >= 128) {
+                return result.set(Status.INVALID);
+            }
+            s.signingInput[i] = (byte) c;
+        }
+        try {
+            s.mac.update(s.signingInput, 0, lastDot);
+            s.mac.doFinal(s.expected, 0);
+        } catch (GeneralSecurityException e) {
+            return result.set(Status.UNSUPPORTED);
+        }
+        if (!MessageDigest.isEqual(s.expected, s.actual)) {
+            return result.set(Status.INVALID);
+        }
+
+        int payloadLength = decode(token, firstDot + 1, lastDot, s.payload);
+        if (payloadLength < 0 || !scanClaims(s.payload, payloadLength, result)) {
+            return result.set(Status.UNSUPPORTED);
+        }
+        // 与 jjwt 一致：当前时间晚于 exp 才算过期
+        if (nowMillis > result.expiresAtMillis) {
+            result.status = Status.EXPIRED;
+            result.subject = null;
+        }
+        return result;
+    }
+
+    private boolean acceptsHeader(String token, int headerLength) {
+        for (String header : headers) {
+            if (header.length() == headerLength && token.startsWith(header)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解析形如 {"sub":"...","iat":123,"exp":456} 的 payload。只接受这三个键、字符串不带转义，
+     * 必须有 sub 和 exp；满足时写入 result 并返回 true。
+     */
+    private static boolean scanClaims(byte[] json, int length, Result result) {
+        String subject = null;
+        long exp = -1;
+        long iat = 0;
+        int i = skipSpaces(json, 0, length);
+        if (i >= length || json[i] != '{') {
+            return false;
+        }
+        i = skipSpaces(json, i + 1, length);
+        while (i < length && json[i] != '}') {
+            // 键
+            if (json[i] != '"' || i + 5 >= length || json[i + 4] != '"') {
+                return false;
+            }
+            byte k0 = json[i + 1], k1 = json[i + 2], k2 = json[i + 3];
+            i = skipSpaces(json, i + 5, length);
+            if (i >= length || json[i] != ':') {
+                return false;
+            }
+            i = skipSpaces(json, i + 1, length);
+            if (i >= length) {
+                return false;
+            }
+
+            if (k0 == 's' && k1 == 'u' && k2 == 'b') {
+                if (json[i] != '"' || subject != null) {
+                    return false;
+                }
+                int start = i + 1;
+                int end = start;
+                while (end < length && json[end] != '"') {
+                    if (json[end] == '\\') {
+                        return false;
+                    }
+                    end++;
+                }
+                if (end >= length) {
+                    return false;
+                }
+                subject = new String(json, start, end - start, StandardCharsets.UTF_8);
+                i = end + 1;
+            } else if ((k0 == 'e' && k1 == 'x' && k2 == 'p') || (k0 == 'i' && k1 == 'a' && k2 == 't')) {
+                long value = 0;
+                int start = i;
+                while (i < length && json[i] >= '0' && json[i] <= '9' && i - start < 18) {
+                    value = value * 10 + (json[i] - '0');
+                    i++;
+                }
+                if (i == start) {
+                    return false;
+                }
+                if (k0 == 'e') {
+                    exp = value;
+                } else {
+                    iat = value;
+                }
+            } else {
+                return false;
+            }
+
+            i = skipSpaces(json, i, length);
+            if (i < length && json[i] == ',') {
+                i = skipSpaces(json, i + 1, length);
+            } else if (i >= length || json[i] != '}') {
+                return false;
+            }
+        }
+        if (i >= length || subject == null || exp < 0 || skipSpaces(json, i + 1, length) != length) {
+            return false;
+        }
+        result.status = Status.VALID;
+        result.subject = subject;
+        result.expiresAtMillis = exp * 1000;
+        result.issuedAtMillis = iat * 1000;
+        return true;
+    }
+
+    private static int skipSpaces(byte[] json, int i, int length) {
+        while (i < length && (json[i] == ' ' || json[i] == '\t' || json[i] == '\n' || json[i] == '\r')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 把 s[from, to) 按无填充的 base64url 解码到 out，返回字节数；字符非法、末尾多余位不为0或 out 不够时返回 -1。
+     */
+    static int decode(String s, int from, int to, byte[] out) {
+        int n = to - from;
+        if (n % 4 == 1 || (n / 4) * 3 + Math.max(0, n % 4 - 1) > out.length) {
+            return -1;
+        }
+        int o = 0;
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            int v = c < 128 ? DECODE[c] : -1;
+            if (v < 0) {
+                return -1;
+            }
+            bits = (bits << 6) | v;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                out[o++] = (byte) (bits >> bitCount);
+            }
+        }
+        if ((bits & ((1 << bitCount) - 1)) != 0) {
+            return -1;
+        }
+        return o;
+    }
+}
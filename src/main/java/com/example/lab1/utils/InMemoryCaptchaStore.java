@@ -0,0 +1,229 @@
+package com.example.lab1.utils;
+
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 有容量上限、按 TTL 过期的验证码存储。
+ * <p>
+ * 过期由分层时间轮驱动：每个条目按到期 tick 挂到某一层的槽位上，时间推进时只处理到期槽位，
+ * 高层槽位在低层转满一圈时下沉，不需要为每个条目建定时器，也不需要全表扫描。
+ * 时间轮不单独起线程，而是在存取时顺带推进；同一时刻只有一个线程推进（CAS 抢占），其余线程直接返回。
+ * <p>
+ * 时间轮中的节点数（含已被取走但尚未到期的节点）受 capacity 约束，超出时淘汰最早到期的节点，
+ * 所以无论是否有人来校验，内存占用都有上限。验证码只能校验一次。
+ */
+public class InMemoryCaptchaStore implements CaptchaStore {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 3;
+
+    private final int capacity;
+    private final long ttlTicks;
+    private final long tickMillis;
+    private final LongSupplier clock;
+    private final long startMillis;
+
+    private final ConcurrentHashMap<String, Node> entries = new ConcurrentHashMap<>();
+    @SuppressWarnings("unchecked")
+    private final Queue<Node>[][] wheel = new Queue[LEVELS][SLOTS];
+    private final AtomicLong currentTick = new AtomicLong();
+    private final AtomicBoolean advancing = new AtomicBoolean();
+    private final AtomicInteger wheelSize = new AtomicInteger();
+
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong capacityEvictions = new AtomicLong();
+
+    /**
+     * 时间轮中的一个条目。6 位数字答案直接存成 int，非数字文本才保留字符串。
+     */
+    private static final class Node {
+        final String id;
+        final int answer;
+        final byte length;
+        final String text;
+        final long deadlineTick;
+
+        Node(String id, String captchaText, long deadlineTick) {
+            this.id = id;
+            this.deadlineTick = deadlineTick;
+            if (isDigits(captchaText, 9)) {
+                this.answer = Integer.parseInt(captchaText);
+                this.length = (byte) captchaText.length();
+                this.text = null;
+            } else {
+                this.answer = 0;
+                this.length = 0;
+                this.text = captchaText;
+            }
+        }
+
+        boolean matches(String input) {
+            if (text != null) {
+                return text.equals(input);
+            }
+            return input.length() == length && isDigits(input, 9) && Integer.parseInt(input) == answer;
+        }
+    }
+
+    public InMemoryCaptchaStore(int capacity, long ttlMillis, long tickMillis) {
+        this(capacity, ttlMillis, tickMillis, System::currentTimeMillis);
+    }
+
+    InMemoryCaptchaStore(int capacity, long ttlMillis, long tickMillis, LongSupplier clock) {
+        if (capacity <= 0 || ttlMillis <= 0 || tickMillis <= 0) {
+            throw new IllegalArgumentException("验证码存储的容量、TTL 和 tick 必须大于0");
+        }
+        this.capacity = capacity;
+        this.tickMillis = tickMillis;
+        this.ttlTicks = Math.max(1, (ttlMillis + tickMillis - 1) / tickMillis);
+        if (ttlTicks >= 1L << (SLOT_BITS * LEVELS)) {
+            throw new IllegalArgumentException("验证码 TTL 超出时间轮范围，请调大 tick");
+        }
+        this.clock = clock;
+        this.startMillis = clock.getAsLong();
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheel[level][slot] = new ConcurrentLinkedQueue<>();
+            }
+        }
+    }
+
+    @Override
+    public String store(String captchaText) {
+        long now = advance();
+        while (wheelSize.get() >= capacity && evictEarliest()) {
+            capacityEvictions.incrementAndGet();
+        }
+        Node node = new Node(UUID.randomUUID().toString(), captchaText, now + ttlTicks);
+        entries.put(node.id, node);
+        wheelSize.incrementAndGet();
+        place(node);
+        return node.id;
+    }
+
+    @Override
+    public boolean validate(String captchaId, String userInput) {
+        long now = advance();
+        if (captchaId == null || userInput == null) {
+            return false;
+        }
+        Node node = entries.remove(captchaId);
+        return node != null && node.deadlineTick > now && node.matches(userInput);
+    }
+
+    // 当前可校验的验证码数
+    public int size() {
+        return entries.size();
+    }
+
+    public long getExpirations() {
+        return expirations.get();
+    }
+
+    public long getCapacityEvictions() {
+        return capacityEvictions.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 把时间轮推进到当前时间，返回当前 tick。已有线程在推进时直接返回，不等待。
+     */
+    long advance() {
+        long target = (clock.getAsLong() - startMillis) / tickMillis;
+        if (currentTick.get() >= target || !advancing.compareAndSet(false, true)) {
+            return target;
+        }
+        try {
+            for (long tick = currentTick.get() + 1; tick <= target; tick++) {
+                currentTick.set(tick);
+                // 先把高层到期的槽位下沉，再处理第0层
+                for (int level = LEVELS - 1; level > 0; level--) {
+                    if ((tick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                        cascade(wheel[level][(int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK]);
+                    }
+                }
+                expire(wheel[0][(int) tick & SLOT_MASK], tick);
+            }
+        } finally {
+            advancing.set(false);
+        }
+        return target;
+    }
+
+    private void place(Node node) {
+        long current = currentTick.get();
+        long deadline = Math.max(node.deadlineTick, current + 1);
+        long delta = deadline - current;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        wheel[level][(int) (deadline >>> (SLOT_BITS * level)) & SLOT_MASK].offer(node);
+    }
+
+    private void cascade(Queue<Node> bucket) {
+        Node node;
+        while ((node = bucket.poll()) != null) {
+            place(node);
+        }
+    }
+
+    private void expire(Queue<Node> bucket, long tick) {
+        int pending = bucket.size();
+        Node node;
+        while (pending-- > 0 && (node = bucket.poll()) != null) {
+            if (node.deadlineTick > tick) {
+                // 推进过程中插入的节点可能落在本槽位，未到期的放回去
+                place(node);
+                continue;
+            }
+            wheelSize.decrementAndGet();
+            if (entries.remove(node.id, node)) {
+                expirations.incrementAndGet();
+            }
+        }
+    }
+
+    // 容量满时淘汰最早到期的一个节点
+    private boolean evictEarliest() {
+        long current = currentTick.get();
+        for (int level = 0; level < LEVELS; level++) {
+            long base = current >>> (SLOT_BITS * level);
+            for (int i = 0; i < SLOTS; i++) {
+                Node node = wheel[level][(int) (base + i) & SLOT_MASK].poll();
+                if (node != null) {
+                    wheelSize.decrementAndGet();
+                    entries.remove(node.id, node);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDigits(String s, int maxLength) {
+        int n = s.length();
+        if (n == 0 || n > maxLength) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.lab1.utils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+
+import java.security.Key;
+import java.util.Date;
+
+public class JWTUtil {
+
+    public static final String DEFAULT_KEY_ID = "default";
+
+    // 默认密钥仅用于本地开发，部署时通过 jwt.secret 配置覆盖
+    private static final JwtKeyRing keyRing =
+            new JwtKeyRing(DEFAULT_KEY_ID, "lab1-default-secret-key-change-me-in-production");
+
+    // token 有效期，默认 24 小时
+    private static long expirationTime = 24 * 60 * 60 * 1000L;
+
+    // 轮换后旧密钥继续验签的时长，默认与 token 有效期相同
+    private static volatile long keyGracePeriod = 24 * 60 * 60 * 1000L;
+
+    // 已验签 token 的缓存，容量为 0 时不缓存
+    private static final VerifiedTokenCache tokenCache = new VerifiedTokenCache(10_000);
+
+    // token 注销表，为 null 时不支持注销
+    private static volatile TokenRevocationList revocations;
+
+    // 快速验签器处理不了的 token 交给 jjwt，按 header 中的 kid 从密钥环取密钥；解析器本身无状态，只建一次
+    private static final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                @Override
+                public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                    JwtKeyRing.SigningKey key = keyRing.byKid(header.getKeyId(), System.currentTimeMillis());
+                    if (key == null) {
+                        throw new JwtException("未知或已停用的密钥: " + header.getKeyId());
+                    }
+                    return key.secretKey();
+                }
+            })
+            .build();
+
+    // 丢弃所有密钥，只保留一个签发密钥，并清空缓存：之前签发的 token 全部失效
+    public static void setSecretKey(String key) {
+        setSecretKey(DEFAULT_KEY_ID, key);
+    }
+
+    public static void setSecretKey(String kid, String key) {
+        keyRing.reset(kid, key);
+        tokenCache.invalidate();
+    }
+
+    /**
+     * 轮换签发密钥：新 token 用新密钥签发，旧密钥签发的 token 在宽限期内仍然有效。
+     * 清空缓存，让旧密钥的缓存条目按宽限期重新计算有效期。
+     */
+    public static void rotateKey(String kid, String key) {
+        keyRing.rotate(kid, key, keyGracePeriod, System.currentTimeMillis());
+        tokenCache.invalidate();
+    }
+
+    // 加入一个只用于验签的旧密钥，retireAtMillis 之后不再接受；legacy 为 true 时它还负责不带 kid 的 token
+    public static void addVerificationKey(String kid, String key, boolean legacy, long retireAtMillis) {
+        keyRing.add(kid, key, legacy, retireAtMillis, System.currentTimeMillis());
+    }
+
+    // 提前停用一个旧密钥，graceMillis 为 0 时立即停用
+    public static void retireKey(String kid, long graceMillis) {
+        keyRing.retire(kid, graceMillis, System.currentTimeMillis());
+        tokenCache.invalidate();
+    }
+
+    public static void setRevocationList(TokenRevocationList list) {
+        revocations = list;
+        tokenCache.invalidate();
+    }
+
+    public static TokenRevocationList getRevocationList() {
+        return revocations;
+    }
+
+    /**
+     * 注销单个 token（退出登录）。token 无效时抛出 jjwt 异常；没有配置注销表时抛出 IllegalStateException。
+     * 先写注销表再移除缓存条目，与 {@link #verifiedSubject} 写缓存后的复查配合，注销后不会再从缓存通过。
+     */
+    public static void revokeToken(String token) {
+        TokenRevocationList list = requireRevocations();
+        Claims claims = parseClaims(token);
+        list.revokeToken(token, expiresAt(claims), System.currentTimeMillis());
+        tokenCache.remove(token);
+    }
+
+    // 注销用户此刻之前签发的全部 token（强制下线），记录保留一个 token 有效期
+    public static void revokeUser(String username) {
+        TokenRevocationList list = requireRevocations();
+        long now = System.currentTimeMillis();
+        list.revokeUser(username, now, now + expirationTime);
+        tokenCache.removeSubject(username);
+    }
+
+    private static TokenRevocationList requireRevocations() {
+        TokenRevocationList list = revocations;
+        if (list == null) {
+            throw new IllegalStateException("未启用 token 注销");
+        }
+        return list;
+    }
+
+    public static JwtKeyRing getKeyRing() {
+        return keyRing;
+    }
+
+    public static void setKeyGracePeriod(long millis) {
+        keyGracePeriod = millis;
+    }
+
+    public static void setTokenCacheSize(int size) {
+        tokenCache.setMaxSize(size);
+    }
+
+    public static VerifiedTokenCache getTokenCache() {
+        return tokenCache;
+    }
+
+    public static long getExpirationTime() {
+        return expirationTime;
+    }
+
+    public static void setExpirationTime(long expiration) {
+        expirationTime = expiration;
+    }
+
+    // 生成 token，subject 为用户名，header 带当前签发密钥的 kid
+    public static String generateToken(String username) {
+        JwtKeyRing.SigningKey key = keyRing.active();
+        Date now = new Date();
+        return Jwts.builder()
+                .setHeaderParam("kid", key.kid())
+                .setSubject(username)
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + expirationTime))
+                .signWith(key.secretKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    // 解析 token 中的用户名，token 无效或已注销时抛出异常
+    public static String getUsernameFromToken(String token) {
+        String subject = verifiedSubject(token);
+        if (subject != null) {
+            return subject;
+        }
+        // 无效 token 走 jjwt 抛出具体异常；jjwt 也能通过说明已注销
+        parseClaims(token);
+        throw new JwtException("token 已注销");
+    }
+
+    // 校验 token 签名和有效期
+    public static boolean validateToken(String token) {
+        return verifiedSubject(token) != null;
+    }
+
+    /**
+     * 返回已验签且未过期 token 的 subject，否则返回 null，不抛异常。
+     * 依次查已验签缓存、按 header 选中密钥的快速验签器，快速验签器不支持的 token 再交给 jjwt。
+     * 旧密钥验过的 token 在缓存中的有效期不超过该密钥的停用时间。
+     */
+    private static String verifiedSubject(String token) {
+        if (token == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        long generation = tokenCache.generation();
+        String subject = tokenCache.get(token, now);
+        if (subject != null) {
+            return subject;
+        }
+
+        int headerEnd = token.indexOf('.');
+        JwtKeyRing.SigningKey key = headerEnd > 0 ? keyRing.select(token, headerEnd, now) : null;
+        if (key == null) {
+            // header 编码与本服务签发的不同（例如字段顺序不同），由 jjwt 按 kid 选择密钥，结果不缓存
+            try {
+                Claims claims = parseClaims(token);
+                TokenRevocationList list = revocations;
+                return list != null && list.isRevoked(token, claims.getSubject(), issuedAt(claims), expiresAt(claims), now)
+                        ? null : claims.getSubject();
+            } catch (JwtException | IllegalArgumentException e) {
+                return null;
+            }
+        }
+        Hs256TokenVerifier.Result result = key.verifier().verify(token, now);
+        switch (result.status()) {
+            case VALID:
+                return accept(token, result.subject(), result.issuedAtMillis(), result.expiresAtMillis(),
+                        key, now, generation);
+            case INVALID:
+            case EXPIRED:
+                return null;
+            default:
+                try {
+                    Claims claims = parseClaims(token);
+                    return accept(token, claims.getSubject(), issuedAt(claims), expiresAt(claims), key, now, generation);
+                } catch (JwtException | IllegalArgumentException e) {
+                    return null;
+                }
+        }
+    }
+
+    /**
+     * 验签通过后检查注销表，未注销则写入缓存，缓存有效期不超过密钥的停用时间。写入后再查一次：
+     * 与 {@link #revokeToken} 并发时，若注销发生在第一次检查之后，要么复查能看到，要么注销随后移除缓存条目。
+     */
+    private static String accept(String token, String subject, long issuedAtMillis, long expiresAtMillis,
+                                 JwtKeyRing.SigningKey key, long now, long generation) {
+        TokenRevocationList list = revocations;
+        if (list != null && list.isRevoked(token, subject, issuedAtMillis, expiresAtMillis, now)) {
+            return null;
+        }
+        if (expiresAtMillis != Long.MAX_VALUE) {
+            tokenCache.put(token, subject, Math.min(expiresAtMillis, key.retireAtMillis()), now, generation);
+        }
+        if (list != null && list.isRevoked(token, subject, issuedAtMillis, expiresAtMillis, now)) {
+            tokenCache.remove(token);
+            return null;
+        }
+        return subject;
+    }
+
+    // 没有 exp 的 token 视为永不过期
+    private static long expiresAt(Claims claims) {
+        return claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+    }
+
+    private static long issuedAt(Claims claims) {
+        return claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0;
+    }
+
+    private static Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.lab1.utils;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JWT 签名密钥环：用当前密钥签发并在 header 中写入 kid，验签时按 kid 选择密钥。
+ * <p>
+ * 每个密钥在加入时就构建好 {@link SecretKey}、带 kid 的 header 编码和 {@link Hs256TokenVerifier}（其中的 Mac 按线程复用），
+ * 验签时只比较 header 段字符串，不做解码和密钥转换。全部状态放在一个不可变快照里，增删密钥时复制后整体替换，
+ * 读路径不加锁。
+ * <p>
+ * 停用的密钥在宽限期内仍可验签，过期后视为不存在。标记为 legacy 的密钥还负责验签不带 kid 的旧 token。
+ */
+public class JwtKeyRing {
+
+    /**
+     * 一个已构建好的签名密钥。retireAtMillis 为 {@link Long#MAX_VALUE} 表示未停用。
+     */
+    public record SigningKey(String kid, SecretKey secretKey, String header, Hs256TokenVerifier verifier,
+                             boolean legacy, long retireAtMillis) {
+
+        public boolean usable(long nowMillis) {
+            return nowMillis < retireAtMillis;
+        }
+
+        private SigningKey retireAt(long millis) {
+            return new SigningKey(kid, secretKey, header, verifier, legacy, millis);
+        }
+    }
+
+    private record Snapshot(SigningKey active, SigningKey[] keys, SigningKey legacy, Map<String, SigningKey> byKid) {
+    }
+
+    private volatile Snapshot snapshot;
+
+    public JwtKeyRing(String kid, String secret) {
+        reset(kid, secret);
+    }
+
+    public SigningKey active() {
+        return snapshot.active();
+    }
+
+    /**
+     * 按 header 段选择验签密钥：先找 header 完全相同的密钥，找不到时交给 legacy 密钥（处理不带 kid 的旧 token）。
+     * 密钥已过宽限期时返回 null。
+     */
+    public SigningKey select(String token, int headerLength, long nowMillis) {
+        Snapshot s = snapshot;
+        for (SigningKey key : s.keys()) {
+            if (key.header().length() == headerLength && token.startsWith(key.header())) {
+                return key.usable(nowMillis) ? key : null;
+            }
+        }
+        SigningKey legacy = s.legacy();
+        return legacy != null && legacy.usable(nowMillis) ? legacy : null;
+    }
+
+    // 按 kid 查找，kid 为 null 时返回 legacy 密钥；已过宽限期时返回 null
+    public SigningKey byKid(String kid, long nowMillis) {
+        Snapshot s = snapshot;
+        SigningKey key = kid != null ? s.byKid().get(kid) : s.legacy();
+        return key != null && key.usable(nowMillis) ? key : null;
+    }
+
+    public List<String> kids() {
+        return List.of(snapshot.byKid().keySet().toArray(String[]::new));
+    }
+
+    // 清空密钥环，只保留一个签发密钥，它同时负责不带 kid 的旧 token
+    public synchronized void reset(String kid, String secret) {
+        SigningKey key = build(kid, secret, true);
+        publish(key, List.of(key));
+    }
+
+    /**
+     * 加入一个只用于验签的密钥，retireAtMillis 之后不再接受；legacy 为 true 时由它验签不带 kid 的旧 token。
+     */
+    public synchronized void add(String kid, String secret, boolean legacy, long retireAtMillis, long nowMillis) {
+        List<SigningKey> keys = live(nowMillis);
+        ensureAbsent(keys, kid);
+        SigningKey key = build(kid, secret, legacy).retireAt(retireAtMillis);
+        if (legacy) {
+            keys.replaceAll(k -> k.legacy() ? withoutLegacy(k) : k);
+        }
+        keys.add(key);
+        publish(snapshot.active(), keys);
+    }
+
+    /**
+     * 轮换：新密钥立即用于签发，原签发密钥在 graceMillis 之后停用。
+     */
+    public synchronized void rotate(String kid, String secret, long graceMillis, long nowMillis) {
+        List<SigningKey> keys = live(nowMillis);
+        ensureAbsent(keys, kid);
+        SigningKey previous = snapshot.active();
+        SigningKey next = build(kid, secret, false);
+        keys.replaceAll(k -> k == previous ? k.retireAt(nowMillis + graceMillis) : k);
+        keys.add(next);
+        publish(next, keys);
+    }
+
+    // 停用一个密钥，宽限期从现在算起；不能停用正在签发的密钥
+    public synchronized void retire(String kid, long graceMillis, long nowMillis) {
+        SigningKey target = snapshot.byKid().get(kid);
+        if (target == null) {
+            throw new IllegalArgumentException("密钥 kid 不存在: " + kid);
+        }
+        if (target == snapshot.active()) {
+            throw new IllegalStateException("不能停用正在签发的密钥: " + kid);
+        }
+        List<SigningKey> keys = live(nowMillis);
+        long retireAt = Math.min(target.retireAtMillis(), nowMillis + graceMillis);
+        keys.replaceAll(k -> k == target ? k.retireAt(retireAt) : k);
+        publish(snapshot.active(), keys);
+    }
+
+    // 当前快照中仍在宽限期内的密钥
+    private List<SigningKey> live(long nowMillis) {
+        List<SigningKey> keys = new ArrayList<>(Arrays.asList(snapshot.keys()));
+        keys.removeIf(k -> !k.usable(nowMillis));
+        return keys;
+    }
+
+    private void publish(SigningKey active, List<SigningKey> keys) {
+        Map<String, SigningKey> byKid = new HashMap<>();
+        SigningKey legacy = null;
+        SigningKey currentActive = active;
+        for (SigningKey key : keys) {
+            byKid.put(key.kid(), key);
+            if (key.legacy()) {
+                legacy = key;
+            }
+            if (key.kid().equals(active.kid())) {
+                currentActive = key;
+            }
+        }
+        snapshot = new Snapshot(currentActive, keys.toArray(SigningKey[]::new), legacy, Map.copyOf(byKid));
+    }
+
+    private static void ensureAbsent(List<SigningKey> keys, String kid) {
+        for (SigningKey key : keys) {
+            if (key.kid().equals(kid)) {
+                throw new IllegalArgumentException("密钥 kid 已存在: " + kid);
+            }
+        }
+    }
+
+    // 不带 kid 的 token 只会交给快照中的 legacy 密钥，原 legacy 密钥的验签器保留不变即可
+    private static SigningKey withoutLegacy(SigningKey key) {
+        return new SigningKey(key.kid(), key.secretKey(), key.header(), key.verifier(), false, key.retireAtMillis());
+    }
+
+    /**
+     * 构建密钥：SecretKey、带 kid 的 header 编码（与 {@link JWTUtil} 签发时完全相同）和快速验签器。
+     * 密钥过短时由 jjwt 抛出 WeakKeyException。
+     */
+    private static SigningKey build(String kid, String secret, boolean legacy) {
+        if (kid == null || kid.isBlank()) {
+            throw new IllegalArgumentException("密钥 kid 不能为空");
+        }
+        SecretKey secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        String probe = Jwts.builder()
+                .setHeaderParam("kid", kid)
+                .setSubject("probe")
+                .signWith(secretKey, SignatureAlgorithm.HS256)
+                .compact();
+        String header = probe.substring(0, probe.indexOf('.'));
+        String[] headers = legacy ? withKid(header, Hs256TokenVerifier.headersWithoutKid()) : new String[]{header};
+        return new SigningKey(kid, secretKey, header, new Hs256TokenVerifier(secret, headers), legacy, Long.MAX_VALUE);
+    }
+
+    private static String[] withKid(String header, String[] others) {
+        String[] headers = Arrays.copyOf(others, others.length + 1);
+        headers[others.length] = header;
+        return headers;
+    }
+}
@@ -1,2 +0,0 @@
-package com.example.lab1.utils;public class JwtUtil {
-}
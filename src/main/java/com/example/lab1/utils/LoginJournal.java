@@ -0,0 +1,531 @@
+package com.example.lab1.utils;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 登录审计日志：登录成功、失败和注册事件追加写入分段的内存映射文件。
+ * <p>
+ * 请求线程只把事件放进有界无锁队列（{@link MpscArrayQueue}），不做 IO，队列满或已关闭时丢弃并计数；
+ * 单个后台线程批量取出事件写入当前分段的映射区，每 fsyncMillis 调用一次 force() 刷盘。
+ * 已写入映射区的事件在进程崩溃后仍由操作系统写回文件，掉电最多丢最近 fsyncMillis 内的事件；
+ * 进程崩溃或被强制终止时，队列中还没取出的事件丢失且不计数。正常关闭时写完队列中的事件。
+ * 分段写满后换新分段，同时为写满的分段写出用户索引文件（.idx），分段数超过 maxSegments 时删除最旧的分段。
+ * <p>
+ * 每条记录为 {@code [长度 int][CRC32C int][时间 long][用户 id long][类型 byte][用户名][IP]}，字符串为 short 长度加 UTF-8 字节。
+ * 长度最后写入，长度为 0 表示分段到此结束。启动时写满的分段读索引文件，当前分段逐条扫描到第一条不完整或校验失败的记录为止。
+ * <p>
+ * 内存中按用户 id 保存每个用户最近 historyLimit 条记录的位置（分段号和偏移），查询登录历史时按位置读取这几条记录，不扫描文件。
+ * 用户 id 未知的事件（用户名不存在、验证码错误、限流）照样写入，但不进索引。
+ * <p>
+ * 日志和索引都只在本节点：多节点部署时每个节点只记录自己处理的请求，查询也只能看到本节点的记录。
+ */
+public class LoginJournal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginJournal.class);
+
+    // 按序号写入文件，新类型只能追加在末尾
+    public enum Type {
+        LOGIN_SUCCESS, BAD_CREDENTIALS, CAPTCHA_INVALID, THROTTLED, REGISTER,
+        // 密码校验排队超时，服务繁忙
+        BUSY
+    }
+
+    // userId 为 0 表示用户未知；和 UserResponse.id 一样按字符串输出
+    public record Event(long timeMillis, Type type, @JsonSerialize(using = ToStringSerializer.class) long userId,
+                        String username, String clientIp) {
+    }
+
+    public static final int MIN_SEGMENT_BYTES = 4096;
+
+    private static final int HEADER_BYTES = 8;
+    // 时间、用户 id、类型和两个字符串的长度
+    private static final int FIXED_BYTES = 8 + 8 + 1 + 2 + 2;
+    // 登录请求的用户名不限长度，写入前截断
+    private static final int MAX_CHARS = 64;
+    private static final int INDEX_ENTRY_BYTES = 12;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final Type[] TYPES = Type.values();
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long fsyncNanos;
+    private final int batchSize;
+    private final int maxSegments;
+    private final int historyLimit;
+    private final MpscArrayQueue<Event> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+    // 已读到 running 为 true、还没放入队列的 record 调用数；写线程等它归零后才退出，关闭前开始的 record 不会丢失
+    private final AtomicInteger recording = new AtomicInteger();
+
+    // 现存的分段号，最后一个是当前分段
+    private final ConcurrentSkipListSet<Long> segments = new ConcurrentSkipListSet<>();
+    private final Map<Long, History> index = new ConcurrentHashMap<>();
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long written;
+
+    // 以下字段在构造函数中初始化，之后只由写线程访问
+    private final CRC32C crc = new CRC32C();
+    private final Entries activeEntries = new Entries();
+    private long activeSegment;
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private boolean dirty;
+
+    /**
+     * @param segmentBytes  每个分段文件的大小，创建时一次映射
+     * @param queueCapacity 等待写入的事件上限，向上取整为 2 的幂
+     * @param batchSize     写线程每批最多取出的事件数，一批写完才检查是否需要刷盘
+     * @param maxSegments   最多保留的分段数（包括当前分段）
+     * @param historyLimit  每个用户在内存索引中保留的最近记录数
+     */
+    public LoginJournal(Path directory, int segmentBytes, long fsyncMillis, int queueCapacity, int batchSize,
+                        int maxSegments, int historyLimit) {
+        if (segmentBytes < MIN_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("分段大小不能小于 " + MIN_SEGMENT_BYTES + " 字节");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsyncNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, fsyncMillis));
+        this.batchSize = Math.max(1, batchSize);
+        this.maxSegments = Math.max(1, maxSegments);
+        this.historyLimit = Math.max(1, historyLimit);
+        this.queue = new MpscArrayQueue<>(queueCapacity);
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开登录审计日志失败: " + directory, e);
+        }
+        this.writer = new Thread(this::writeLoop, "login-journal-writer");
+        this.writer.setDaemon(true);
+    }
+
+    public void start() {
+        writer.start();
+    }
+
+    /**
+     * 记录一个事件，只入队不等待写入。队列满或已关闭时丢弃并返回 false，不影响调用方的请求。
+     */
+    public boolean record(Type type, long userId, String username, String clientIp) {
+        recording.incrementAndGet();
+        try {
+            if (!running || !queue.offer(new Event(System.currentTimeMillis(), type, userId, username, clientIp))) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            return true;
+        } finally {
+            recording.decrementAndGet();
+        }
+    }
+
+    /**
+     * 用户最近的 limit 条事件，新的在前。只包含已写入文件的事件，刚入队的要等写线程取走后才可见；
+     * 已随旧分段删除的记录跳过。
+     */
+    public List<Event> history(long userId, int limit) {
+        History history = index.get(userId);
+        if (history == null || limit <= 0) {
+            return List.of();
+        }
+        long[] positions = history.newestFirst(limit);
+        List<Event> events = new ArrayList<>(positions.length);
+        Map<Long, FileChannel> channels = new HashMap<>();
+        try {
+            for (long position : positions) {
+                long segment = position >>> 32;
+                FileChannel channel = channels.get(segment);
+                if (channel == null) {
+                    if (!segments.contains(segment)) {
+                        continue;
+                    }
+                    try {
+                        channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ);
+                    } catch (NoSuchFileException e) {
+                        continue;
+                    }
+                    channels.put(segment, channel);
+                }
+                Event event = read(channel, (int) position);
+                if (event != null) {
+                    events.add(event);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取登录审计日志失败: " + directory, e);
+        } finally {
+            for (FileChannel channel : channels.values()) {
+                closeQuietly(channel);
+            }
+        }
+        return events;
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    // 队列满或关闭后到达而丢弃的事件数
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    // 取出后写入文件失败的事件数
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public int getSegments() {
+        return segments.size();
+    }
+
+    // 写完队列中剩余的事件并刷盘
+    @Override
+    public void close() {
+        running = false;
+        if (writer.isAlive()) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!writer.isAlive()) {
+            force();
+            closeQuietly(activeChannel);
+        }
+    }
+
+    private void writeLoop() {
+        long lastForce = System.nanoTime();
+        while (true) {
+            int count = 0;
+            Event event;
+            while (count < batchSize && (event = queue.poll()) != null) {
+                write(event);
+                count++;
+            }
+            // 先看 running 再看 recording：此后开始的 record 都会读到 running 为 false 并丢弃
+            boolean stopping = !running && recording.get() == 0 && queue.isEmpty();
+            long now = System.nanoTime();
+            if (dirty && (stopping || now - lastForce >= fsyncNanos)) {
+                force();
+                lastForce = now;
+            }
+            if (stopping) {
+                return;
+            }
+            if (count == 0) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void write(Event event) {
+        try {
+            append(event);
+            written++;
+        } catch (IOException | RuntimeException e) {
+            // 磁盘满等情况下每条都会失败，只间隔记录日志
+            if (failed.getAndIncrement() % 10_000 == 0) {
+                log.error("写入登录审计日志失败", e);
+            }
+        }
+    }
+
+    private void append(Event event) throws IOException {
+        byte[] username = encode(event.username());
+        byte[] clientIp = encode(event.clientIp());
+        int length = FIXED_BYTES + username.length + clientIp.length;
+        if (active.capacity() - active.position() < HEADER_BYTES + length) {
+            rollover();
+        }
+        int offset = active.position();
+        int p = offset + HEADER_BYTES;
+        active.putLong(p, event.timeMillis());
+        active.putLong(p + 8, event.userId());
+        active.put(p + 16, (byte) event.type().ordinal());
+        active.putShort(p + 17, (short) username.length);
+        active.put(p + 19, username);
+        active.putShort(p + 19 + username.length, (short) clientIp.length);
+        active.put(p + 21 + username.length, clientIp);
+        active.putInt(offset + 4, checksum(active, p, length));
+        // 长度最后写，写到一半的记录长度仍为 0
+        active.putInt(offset, length);
+        active.position(offset + HEADER_BYTES + length);
+        dirty = true;
+        if (event.userId() > 0) {
+            activeEntries.add(event.userId(), offset);
+            addToIndex(event.userId(), activeSegment, offset);
+        }
+    }
+
+    // 当前分段刷盘并写出索引，之后写入新分段，超出保留数的旧分段删除
+    private void rollover() throws IOException {
+        force();
+        writeIndex(activeSegment, activeEntries);
+        closeQuietly(activeChannel);
+        openActive(activeSegment + 1);
+        while (segments.size() > maxSegments) {
+            long oldest = segments.pollFirst();
+            Files.deleteIfExists(segmentPath(oldest));
+            Files.deleteIfExists(indexPath(oldest));
+        }
+    }
+
+    private void force() {
+        if (dirty) {
+            active.force();
+            dirty = false;
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Long> found;
+        try (Stream<Path> files = Files.list(directory)) {
+            found = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.matches("\\d{20}\\.log"))
+                    .map(name -> Long.parseLong(name.substring(0, 20)))
+                    .sorted()
+                    .toList();
+        }
+        if (found.isEmpty()) {
+            openActive(1);
+            return;
+        }
+        for (int i = 0; i < found.size() - 1; i++) {
+            loadSealed(found.get(i));
+        }
+        openActive(found.get(found.size() - 1));
+    }
+
+    // 写满的分段：有完整的索引文件就直接读，否则（换分段时进程退出）扫描分段并补写索引
+    private void loadSealed(long segment) throws IOException {
+        Path indexPath = indexPath(segment);
+        if (Files.exists(indexPath) && Files.size(indexPath) % INDEX_ENTRY_BYTES == 0) {
+            ByteBuffer entries = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+            while (entries.hasRemaining()) {
+                addToIndex(entries.getLong(), segment, entries.getInt());
+            }
+        } else {
+            Entries entries = new Entries();
+            try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+                scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), segment, entries);
+            }
+            writeIndex(segment, entries);
+        }
+        segments.add(segment);
+    }
+
+    // 打开（或创建）分段作为当前分段，已有内容时扫描到末尾继续追加
+    private void openActive(long segment) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.min(Integer.MAX_VALUE, Math.max(channel.size(), segmentBytes));
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        activeEntries.clear();
+        buffer.position(scan(buffer, segment, activeEntries));
+        activeSegment = segment;
+        activeChannel = channel;
+        active = buffer;
+        segments.add(segment);
+    }
+
+    // 从头逐条校验记录，把有用户 id 的记录加入索引，返回第一条无效记录的偏移
+    private int scan(ByteBuffer buffer, long segment, Entries entries) {
+        int offset = 0;
+        while (offset + HEADER_BYTES <= buffer.limit()) {
+            int length = buffer.getInt(offset);
+            if (length < FIXED_BYTES || length > buffer.limit() - offset - HEADER_BYTES
+                    || buffer.getInt(offset + 4) != checksum(buffer, offset + HEADER_BYTES, length)) {
+                break;
+            }
+            long userId = buffer.getLong(offset + HEADER_BYTES + 8);
+            if (userId > 0) {
+                entries.add(userId, offset);
+                addToIndex(userId, segment, offset);
+            }
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    private void writeIndex(long segment, Entries entries) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(entries.size * INDEX_ENTRY_BYTES);
+        for (int i = 0; i < entries.size; i++) {
+            buffer.putLong(entries.userIds[i]).putInt(entries.offsets[i]);
+        }
+        Path path = indexPath(segment);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(tmp, buffer.array());
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void addToIndex(long userId, long segment, int offset) {
+        index.computeIfAbsent(userId, id -> new History(historyLimit)).add(segment << 32 | offset);
+    }
+
+    // 查询线程调用，不能用写线程的 crc
+    private static Event read(FileChannel channel, int offset) throws IOException {
+        ByteBuffer header = readFully(channel, offset, HEADER_BYTES);
+        int length = header.getInt(0);
+        if (length < FIXED_BYTES || length > channel.size() - offset - HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer payload = readFully(channel, offset + HEADER_BYTES, length);
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != header.getInt(4)) {
+            return null;
+        }
+        long timeMillis = payload.getLong();
+        long userId = payload.getLong();
+        int type = payload.get();
+        if (type < 0 || type >= TYPES.length) {
+            return null;
+        }
+        String username = decode(payload);
+        String clientIp = decode(payload);
+        return new Event(timeMillis, TYPES[type], userId, username, clientIp.isEmpty() ? null : clientIp);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("登录审计日志记录不完整");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private int checksum(ByteBuffer buffer, int offset, int length) {
+        crc.reset();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static byte[] encode(String value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        return (value.length() > MAX_CHARS ? value.substring(0, MAX_CHARS) : value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String decode(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%020d.log", segment));
+    }
+
+    private Path indexPath(long segment) {
+        return directory.resolve(String.format("%020d.idx", segment));
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // 关闭失败无需处理
+            }
+        }
+    }
+
+    // 一个用户最近的记录位置，数组按需扩容到 limit，之后循环覆盖最旧的
+    private static final class History {
+
+        private final int limit;
+        private long[] positions = new long[4];
+        private int size;
+        private int next;
+
+        History(int limit) {
+            this.limit = limit;
+        }
+
+        synchronized void add(long position) {
+            if (size < limit) {
+                if (size == positions.length) {
+                    positions = Arrays.copyOf(positions, Math.min(limit, size * 2));
+                }
+                positions[size++] = position;
+                return;
+            }
+            positions[next] = position;
+            next = (next + 1) % limit;
+        }
+
+        synchronized long[] newestFirst(int max) {
+            int count = Math.min(max, size);
+            long[] result = new long[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = positions[(next + size - 1 - i) % size];
+            }
+            return result;
+        }
+    }
+
+    // 一个分段中有用户 id 的记录，用于写索引文件
+    private static final class Entries {
+
+        private long[] userIds = new long[64];
+        private int[] offsets = new int[64];
+        private int size;
+
+        void add(long userId, int offset) {
+            if (size == userIds.length) {
+                userIds = Arrays.copyOf(userIds, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            userIds[size] = userId;
+            offsets[size] = offset;
+            size++;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
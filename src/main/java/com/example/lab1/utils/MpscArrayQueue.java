@@ -0,0 +1,82 @@
+package com.example.lab1.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁队列，多个线程放入、单个线程取出。
+ * <p>
+ * 环形数组的每个槽位带一个序号：序号等于写位置时可写，等于写位置 + 1 时可读。
+ * 放入时 CAS 抢写位置，写入元素后再发布序号；取出方读到序号才取元素，取完把序号推进一圈。
+ * 队列满时 offer 立即返回 false，不等待。poll 只能由同一个线程调用。
+ */
+public class MpscArrayQueue<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // 只由取出线程写
+    private volatile long head;
+
+    // capacity 向上取整为 2 的幂
+    public MpscArrayQueue(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("队列容量必须在 1 到 2^30 之间");
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(E element) {
+        long position;
+        int slot;
+        while (true) {
+            position = tail.get();
+            slot = (int) position & mask;
+            long diff = sequences.get(slot) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+        }
+        elements.lazySet(slot, element);
+        sequences.set(slot, position + 1);
+        return true;
+    }
+
+    // 队列为空，或下一个元素的放入方还没写完时返回 null
+    public E poll() {
+        long position = head;
+        int slot = (int) position & mask;
+        if (sequences.get(slot) != position + 1) {
+            return null;
+        }
+        E element = elements.get(slot);
+        elements.lazySet(slot, null);
+        head = position + 1;
+        sequences.set(slot, position + mask + 1);
+        return element;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
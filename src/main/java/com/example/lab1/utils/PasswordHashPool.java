@@ -0,0 +1,139 @@
+package com.example.lab1.utils;
+
+import com.example.lab1.exception.ServiceBusyException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * bcrypt 专用线程池，带准入控制。
+ * <p>
+ * 线程数固定（默认等于 CPU 核数），队列有界。队列满或排队超过 maxWaitMillis 时立即抛出
+ * {@link ServiceBusyException}，请求线程不会无限期地等在哈希上，轻量接口也不会被登录洪峰拖住。
+ * <p>
+ * maxWaitMillis 只限制排队时间：超时的任务标记为放弃，轮到它时直接跳过；已经开始的哈希一定算完并返回结果，
+ * 不会因为计算本身慢而报繁忙（BCrypt 不响应中断，取消也停不下来，只会白白占用线程）。
+ */
+public class PasswordHashPool {
+
+    private static final int QUEUED = 0;
+    private static final int STARTED = 1;
+    private static final int ABANDONED = 2;
+
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitMillis;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    public PasswordHashPool(int threads, int queueCapacity, long maxWaitMillis) {
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + index.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public <T> T execute(Callable<T> task) {
+        long enqueuedAt = System.nanoTime();
+        AtomicInteger state = new AtomicInteger(QUEUED);
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                // 调用方已因排队超时放弃
+                if (!state.compareAndSet(QUEUED, STARTED)) {
+                    return null;
+                }
+                totalWaitNanos.addAndGet(System.nanoTime() - enqueuedAt);
+                started.incrementAndGet();
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw ServiceBusyException.BUSY;
+        }
+
+        try {
+            try {
+                return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (state.compareAndSet(QUEUED, ABANDONED)) {
+                    future.cancel(false);
+                    timedOut.incrementAndGet();
+                    throw ServiceBusyException.BUSY;
+                }
+                // 已经开始执行，等它算完
+                return future.get();
+            }
+        } catch (InterruptedException e) {
+            if (state.compareAndSet(QUEUED, ABANDONED)) {
+                future.cancel(false);
+            }
+            Thread.currentThread().interrupt();
+            throw ServiceBusyException.BUSY;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 提交不需要等待结果的低优先级任务（如登录后的重新哈希），队列满时返回 false 而不是抛异常。
+     */
+    public boolean submitInBackground(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // 排队中的任务数
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getTimedOutCount() {
+        return timedOut.get();
+    }
+
+    // 已开始执行的任务数，与 getTotalWaitNanos 一起可算出平均排队时间
+    public long getStartedCount() {
+        return started.get();
+    }
+
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.get();
+    }
+}
@@ -1,2 +1,94 @@
-package com.example.lab1.utils;public class PasswordUtil {
+package com.example.lab1.utils;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+public class PasswordUtil {
+
+    // bcrypt 专用线程池，未配置时在调用线程上直接计算
+    private static volatile PasswordHashPool hashPool;
+
+    // 新密码使用的 bcrypt cost，启动时按本机速度校准
+    private static volatile int logRounds = 10;
+
+    public static void setHashPool(PasswordHashPool pool) {
+        hashPool = pool;
+    }
+
+    public static int getLogRounds() {
+        return logRounds;
+    }
+
+    public static void setLogRounds(int rounds) {
+        logRounds = rounds;
+    }
+
+    // 使用 bcrypt 加密密码
+    public static String encryptPassword(String plainPassword) {
+        return run(() -> BCrypt.hashpw(plainPassword, BCrypt.gensalt(logRounds)));
+    }
+
+    // 在调用线程上直接哈希，不经过 bcrypt 线程池，供批量导入等自带线程池的调用方使用
+    public static String encryptPasswordInline(String plainPassword) {
+        return BCrypt.hashpw(plainPassword, BCrypt.gensalt(logRounds));
+    }
+
+    // 已存储的哈希 cost 低于当前配置时需要重新哈希，格式为 $2a$NN$...。
+    // 只升不降：各节点校准出的 cost 可能不同，比较快的节点不能把更强的哈希降级，哈希也不会在两个 cost 之间来回切换
+    public static boolean needsRehash(String hashedPassword) {
+        if (hashedPassword == null || hashedPassword.length() < 7 || hashedPassword.charAt(0) != '$') {
+            return false;
+        }
+        int end = hashedPassword.indexOf('$', 1) + 1;
+        if (end <= 0 || end + 2 > hashedPassword.length()) {
+            return false;
+        }
+        char tens = hashedPassword.charAt(end);
+        char ones = hashedPassword.charAt(end + 1);
+        if (tens < '0' || tens > '9' || ones < '0' || ones > '9') {
+            return false;
+        }
+        return (tens - '0') * 10 + (ones - '0') < logRounds;
+    }
+
+    /**
+     * 在后台用当前 cost 重新哈希，完成后回调 onHashed。线程池繁忙时直接放弃，下次登录再试。
+     */
+    public static void rehashInBackground(String plainPassword, Consumer<String> onHashed) {
+        Runnable task = () -> onHashed.accept(BCrypt.hashpw(plainPassword, BCrypt.gensalt(logRounds)));
+        PasswordHashPool pool = hashPool;
+        if (pool != null) {
+            pool.submitInBackground(task);
+        } else {
+            ForkJoinPool.commonPool().execute(task);
+        }
+    }
+
+    // 校验明文密码与 bcrypt 哈希是否匹配，哈希格式不正确时视为不匹配
+    public static boolean checkPassword(String plainPassword, String hashedPassword) {
+        return run(() -> {
+            try {
+                return BCrypt.checkpw(plainPassword, hashedPassword);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        });
+    }
+
+    private static <T> T run(Callable<T> task) {
+        PasswordHashPool pool = hashPool;
+        if (pool != null) {
+            return pool.execute(task);
+        }
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,35 @@
+package com.example.lab1.utils;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * 读写分离数据源：连接推迟到第一次执行语句时才真正获取，此时事务已把连接设为只读的（readOnly 事务，
+ * 包括 Spring Data 仓库的查询方法）从 {@link ReplicaDataSource} 取，其余从主库取。
+ * 已在读写事务中的查询沿用该事务的主库连接。
+ */
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private final DataSource primary;
+    private final ReplicaDataSource replicas;
+
+    public ReadWriteRoutingDataSource(DataSource primary, ReplicaDataSource replicas) {
+        super(primary);
+        setReadOnlyDataSource(replicas);
+        this.primary = primary;
+        this.replicas = replicas;
+    }
+
+    public ReplicaDataSource getReplicaDataSource() {
+        return replicas;
+    }
+
+    @Override
+    public void close() throws Exception {
+        replicas.close();
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.lab1.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于 RESP 协议（Redis 或 {@link EmbeddedCaptchaServer}）的共享验证码存储，多个节点共用一份数据。
+ * <p>
+ * 校验用 GETDEL 一次往返完成原子的取出并删除，保证跨节点也只能使用一次。
+ * 写入带 PX 过期时间，并发写入会合并成一批：拿到写锁的线程把排队中的 SET 一次性写出、一次 flush，
+ * 再依次读取回复，其余线程拿到锁时发现自己的写入已完成即返回。
+ */
+public class RemoteCaptchaStore implements CaptchaStore, AutoCloseable {
+
+    private static final String KEY_PREFIX = "captcha:";
+    private static final int MAX_BATCH = 256;
+
+    private final String host;
+    private final int port;
+    private final int timeoutMillis;
+    private final String ttlMillis;
+
+    private final BlockingQueue<RespConnection> readConnections;
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private RespConnection writeConnection;
+
+    private static final class PendingWrite {
+        final String key;
+        final String value;
+        boolean done;
+        IOException failure;
+
+        PendingWrite(String key, String value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    public RemoteCaptchaStore(String host, int port, long ttlMillis, int poolSize, int timeoutMillis) {
+        this.host = host;
+        this.port = port;
+        this.timeoutMillis = timeoutMillis;
+        this.ttlMillis = Long.toString(ttlMillis);
+        this.readConnections = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    @Override
+    public String store(String captchaText) {
+        String captchaId = UUID.randomUUID().toString();
+        PendingWrite write = new PendingWrite(KEY_PREFIX + captchaId, captchaText);
+        pendingWrites.offer(write);
+
+        writeLock.lock();
+        try {
+            while (!write.done) {
+                flushPendingWrites();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        if (write.failure != null) {
+            throw new UncheckedIOException("保存验证码失败", write.failure);
+        }
+        return captchaId;
+    }
+
+    @Override
+    public boolean validate(String captchaId, String userInput) {
+        if (captchaId == null || userInput == null) {
+            return false;
+        }
+        RespConnection connection = borrow();
+        boolean healthy = false;
+        try {
+            Object expected = connection.call("GETDEL", KEY_PREFIX + captchaId);
+            healthy = true;
+            return userInput.equals(expected);
+        } catch (IOException e) {
+            throw new UncheckedIOException("校验验证码失败", e);
+        } finally {
+            release(connection, healthy);
+        }
+    }
+
+    @Override
+    public void close() {
+        writeLock.lock();
+        try {
+            closeQuietly(writeConnection);
+            writeConnection = null;
+        } finally {
+            writeLock.unlock();
+        }
+        RespConnection connection;
+        while ((connection = readConnections.poll()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    // 持有写锁时调用：把排队的写入作为一批流水线发送
+    private void flushPendingWrites() {
+        List<PendingWrite> batch = new ArrayList<>();
+        PendingWrite next;
+        while (batch.size() < MAX_BATCH && (next = pendingWrites.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            if (writeConnection == null || !writeConnection.isOpen()) {
+                writeConnection = connect();
+            }
+            for (PendingWrite write : batch) {
+                writeConnection.write("SET", write.key, write.value, "PX", ttlMillis);
+            }
+            writeConnection.flush();
+            for (PendingWrite write : batch) {
+                writeConnection.read();
+                write.done = true;
+            }
+        } catch (IOException e) {
+            closeQuietly(writeConnection);
+            writeConnection = null;
+            for (PendingWrite write : batch) {
+                if (!write.done) {
+                    write.failure = e;
+                    write.done = true;
+                }
+            }
+        }
+    }
+
+    private RespConnection borrow() {
+        RespConnection connection = readConnections.poll();
+        if (connection != null && connection.isOpen()) {
+            return connection;
+        }
+        try {
+            return connect();
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法连接验证码存储 " + host + ":" + port, e);
+        }
+    }
+
+    // 出错的连接直接关闭，池满时多余的连接也关闭
+    private void release(RespConnection connection, boolean healthy) {
+        if (!healthy || !readConnections.offer(connection)) {
+            closeQuietly(connection);
+        }
+    }
+
+    private RespConnection connect() throws IOException {
+        return new RespConnection(host, port, timeoutMillis);
+    }
+
+    private static void closeQuietly(RespConnection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (IOException ignored) {
+            // 关闭失败无需处理
+        }
+    }
+}
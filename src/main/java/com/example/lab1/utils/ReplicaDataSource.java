@@ -0,0 +1,166 @@
+package com.example.lab1.utils;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 只读副本连接：在健康的副本之间轮询，副本全部不可用时退回主库。
+ * <p>
+ * 后台定期对每个副本取连接并调用 {@link Connection#isValid} 标记健康状态；请求时取副本连接失败也会立即标记为不健康，
+ * 换下一个副本重试，等下次健康检查通过后再恢复。
+ * <p>
+ * 在 {@link #onPrimary} 内取连接时直接返回主库连接，用于刚写入的数据（read-your-writes），避开副本复制延迟。
+ */
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    /**
+     * 一个副本及其健康状态。
+     */
+    public static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public boolean healthy() {
+            return healthy;
+        }
+    }
+
+    private final List<Replica> replicas;
+    private final DataSource primary;
+    private final int validationTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+
+    private final AtomicLong replicaConnections = new AtomicLong();
+    private final AtomicLong primaryFallbacks = new AtomicLong();
+
+    public ReplicaDataSource(List<Replica> replicas, DataSource primary, int validationTimeoutSeconds) {
+        this.replicas = List.copyOf(replicas);
+        this.primary = primary;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-health-check");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // 每 intervalMillis 检查一次所有副本
+    public void start(long intervalMillis) {
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 在当前线程上执行 action，期间取到的只读连接都来自主库。
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            } else {
+                FORCE_PRIMARY.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (FORCE_PRIMARY.get() == null) {
+            int size = replicas.size();
+            int start = Math.floorMod(next.getAndIncrement(), Math.max(1, size));
+            for (int i = 0; i < size; i++) {
+                Replica replica = replicas.get((start + i) % size);
+                if (!replica.healthy) {
+                    continue;
+                }
+                try {
+                    Connection connection = username == null
+                            ? replica.dataSource.getConnection()
+                            : replica.dataSource.getConnection(username, password);
+                    replicaConnections.incrementAndGet();
+                    return connection;
+                } catch (SQLException e) {
+                    logger.warn("只读副本 " + replica.name + " 取连接失败，暂时停用", e);
+                    replica.healthy = false;
+                }
+            }
+            primaryFallbacks.incrementAndGet();
+        }
+        return username == null ? primary.getConnection() : primary.getConnection(username, password);
+    }
+
+    // 逐个副本取连接做校验，通过的恢复为健康
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(validationTimeoutSeconds);
+            } catch (SQLException e) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                logger.info("只读副本 " + replica.name + (healthy ? " 恢复" : " 不可用"));
+                replica.healthy = healthy;
+            }
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public long getReplicaConnections() {
+        return replicaConnections.get();
+    }
+
+    // 本应读副本、因副本全部不可用而改用主库的次数，不含 onPrimary
+    public long getPrimaryFallbacks() {
+        return primaryFallbacks.get();
+    }
+
+    // 停止健康检查并关闭副本连接池；主库由调用方关闭
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    logger.warn("关闭只读副本 " + replica.name + " 失败", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.lab1.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 最小的 RESP（Redis 序列化协议）客户端连接。
+ * <p>
+ * 只支持把命令编码为 bulk string 数组，以及解析 simple string、error、integer 和 bulk string 回复，
+ * 足以覆盖验证码存储用到的 SET/GETDEL/PING。命令可以连续写入后一次 flush，实现流水线。
+ */
+public class RespConnection implements Closeable {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+
+    public RespConnection(String host, int port, int timeoutMillis) throws IOException {
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(timeoutMillis);
+        socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+        in = new BufferedInputStream(socket.getInputStream());
+        out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    // 写入一条命令，不 flush
+    public void write(String... args) throws IOException {
+        writeHeader('*', args.length);
+        for (String arg : args) {
+            byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+            writeHeader('$', bytes.length);
+            out.write(bytes);
+            out.write(CRLF);
+        }
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * 读取一条回复：simple string 和 bulk string 返回字符串，integer 返回 Long，nil 返回 null。
+     * 错误回复抛出 {@link IOException}。
+     */
+    public Object read() throws IOException {
+        int type = in.read();
+        if (type < 0) {
+            throw new EOFException("连接已关闭");
+        }
+        String line = readLine();
+        switch (type) {
+            case '+':
+                return line;
+            case '-':
+                throw new IOException("RESP 错误: " + line);
+            case ':':
+                return Long.parseLong(line);
+            case '$': {
+                int length = Integer.parseInt(line);
+                if (length < 0) {
+                    return null;
+                }
+                byte[] bytes = in.readNBytes(length);
+                if (bytes.length < length || in.read() != '\r' || in.read() != '\n') {
+                    throw new EOFException("bulk string 不完整");
+                }
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            default:
+                throw new IOException("不支持的 RESP 回复类型: " + (char) type);
+        }
+    }
+
+    // 发送单条命令并等待回复
+    public Object call(String... args) throws IOException {
+        write(args);
+        flush();
+        return read();
+    }
+
+    public boolean isOpen() {
+        return !socket.isClosed();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private void writeHeader(char prefix, int n) throws IOException {
+        out.write(prefix);
+        out.write(Integer.toString(n).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\r') {
+            if (c < 0) {
+                throw new EOFException("连接已关闭");
+            }
+            sb.append((char) c);
+        }
+        if (in.read() != '\n') {
+            throw new IOException("RESP 行结束符错误");
+        }
+        return sb.toString();
+    }
+}
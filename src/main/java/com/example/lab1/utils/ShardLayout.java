@@ -0,0 +1,68 @@
+package com.example.lab1.utils;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 一组分片及用户名到分片的映射。
+ * <p>
+ * 用户名转小写后计算 64 位哈希，再用 jump consistent hash 映射到分片下标：结果只取决于用户名和分片数，
+ * 各节点、重启前后都一致。分片数从 N 增加到 M（新分片追加在末尾）时只有约 (M-N)/M 的用户名换分片，且都换到新分片上。
+ * 按小写计算是因为 MySQL 默认排序规则不区分大小写，只差大小写的用户名必须落在同一分片，唯一约束才有效。
+ */
+public final class ShardLayout {
+
+    private final List<String> shards;
+
+    public ShardLayout(List<String> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个分片");
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    public String shardOf(String username) {
+        return shards.get(jumpHash(hash(username), shards.size()));
+    }
+
+    // Lamping & Veach, "A Fast, Minimal Memory, Consistent Hash Algorithm"
+    static int jumpHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+
+    // 64 位 FNV-1a 加 murmur3 的末尾混合；jump hash 只用高位，需要混合均匀
+    static long hash(String username) {
+        String key = username.toLowerCase(Locale.ROOT);
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return shards.toString();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.lab1.utils;
+
+/**
+ * 当前生效的分片布局，以及迁移期间的目标布局。
+ * <p>
+ * 两者作为一个不可变的 {@link Routing} 整体发布，每次访问用户表只读取一次，同一次操作内不会看到一半切换的状态。
+ * 迁移期间（next 非空）读取只走 current，写入同时写到 next 中的目标分片（双写），切换后 next 成为 current。
+ */
+public class ShardRouter {
+
+    /**
+     * 一次访问使用的路由快照。
+     */
+    public record Routing(ShardLayout current, ShardLayout next) {
+
+        public boolean migrating() {
+            return next != null;
+        }
+    }
+
+    private volatile Routing routing;
+    // user.shards.next-urls 配置的目标布局，未配置或已切换后为 null
+    private volatile ShardLayout planned;
+
+    public ShardRouter(ShardLayout current, ShardLayout planned) {
+        this.routing = new Routing(current, null);
+        this.planned = planned;
+    }
+
+    public Routing routing() {
+        return routing;
+    }
+
+    public ShardLayout planned() {
+        return planned;
+    }
+
+    // 开始双写
+    public synchronized void startMigration(ShardLayout next) {
+        if (routing.migrating()) {
+            throw new IllegalStateException("分片迁移正在进行");
+        }
+        routing = new Routing(routing.current(), next);
+    }
+
+    // 读写都切到目标布局，停止双写
+    public synchronized void switchToNext() {
+        if (!routing.migrating()) {
+            throw new IllegalStateException("没有进行中的分片迁移");
+        }
+        routing = new Routing(routing.next(), null);
+        planned = null;
+    }
+
+    // 迁移失败时停止双写，仍使用原布局；已复制到目标分片的行留到下次迁移时覆盖
+    public synchronized void abortMigration() {
+        routing = new Routing(routing.current(), null);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.lab1.utils;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 按当前线程选定的分片取连接。
+ * <p>
+ * 在 {@link #on} 内取到的连接来自指定分片，事务开始后连接绑定在事务上，整个事务都在该分片上执行；
+ * 没有选定分片时（Hibernate 启动时读取元数据、建表等）使用默认分片。
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, DataSource> shards;
+
+    public ShardRoutingDataSource(Map<String, DataSource> shards, String defaultShard) {
+        this.shards = new LinkedHashMap<>(shards);
+        setTargetDataSources(new LinkedHashMap<>(shards));
+        setDefaultTargetDataSource(shards.get(defaultShard));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * 在当前线程上执行 action，期间取到的连接都来自 shard。
+     */
+    public static <T> T on(String shard, Supplier<T> action) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return CURRENT.get();
+    }
+
+    public DataSource shard(String name) {
+        DataSource dataSource = shards.get(name);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("未知分片: " + name);
+        }
+        return dataSource;
+    }
+
+    @Override
+    public void close() {
+        for (Map.Entry<String, DataSource> entry : shards.entrySet()) {
+            if (entry.getValue() instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    logger.warn("关闭分片 " + entry.getKey() + " 失败", e);
+                }
+            }
+        }
+    }
+}
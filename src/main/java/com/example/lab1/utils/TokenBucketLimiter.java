@@ -0,0 +1,159 @@
+package com.example.lab1.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 按 key 限流：每个 key 一个令牌桶，连续失败达到阈值后锁定，锁定时长随失败次数指数增长。
+ * <p>
+ * 每个桶自带锁，不同 key 之间没有竞争。key 数量有上限：超过 idleMillis 未访问且未锁定的桶会被定期清理；
+ * 仍然超出上限时先淘汰未锁定的桶，再按解锁时间从早到晚淘汰锁定中的桶，内存始终有界。
+ * 每次清理都降到上限的八分之七，此后至少新增上限的八分之一个 key 才会再次清理；同一时刻只有一个线程清理，
+ * 其余线程不等待，大量新 key 不会让每个请求都遍历整张表。
+ */
+public class TokenBucketLimiter {
+
+    private static final class Bucket {
+        double tokens;
+        long refilledAt;
+        int failures;
+        long lockedUntil;
+        volatile long lastSeen;
+
+        Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+            this.lastSeen = now;
+        }
+    }
+
+    private record Locked(String key, Bucket bucket, long lockedUntil) {
+    }
+
+    private final int capacity;
+    private final double tokensPerMilli;
+    private final int lockoutThreshold;
+    private final long lockoutBaseMillis;
+    private final long lockoutMaxMillis;
+    private final int maxKeys;
+    private final long idleMillis;
+    private final LongSupplier clock;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    public TokenBucketLimiter(int capacity, double refillPerMinute, int lockoutThreshold,
+                              long lockoutBaseMillis, long lockoutMaxMillis, int maxKeys, long idleMillis) {
+        this(capacity, refillPerMinute, lockoutThreshold, lockoutBaseMillis, lockoutMaxMillis, maxKeys, idleMillis,
+                System::currentTimeMillis);
+    }
+
+    TokenBucketLimiter(int capacity, double refillPerMinute, int lockoutThreshold,
+                       long lockoutBaseMillis, long lockoutMaxMillis, int maxKeys, long idleMillis, LongSupplier clock) {
+        this.capacity = capacity;
+        this.tokensPerMilli = refillPerMinute / 60_000.0;
+        this.lockoutThreshold = lockoutThreshold;
+        this.lockoutBaseMillis = lockoutBaseMillis;
+        this.lockoutMaxMillis = lockoutMaxMillis;
+        this.maxKeys = maxKeys;
+        this.idleMillis = idleMillis;
+        this.clock = clock;
+        this.lastSweep.set(clock.getAsLong());
+    }
+
+    /**
+     * 尝试消耗一个令牌。允许时返回 0，否则返回需要等待的毫秒数（至少为 1）。
+     */
+    public long acquire(String key) {
+        long now = clock.getAsLong();
+        Bucket bucket = bucket(key, now);
+        synchronized (bucket) {
+            bucket.lastSeen = now;
+            if (now < bucket.lockedUntil) {
+                return bucket.lockedUntil - now;
+            }
+            bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.refilledAt) * tokensPerMilli);
+            bucket.refilledAt = now;
+            if (bucket.tokens < 1) {
+                return Math.max(1, (long) Math.ceil((1 - bucket.tokens) / tokensPerMilli));
+            }
+            bucket.tokens -= 1;
+            return 0;
+        }
+    }
+
+    // 记录一次失败，连续失败达到阈值后锁定 base * 2^(超出次数)，不超过上限
+    public void recordFailure(String key) {
+        long now = clock.getAsLong();
+        Bucket bucket = bucket(key, now);
+        synchronized (bucket) {
+            bucket.lastSeen = now;
+            bucket.failures++;
+            int over = bucket.failures - lockoutThreshold;
+            if (over >= 0) {
+                bucket.lockedUntil = now + Math.min(lockoutMaxMillis, lockoutBaseMillis << Math.min(over, 30));
+            }
+        }
+    }
+
+    // 成功后清零连续失败次数
+    public void recordSuccess(String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            synchronized (bucket) {
+                bucket.failures = 0;
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private Bucket bucket(String key, long now) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        long last = lastSweep.get();
+        if ((buckets.size() >= maxKeys || now - last >= idleMillis) && sweeping.compareAndSet(false, true)) {
+            try {
+                lastSweep.set(now);
+                sweep(now);
+            } finally {
+                sweeping.set(false);
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new Bucket(capacity, now));
+    }
+
+    // 先清理空闲的桶；仍然超出上限时淘汰未锁定的桶，再淘汰最早解锁的锁定桶，直到降到上限的八分之七
+    private void sweep(long now) {
+        buckets.values().removeIf(bucket -> now - bucket.lastSeen >= idleMillis && now >= bucket.lockedUntil);
+        int target = maxKeys - Math.max(1, maxKeys / 8);
+        Iterator<Bucket> it = buckets.values().iterator();
+        while (buckets.size() > target && it.hasNext()) {
+            if (now >= it.next().lockedUntil) {
+                it.remove();
+            }
+        }
+        if (buckets.size() <= target) {
+            return;
+        }
+        // 先取下解锁时间的快照再排序，排序期间桶被并发修改也不影响比较结果
+        List<Locked> locked = new ArrayList<>(buckets.size());
+        buckets.forEach((key, bucket) -> locked.add(new Locked(key, bucket, bucket.lockedUntil)));
+        locked.sort(Comparator.comparingLong(Locked::lockedUntil));
+        for (int i = 0; i < locked.size() && buckets.size() > target; i++) {
+            buckets.remove(locked.get(i).key(), locked.get(i).bucket());
+        }
+    }
+}
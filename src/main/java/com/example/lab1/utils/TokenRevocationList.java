@@ -0,0 +1,355 @@
+package com.example.lab1.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * token 注销表：单个 token 注销（退出登录）和按用户注销某时刻之前签发的全部 token（强制下线）。
+ * <p>
+ * 单个 token 以签名段为键保存在精确集合中，同时按 exp 所在的时间段写入该段的布隆过滤器。
+ * 校验时先查 exp 对应时间段的过滤器，绝大多数未注销的 token 在这里就能确定，只有过滤器命中时才查精确集合。
+ * 时间段结束后整段过滤器连同其中的 token 一起作废，条目在 token 过期后自动清除。
+ * exp 远超过有效期（或没有 exp）的 token 不进过滤器，放在单独的溢出集合中。
+ * <p>
+ * 每次注销先追加写入日志再生效，启动时重放日志并只保留未过期的记录重写日志；运行中日志里过期记录过多时也会重写。
+ * 日志格式为每行一条：{@code T <exp毫秒> <签名段>} 或 {@code U <失效毫秒> <注销时间毫秒> <用户名>}。
+ */
+public class TokenRevocationList implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private static final int BUCKETS_PER_LIFETIME = 4;
+
+    private record Bucket(long index, BloomFilter filter) {
+    }
+
+    private record UserRevocation(long revokedBeforeMillis, long expiresAtMillis) {
+    }
+
+    private final long bucketMillis;
+    private final int expectedPerBucket;
+    private final double falsePositiveRate;
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<String, Long> overflowTokens = new ConcurrentHashMap<>();
+    private final Map<String, UserRevocation> revokedUsers = new ConcurrentHashMap<>();
+
+    private final Path logPath;
+    private final boolean syncLog;
+    // 以下两个字段由 logLock 保护；持锁期间有文件 IO，用 ReentrantLock 而不是 synchronized，虚拟线程阻塞时不会钉住载体线程
+    private final ReentrantLock logLock = new ReentrantLock();
+    private FileChannel log;
+    private long logRecords;
+
+    private final ScheduledExecutorService sweeper;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong exactLookups = new AtomicLong();
+
+    /**
+     * @param maxTokenLifetimeMillis token 最长有效期，决定时间段长度（有效期的 1/4）和槽位数
+     * @param expectedPerBucket      每个时间段预计的注销数，用于确定过滤器大小
+     * @param logPath                注销日志路径，为 null 时不持久化
+     */
+    public TokenRevocationList(long maxTokenLifetimeMillis, int expectedPerBucket, double falsePositiveRate,
+                               Path logPath, boolean syncLog, long nowMillis) {
+        this.bucketMillis = Math.max(1, maxTokenLifetimeMillis / BUCKETS_PER_LIFETIME);
+        this.expectedPerBucket = expectedPerBucket;
+        this.falsePositiveRate = falsePositiveRate;
+        this.buckets = new AtomicReferenceArray<>(BUCKETS_PER_LIFETIME + 2);
+        this.logPath = logPath;
+        this.syncLog = syncLog;
+        if (logPath != null) {
+            replay(nowMillis);
+        }
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "token-revocation-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // 定期清理过期条目，周期为时间段长度的一半，限制在 1 秒到 1 分钟之间
+    public void start() {
+        start(Math.min(60_000, Math.max(1_000, bucketMillis / 2)));
+    }
+
+    // 任务抛出异常会被 ScheduledExecutorService 静默取消，所以在这里捕获：重写日志失败（如磁盘满）时下次再试
+    void start(long periodMillis) {
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                purgeExpired(System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                logger.error("清理过期的 token 注销记录失败", e);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // 注销单个 token；已过期的 token 无需记录，返回 false。写日志和更新内存在同一把锁内，重写日志时不会漏掉
+    public boolean revokeToken(String token, long expiresAtMillis, long nowMillis) {
+        int dot = token.lastIndexOf('.');
+        if (dot < 0 || expiresAtMillis <= nowMillis) {
+            return false;
+        }
+        String signature = token.substring(dot + 1);
+        logLock.lock();
+        try {
+            append("T " + expiresAtMillis + " " + signature);
+            addToken(signature, expiresAtMillis, nowMillis);
+        } finally {
+            logLock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * 注销用户在 revokedBeforeMillis 及之前签发的全部 token。记录保留到 expiresAtMillis，
+     * 调用方传入注销时间加上 token 最长有效期，之后这些 token 已经自然过期。
+     */
+    public void revokeUser(String username, long revokedBeforeMillis, long expiresAtMillis) {
+        logLock.lock();
+        try {
+            append("U " + expiresAtMillis + " " + revokedBeforeMillis + " " + username);
+            addUser(username, revokedBeforeMillis, expiresAtMillis);
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    /**
+     * 判断一个已验签、未过期的 token 是否已注销。iat 为秒级精度，与注销同一秒内签发的 token 也视为已注销。
+     */
+    public boolean isRevoked(String token, String subject, long issuedAtMillis, long expiresAtMillis, long nowMillis) {
+        checks.incrementAndGet();
+        if (!revokedUsers.isEmpty() && subject != null) {
+            UserRevocation revocation = revokedUsers.get(subject);
+            if (revocation != null && revocation.expiresAtMillis() > nowMillis
+                    && issuedAtMillis <= revocation.revokedBeforeMillis()) {
+                return true;
+            }
+        }
+        int start = token.lastIndexOf('.') + 1;
+        if (!overflowTokens.isEmpty() && overflowTokens.containsKey(token.substring(start))) {
+            return true;
+        }
+        Bucket bucket = bucket(expiresAtMillis / bucketMillis, nowMillis, false);
+        if (bucket == null
+                || !bucket.filter().mightContain(token, start)) {
+            return false;
+        }
+        exactLookups.incrementAndGet();
+        return revokedTokens.containsKey(token.substring(start));
+    }
+
+    // 清除已过期的 token、用户记录和时间段；日志中过期记录过多时重写日志
+    public void purgeExpired(long nowMillis) {
+        revokedTokens.values().removeIf(exp -> exp <= nowMillis);
+        overflowTokens.values().removeIf(exp -> exp <= nowMillis);
+        revokedUsers.values().removeIf(r -> r.expiresAtMillis() <= nowMillis);
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && (bucket.index() + 1) * bucketMillis <= nowMillis) {
+                buckets.compareAndSet(i, bucket, null);
+            }
+        }
+        logLock.lock();
+        try {
+            if (log != null && logRecords > 2L * size() + 1024) {
+                compact();
+            }
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    public int size() {
+        return revokedTokens.size() + overflowTokens.size() + revokedUsers.size();
+    }
+
+    public long getChecks() {
+        return checks.get();
+    }
+
+    // 过滤器命中、需要查精确集合的次数，其中超出实际注销数的部分是误判
+    public long getExactLookups() {
+        return exactLookups.get();
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        logLock.lock();
+        try {
+            closeLog();
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    private void addToken(String signature, long expiresAtMillis, long nowMillis) {
+        Bucket bucket = expiresAtMillis - nowMillis < (buckets.length() - 1) * bucketMillis
+                ? bucket(expiresAtMillis / bucketMillis, nowMillis, true)
+                : null;
+        if (bucket == null) {
+            overflowTokens.put(signature, expiresAtMillis);
+            return;
+        }
+        // 先写精确集合再置过滤器位，过滤器命中时精确集合中一定已有该条目
+        revokedTokens.put(signature, expiresAtMillis);
+        bucket.filter().put(signature);
+    }
+
+    private void addUser(String username, long revokedBeforeMillis, long expiresAtMillis) {
+        revokedUsers.merge(username, new UserRevocation(revokedBeforeMillis, expiresAtMillis),
+                (a, b) -> new UserRevocation(Math.max(a.revokedBeforeMillis(), b.revokedBeforeMillis()),
+                        Math.max(a.expiresAtMillis(), b.expiresAtMillis())));
+    }
+
+    /**
+     * 取时间段 index 的过滤器。槽位被仍未结束的其他时间段占用时返回 null；create 为 false 时不创建。
+     */
+    private Bucket bucket(long index, long nowMillis, boolean create) {
+        int slot = (int) Math.floorMod(index, (long) buckets.length());
+        Bucket bucket = buckets.get(slot);
+        if (bucket != null && bucket.index() == index) {
+            return bucket;
+        }
+        if (!create) {
+            return null;
+        }
+        synchronized (buckets) {
+            bucket = buckets.get(slot);
+            if (bucket != null && bucket.index() == index) {
+                return bucket;
+            }
+            if (bucket != null && (bucket.index() + 1) * bucketMillis > nowMillis) {
+                return null;
+            }
+            Bucket created = new Bucket(index, new BloomFilter(expectedPerBucket, falsePositiveRate));
+            buckets.set(slot, created);
+            return created;
+        }
+    }
+
+    // 持有 logLock 时调用
+    private void append(String record) {
+        if (log == null) {
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                log.write(buffer);
+            }
+            if (syncLog) {
+                log.force(false);
+            }
+            logRecords++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入 token 注销日志失败", e);
+        }
+    }
+
+    // 读取日志恢复未过期的记录，无法解析的行（例如写到一半的最后一行）跳过
+    private void replay(long nowMillis) {
+        if (Files.exists(logPath)) {
+            try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split(" ", 4);
+                    try {
+                        if (parts.length == 3 && "T".equals(parts[0])) {
+                            long exp = Long.parseLong(parts[1]);
+                            if (exp > nowMillis) {
+                                addToken(parts[2], exp, nowMillis);
+                            }
+                        } else if (parts.length == 4 && "U".equals(parts[0])) {
+                            long expiresAt = Long.parseLong(parts[1]);
+                            if (expiresAt > nowMillis) {
+                                addUser(parts[3], Long.parseLong(parts[2]), expiresAt);
+                            }
+                        }
+                    } catch (NumberFormatException ignored) {
+                        // 损坏的记录
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("读取 token 注销日志失败: " + logPath, e);
+            }
+        }
+        logLock.lock();
+        try {
+            compact();
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    // 持有 logLock 时调用：只写出当前有效的记录，原子替换日志文件后继续追加。
+    // 临时文件写完才关闭原日志，写临时文件失败时继续追加到原日志
+    private void compact() {
+        try {
+            Path parent = logPath.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmp = logPath.resolveSibling(logPath.getFileName() + ".tmp");
+            long records = 0;
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (Map<String, Long> tokens : List.of(revokedTokens, overflowTokens)) {
+                    for (Map.Entry<String, Long> e : tokens.entrySet()) {
+                        writer.write("T " + e.getValue() + " " + e.getKey() + "\n");
+                        records++;
+                    }
+                }
+                for (Map.Entry<String, UserRevocation> e : revokedUsers.entrySet()) {
+                    UserRevocation r = e.getValue();
+                    writer.write("U " + r.expiresAtMillis() + " " + r.revokedBeforeMillis() + " " + e.getKey() + "\n");
+                    records++;
+                }
+            }
+            closeLog();
+            try {
+                Files.move(tmp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                logRecords = records;
+            } finally {
+                // 替换失败时重新打开原日志
+                log = FileChannel.open(logPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("重写 token 注销日志失败: " + logPath, e);
+        }
+    }
+
+    private void closeLog() {
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException ignored) {
+                // 关闭失败无需处理
+            }
+            log = null;
+        }
+    }
+}
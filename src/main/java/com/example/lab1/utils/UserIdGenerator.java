@@ -0,0 +1,50 @@
+package com.example.lab1.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户主键生成：64 位 = 41 位毫秒时间戳（自 2024-01-01 起）+ 10 位节点号 + 12 位序号。
+ * <p>
+ * 每个节点配置不同的节点号即可保证全局唯一，分片之间、节点之间都无需协调，主键大体按时间递增。
+ * 状态是一个 AtomicLong（时间戳左移 12 位加序号），同一毫秒内序号用完时借用下一毫秒；时钟回拨时继续沿用已用过的最大时间戳。
+ */
+public class UserIdGenerator {
+
+    private static final long EPOCH_MILLIS = 1_704_067_200_000L;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int WORKER_BITS = 10;
+    public static final int MAX_WORKER_ID = (1 << WORKER_BITS) - 1;
+
+    private static final AtomicLong state = new AtomicLong();
+    private static volatile long workerId = 0;
+
+    public static void setWorkerId(int id) {
+        if (id < 0 || id > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("节点号必须在 0 到 " + MAX_WORKER_ID + " 之间");
+        }
+        workerId = id;
+    }
+
+    public static long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long prev;
+        long next;
+        do {
+            prev = state.get();
+            next = Math.max(prev + 1, now);
+        } while (!state.compareAndSet(prev, next));
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (timestamp << (WORKER_BITS + SEQUENCE_BITS)) | (workerId << SEQUENCE_BITS) | sequence;
+    }
+
+    // 该时刻（毫秒）生成的最小主键，主键大于它的用户大体都是该时刻之后注册的
+    public static long firstIdAt(long epochMillis) {
+        return Math.max(0, epochMillis - EPOCH_MILLIS) << (WORKER_BITS + SEQUENCE_BITS);
+    }
+
+    // 从主键取出节点号
+    public static int workerIdOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_WORKER_ID);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.lab1.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已验签 token 的有界缓存。
+ * <p>
+ * 以签名段为键：HS256 签名本身就是 header+payload 在当前密钥下的摘要，另外保存被签名部分的哈希，
+ * 防止拼接别的 payload 复用签名。条目只保存 subject 和 exp，过了 exp 即视为不存在。
+ * 换密钥时 {@link JWTUtil} 调用 {@link #invalidate()}；用旧密钥验签、晚于失效才写入的条目会按代数丢弃。
+ * 注销的 token 由 {@link #remove(String)} 和 {@link #removeSubject(String)} 移除，缓存命中时不再检查注销表。
+ */
+public class VerifiedTokenCache {
+
+    private record Entry(String subject, long expiresAtMillis, int signedPartHash) {
+    }
+
+    private volatile int maxSize;
+    private volatile long generation;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public VerifiedTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 返回缓存中仍然有效的 subject，未命中或已过期返回 null。
+     */
+    public String get(String token, long nowMillis) {
+        int dot = token.lastIndexOf('.');
+        if (dot > 0) {
+            Entry entry = entries.get(token.substring(dot + 1));
+            if (entry != null && entry.signedPartHash() == signedPartHash(token, dot)) {
+                if (entry.expiresAtMillis() > nowMillis) {
+                    hits.incrementAndGet();
+                    return entry.subject();
+                }
+                entries.remove(token.substring(dot + 1), entry);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 验签成功后调用。generation 须在读取密钥之前通过 {@link #generation()} 取得，期间发生过失效则不写入。
+     */
+    public void put(String token, String subject, long expiresAtMillis, long nowMillis, long generation) {
+        int dot = token.lastIndexOf('.');
+        if (maxSize <= 0 || dot <= 0 || subject == null || expiresAtMillis <= nowMillis
+                || generation != this.generation) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict(nowMillis);
+        }
+        String key = token.substring(dot + 1);
+        Entry entry = new Entry(subject, expiresAtMillis, signedPartHash(token, dot));
+        entries.put(key, entry);
+        if (generation != this.generation) {
+            entries.remove(key, entry);
+        }
+    }
+
+    // 注销 token 时移除对应条目
+    public void remove(String token) {
+        int dot = token.lastIndexOf('.');
+        if (dot > 0) {
+            entries.remove(token.substring(dot + 1));
+        }
+    }
+
+    // 强制下线时移除该用户的全部条目，需要遍历整个缓存
+    public void removeSubject(String subject) {
+        entries.values().removeIf(entry -> entry.subject().equals(subject));
+    }
+
+    public long generation() {
+        return generation;
+    }
+
+    // 清空缓存，之前取得的 generation 全部作废
+    public synchronized void invalidate() {
+        generation++;
+        entries.clear();
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        invalidate();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    // 先清理已过期的条目，仍然太满就再随意淘汰八分之一
+    private void evict(long nowMillis) {
+        entries.values().removeIf(entry -> entry.expiresAtMillis() <= nowMillis);
+        int excess = entries.size() - maxSize + Math.max(1, maxSize / 8);
+        Iterator<String> it = entries.keySet().iterator();
+        while (excess-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static int signedPartHash(String token, int end) {
+        int h = 0;
+        for (int i = 0; i < end; i++) {
+            h = 31 * h + token.charAt(i);
+        }
+        return h;
+    }
+}
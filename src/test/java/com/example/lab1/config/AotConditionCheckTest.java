@@ -0,0 +1,34 @@
+package com.example.lab1.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AotConditionCheckTest {
+
+    @Test
+    void check_MatchesBuildTimeBeans_Passes() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("loginJournal", new RootBeanDefinition(Object.class));
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("audit.journal.path", "data/audit")
+                .withProperty("datasource.replica.urls", "");
+
+        assertDoesNotThrow(() -> AotConditionCheck.check(beanFactory, environment));
+    }
+
+    @Test
+    void check_ShardsConfiguredAfterBuild_Fails() {
+        // 构建时单库、未开审计，运行时配置了分片
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("user.shards.urls", "jdbc:h2:mem:s0,jdbc:h2:mem:s1");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> AotConditionCheck.check(beanFactory, environment));
+        assertTrue(e.getMessage().startsWith("user.shards.urls"), e.getMessage());
+    }
+}
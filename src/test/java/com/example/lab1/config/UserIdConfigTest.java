@@ -0,0 +1,20 @@
+package com.example.lab1.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserIdConfigTest {
+
+    @Test
+    void resolveWorkerId_UnsetOnSingleNode_DefaultsToZero() {
+        assertEquals(0, UserIdConfig.resolveWorkerId("", false));
+        assertEquals(12, UserIdConfig.resolveWorkerId(" 12 ", true));
+    }
+
+    @Test
+    void resolveWorkerId_UnsetWithShardsOrReplicas_Fails() {
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> UserIdConfig.resolveWorkerId("", true));
+        assertTrue(e.getMessage().contains("user.id.worker-id"), e.getMessage());
+    }
+}
@@ -1,2 +1,301 @@
-package com.example.lab1.controller;public class UserControllerTest {
+package com.example.lab1.controller;
+
+import com.example.lab1.dto.ImportUserRequest;
+import com.example.lab1.dto.LoginRequest;
+import com.example.lab1.dto.NewUserRequest;
+import com.example.lab1.dto.UserImportResult;
+import com.example.lab1.dto.UserResponse;
+import com.example.lab1.exception.BadRequestException;
+import com.example.lab1.service.LoginAuditService;
+import com.example.lab1.service.SessionService;
+import com.example.lab1.service.UserImportService;
+import com.example.lab1.service.UserService;
+import com.example.lab1.utils.CaptchaUtil;
+import com.example.lab1.utils.LoginJournal;
+import com.example.lab1.utils.UserIdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(UserController.class)
+public class UserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private UserImportService userImportService;
+
+    @MockitoBean
+    private SessionService sessionService;
+
+    @MockitoBean
+    private LoginAuditService loginAuditService;
+
+    private UserResponse mockUserResponse;
+    private String mockToken;
+
+    @BeforeEach
+    void setUp() {
+        mockUserResponse = new UserResponse(1L, "testUser");
+        mockToken = "mock-jwt-token";
+    }
+
+    @Test
+    void registerUser_Success() throws Exception {
+        // 准备测试数据
+        NewUserRequest request = new NewUserRequest(
+                "testUser", "Pass123", "captcha-id", "123456");
+
+        // 模拟服务行为
+        when(userService.registerUser(any(NewUserRequest.class))).thenReturn(mockUserResponse);
+
+        // 执行测试
+        mockMvc.perform(post("/api/users/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("1"))
+                .andExpect(jsonPath("$.username").value("testUser"));
+    }
+
+    @Test
+    void getUserProfile_GeneratedId_RoundTripsAsString() throws Exception {
+        // 生成的主键超过 2^53，按 double 解析会丢失精度
+        long id = UserIdGenerator.nextId();
+        assertTrue(id > (1L << 53));
+        when(userService.getUserProfileByToken(mockToken)).thenReturn(new UserResponse(id, "testUser"));
+        when(loginAuditService.history(any(UserResponse.class), eq(id), eq(20))).thenReturn(List.of(
+                new LoginJournal.Event(1000L, LoginJournal.Type.LOGIN_SUCCESS, id, "testUser", "10.0.0.1")));
+
+        String profile = mockMvc.perform(get("/api/users/profile")
+                        .header("Authorization", "Bearer " + mockToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(Long.toString(id)))
+                .andReturn().getResponse().getContentAsString();
+        String returnedId = objectMapper.readTree(profile).get("id").asText();
+
+        // 客户端用返回的字符串原样拼出下一个请求
+        mockMvc.perform(get("/api/users/" + returnedId + "/login-history")
+                        .header("Authorization", "Bearer " + mockToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(Long.toString(id)))
+                .andExpect(jsonPath("$.events[0].userId").value(Long.toString(id)));
+        // 反序列化回 UserResponse 后数值不变
+        assertEquals(id, objectMapper.readValue(profile, UserResponse.class).id());
+    }
+
+    @Test
+    void loginUser_Success() throws Exception {
+        // 准备测试数据
+        LoginRequest request = new LoginRequest(
+                "testUser", "Pass123", "captcha-id", "123456");
+
+        // 模拟服务行为
+        when(userService.loginUser(any(LoginRequest.class), anyString())).thenReturn(mockToken);
+
+        // 执行测试
+        mockMvc.perform(post("/api/users/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value(mockToken))
+                .andExpect(jsonPath("$.message").value("登录成功"));
+    }
+
+    @Test
+    void getCaptcha_Success() throws Exception {
+        // 执行测试
+        mockMvc.perform(get("/api/users/captcha"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.captchaId").exists())
+                .andExpect(jsonPath("$.captchaImage").exists());
+    }
+
+    @Test
+    void getCaptchaImage_ReturnsPngWithIdHeader() throws Exception {
+        // 执行测试
+        byte[] png = mockMvc.perform(get("/api/users/captcha/image"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(header().exists("X-Captcha-Id"))
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // 验证结果：PNG 文件头
+        assertEquals((byte) 0x89, png[0]);
+        assertEquals('P', png[1]);
+        assertEquals('N', png[2]);
+        assertEquals('G', png[3]);
+    }
+
+    @Test
+    void validateToken_Valid() throws Exception {
+        // 模拟服务行为
+        when(userService.validateToken(anyString())).thenReturn(true);
+
+        // 执行测试
+        mockMvc.perform(get("/api/users/validate-token")
+                        .header("Authorization", "Bearer " + mockToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valid").value(true));
+    }
+
+    @Test
+    void validateToken_Invalid() throws Exception {
+        // 模拟服务行为
+        when(userService.validateToken(anyString())).thenReturn(false);
+
+        // 执行测试
+        mockMvc.perform(get("/api/users/validate-token")
+                        .header("Authorization", "Bearer invalid-token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valid").value(false));
+    }
+
+    @Test
+    void getUserProfile_Success() throws Exception {
+        // 模拟服务行为
+        when(userService.getUserProfileByToken(anyString())).thenReturn(mockUserResponse);
+
+        // 执行测试
+        mockMvc.perform(get("/api/users/profile")
+                        .header("Authorization", "Bearer " + mockToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("1"))
+                .andExpect(jsonPath("$.username").value("testUser"));
+    }
+
+    @Test
+    void importUsers_ReportsPerRecordFailures() throws Exception {
+        // 准备测试数据
+        List<ImportUserRequest> requests = List.of(
+                new ImportUserRequest("alice", "Pass123"),
+                new ImportUserRequest("bob", "Pass123"));
+
+        // 模拟服务行为：第二条用户名已存在
+        when(userImportService.importUsers(eq(mockToken), anyList())).thenReturn(new UserImportResult(2, 1,
+                List.of(new UserImportResult.Failure(1, "bob", "用户名已存在"))));
+
+        // 执行测试
+        mockMvc.perform(post("/api/users/register/batch")
+                        .header("Authorization", "Bearer " + mockToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failures[0].index").value(1))
+                .andExpect(jsonPath("$.failures[0].reason").value("用户名已存在"));
+    }
+
+    @Test
+    void logout_RevokesCurrentToken() throws Exception {
+        // 执行测试
+        mockMvc.perform(post("/api/users/logout")
+                        .header("Authorization", "Bearer " + mockToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("已退出登录"));
+
+        // 验证结果
+        verify(sessionService).logout(mockToken);
+    }
+
+    @Test
+    void getLoginHistory_ReturnsEventsForCaller() throws Exception {
+        // 模拟服务行为
+        when(userService.getUserProfileByToken(mockToken)).thenReturn(mockUserResponse);
+        when(loginAuditService.history(mockUserResponse, 1L, 5)).thenReturn(List.of(
+                new LoginJournal.Event(2000L, LoginJournal.Type.LOGIN_SUCCESS, 1L, "testUser", "10.0.0.1"),
+                new LoginJournal.Event(1000L, LoginJournal.Type.BAD_CREDENTIALS, 1L, "testUser", "10.0.0.1")));
+
+        // 执行测试
+        mockMvc.perform(get("/api/users/1/login-history")
+                        .header("Authorization", "Bearer " + mockToken)
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value("1"))
+                .andExpect(jsonPath("$.events[0].type").value("LOGIN_SUCCESS"))
+                .andExpect(jsonPath("$.events[1].type").value("BAD_CREDENTIALS"))
+                .andExpect(jsonPath("$.events[1].clientIp").value("10.0.0.1"));
+    }
+
+    @Test
+    void checkAvailability_ReturnsServiceResult() throws Exception {
+        // 模拟服务行为
+        when(userService.isUsernameAvailable("newUser")).thenReturn(true);
+
+        // 执行测试
+        mockMvc.perform(get("/api/users/availability").param("username", "newUser"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("newUser"))
+                .andExpect(jsonPath("$.available").value(true));
+    }
+
+    @Test
+    void loginUser_BadCredentials_ReturnsErrorBody() throws Exception {
+        // 准备测试数据
+        LoginRequest request = new LoginRequest("testUser", "wrong", "captcha-id", "123456");
+
+        // 模拟服务行为
+        when(userService.loginUser(any(LoginRequest.class), any())).thenThrow(BadRequestException.BAD_CREDENTIALS);
+
+        // 执行测试
+        mockMvc.perform(post("/api/users/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.error").value("用户名或密码错误"));
+    }
+
+    @Test
+    void registerUser_InvalidFields_ReturnsFieldErrors() throws Exception {
+        // 准备测试数据
+        NewUserRequest request = new NewUserRequest("ab", " ", null, "123456");
+
+        // 执行测试
+        mockMvc.perform(post("/api/users/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.username").value("用户名长度必须在3到50个字符之间"))
+                .andExpect(jsonPath("$.password").value("密码不能为空"))
+                .andExpect(jsonPath("$.captchaId").value("验证码ID不能为空"))
+                .andExpect(jsonPath("$.captchaText").doesNotExist());
+
+        // 验证结果
+        Mockito.verifyNoInteractions(userService);
+    }
 }
@@ -0,0 +1,75 @@
+package com.example.lab1.dto;
+
+import com.example.lab1.exception.ValidationFailedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestValidatorTest {
+
+    private static final List<String> VALUES = Arrays.asList(null, "", " ", "   \t", "ab", "abc", "Pass1", "Pass123",
+            "x".repeat(50), "x".repeat(51), "x".repeat(72), "x".repeat(73), "　　　");
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void newUserRequest_SameResultAsAnnotations() throws Exception {
+        for (String username : VALUES) {
+            for (String password : VALUES) {
+                NewUserRequest request = new NewUserRequest(username, password, "id", username);
+                assertSameErrors(validator.validate(request), () -> RequestValidator.validate(request));
+            }
+        }
+    }
+
+    @Test
+    void loginRequest_SameResultAsAnnotations() throws Exception {
+        for (String username : VALUES) {
+            for (String password : VALUES) {
+                LoginRequest request = new LoginRequest(username, password, null, null);
+                assertSameErrors(validator.validate(request), () -> RequestValidator.validate(request));
+            }
+        }
+    }
+
+    @Test
+    void failure_IsPreallocatedAndBodyMatchesJackson() throws Exception {
+        NewUserRequest request = new NewUserRequest("ab", "", null, "123456");
+        ValidationFailedException first = assertThrows(ValidationFailedException.class, () -> RequestValidator.validate(request));
+        ValidationFailedException second = assertThrows(ValidationFailedException.class, () -> RequestValidator.validate(request));
+
+        assertSame(first, second);
+        assertEquals(0, first.getStackTrace().length);
+        assertEquals(objectMapper.writeValueAsString(first.getErrors()), new String(first.getBody(), StandardCharsets.UTF_8));
+    }
+
+    // 字段集合相同；同一字段违反多条注解时（如空用户名同时不满足长度），取 @NotBlank 的信息
+    private <T> void assertSameErrors(Set<ConstraintViolation<T>> violations, Runnable validation) {
+        Map<String, String> expected = new HashMap<>();
+        for (ConstraintViolation<T> violation : violations) {
+            String field = violation.getPropertyPath().toString();
+            boolean notBlank = violation.getConstraintDescriptor().getAnnotation().annotationType().getSimpleName().equals("NotBlank");
+            if (notBlank || !expected.containsKey(field)) {
+                expected.put(field, violation.getMessage());
+            }
+        }
+        if (expected.isEmpty()) {
+            assertDoesNotThrow(validation::run);
+        } else {
+            ValidationFailedException ex = assertThrows(ValidationFailedException.class, validation::run);
+            assertEquals(expected, ex.getErrors());
+        }
+    }
+}
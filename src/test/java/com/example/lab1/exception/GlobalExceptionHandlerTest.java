@@ -0,0 +1,55 @@
+package com.example.lab1.exception;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler exceptionHandler = new GlobalExceptionHandler();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void handleBadRequestException_ReturnsBadRequestWithMessage() throws Exception {
+        BadRequestException ex = new BadRequestException("用户名已存在");
+        ResponseEntity<byte[]> response = exceptionHandler.handleBadRequestException(ex);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals(Map.of("error", "用户名已存在"), decode(response));
+    }
+
+    @Test
+    void handleValidationExceptions_ReturnsBadRequestWithFieldErrors() throws Exception {
+        MethodArgumentNotValidException ex = mock(MethodArgumentNotValidException.class);
+        BindingResult bindingResult = mock(BindingResult.class);
+        when(ex.getBindingResult()).thenReturn(bindingResult);
+        when(bindingResult.getFieldErrors()).thenReturn(List.of(
+                new FieldError("objectName", "username", "用户名不能为空"),
+                new FieldError("objectName", "password", "密码须包含\"字母\"和数字")));
+
+        ResponseEntity<byte[]> response = exceptionHandler.handleValidationExceptions(ex);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals(Map.of("username", "用户名不能为空", "password", "密码须包含\"字母\"和数字"), decode(response));
+    }
+
+    private Map<String, String> decode(ResponseEntity<byte[]> response) throws Exception {
+        return objectMapper.readValue(response.getBody(), new TypeReference<>() {
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.lab1.repository;
+
+import com.example.lab1.dto.LoginRequest;
+import com.example.lab1.dto.NewUserRequest;
+import com.example.lab1.entity.User;
+import com.example.lab1.service.UserService;
+import com.example.lab1.utils.CaptchaUtil;
+import com.example.lab1.utils.PasswordUtil;
+import com.example.lab1.utils.ReplicaDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 两个内存 H2 分别充当主库和只读副本，两者之间没有复制：写入只出现在主库，只读查询只看得到副本上的数据。
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadWriteRoutingTest.PRIMARY_URL,
+        "datasource.replica.urls=" + ReadWriteRoutingTest.REPLICA_URL,
+        "user.id.worker-id=1"})
+@ActiveProfiles("test")
+public class ReadWriteRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    // 副本上的表结构与主库相同，由测试自己建
+    @BeforeAll
+    static void createReplicaSchema() throws SQLException {
+        execute(REPLICA_URL, "create table if not exists users (id bigint primary key, "
+                + "username varchar(50) not null unique, password varchar(255) not null)");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        userRepository.deleteAll();
+        execute(REPLICA_URL, "delete from users");
+    }
+
+    @Test
+    void writesGoToPrimary_ReadsGoToReplica() throws SQLException {
+        userRepository.save(new User("written", "hash"));
+        execute(REPLICA_URL, "insert into users (id, username, password) values (1000, 'replicaOnly', 'hash')");
+
+        assertEquals(1, count(PRIMARY_URL, "written"));
+        assertEquals(0, count(REPLICA_URL, "written"));
+        // 查询方法是只读事务，读到的是副本
+        assertFalse(userRepository.existsByUsername("written"));
+        assertNotNull(userRepository.findByUsername("replicaOnly"));
+        assertNotNull(userRepository.findCredentialsByUsername("replicaOnly"));
+        // 强制走主库
+        assertTrue(ReplicaDataSource.onPrimary(() -> userRepository.existsByUsername("written")));
+    }
+
+    @Test
+    void registerThenLogin_ReadsOwnWrite() {
+        String captchaId = CaptchaUtil.storeCaptcha("123456");
+        userService.registerUser(new NewUserRequest("fresh", "Pass123", captchaId, "123456"));
+
+        // 副本上没有这一行，登录仍然成功
+        captchaId = CaptchaUtil.storeCaptcha("123456");
+        String token = userService.loginUser(new LoginRequest("fresh", "Pass123", captchaId, "123456"));
+
+        assertNotNull(token);
+        assertFalse(userRepository.existsByUsername("fresh"));
+    }
+
+    @Test
+    void loginAfterRegistrationOnAnotherNode_ReadsPrimary() throws SQLException {
+        // 其他节点注册的用户：只在主库上，本节点没有写入记录
+        execute(PRIMARY_URL, "insert into users (id, username, password) values (2000, 'remote', '"
+                + PasswordUtil.encryptPassword("Pass123") + "')");
+
+        String captchaId = CaptchaUtil.storeCaptcha("123456");
+        String token = userService.loginUser(new LoginRequest("remote", "Pass123", captchaId, "123456"));
+
+        assertNotNull(token);
+    }
+
+    private static void execute(String url, String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static int count(String url, String username) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select count(*) from users where username = '" + username + "'")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
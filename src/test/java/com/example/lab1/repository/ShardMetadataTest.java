@@ -0,0 +1,75 @@
+package com.example.lab1.repository;
+
+import com.example.lab1.repository.ShardMetadata.Phase;
+import com.example.lab1.repository.ShardMetadata.State;
+import com.example.lab1.utils.ShardLayout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 每个 ShardMetadata 代表一个节点，共用同一个内存 H2 作为元数据所在的分片。
+ */
+class ShardMetadataTest {
+
+    private static final Map<String, String> URLS = Map.of("shard-0", "db0", "shard-1", "db1", "shard-2", "db2");
+    private static final ShardLayout TWO = new ShardLayout(List.of("shard-0", "shard-1"));
+    private static final ShardLayout THREE = new ShardLayout(List.of("shard-0", "shard-1", "shard-2"));
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:shard-metadata;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+    private ShardMetadata node;
+
+    @BeforeEach
+    void setUp() {
+        node = open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        node.close();
+        new JdbcTemplate(dataSource).execute("delete from shard_layout");
+        new JdbcTemplate(dataSource).execute("delete from shard_nodes");
+    }
+
+    private ShardMetadata open() {
+        ShardMetadata metadata = new ShardMetadata(dataSource, URLS, 60_000);
+        metadata.createSchema();
+        metadata.start();
+        return metadata;
+    }
+
+    @Test
+    void resolve_PersistedLayoutWinsOverConfiguration() {
+        assertEquals(TWO.shards(), node.resolve(TWO).shards());
+
+        node.save(new State(THREE, Phase.IDLE, null, null));
+
+        // 迁移完成后重启，配置仍是旧布局
+        ShardMetadata restarted = open();
+        assertEquals(THREE.shards(), restarted.resolve(TWO).shards());
+        restarted.close();
+    }
+
+    @Test
+    void resolve_MigrationInProgress_OtherNodeRefusedUntilOwnerStops() {
+        node.save(new State(TWO, Phase.MIGRATING, THREE, node.nodeId()));
+        ShardMetadata other = open();
+        assertEquals(List.of(node.nodeId()), other.otherLiveNodes());
+
+        assertThrows(IllegalStateException.class, () -> other.resolve(TWO));
+
+        // 发起迁移的节点停止后，未切换的迁移作废
+        node.close();
+        assertEquals(TWO.shards(), other.resolve(THREE).shards());
+        assertEquals(Phase.IDLE, other.load().phase());
+        other.close();
+    }
+}
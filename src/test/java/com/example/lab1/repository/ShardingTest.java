@@ -0,0 +1,236 @@
+package com.example.lab1.repository;
+
+import com.example.lab1.dto.LoginRequest;
+import com.example.lab1.dto.NewUserRequest;
+import com.example.lab1.entity.User;
+import com.example.lab1.service.ReshardingService;
+import com.example.lab1.service.UserService;
+import com.example.lab1.utils.CaptchaUtil;
+import com.example.lab1.utils.ShardLayout;
+import com.example.lab1.utils.ShardRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 三个内存 H2 充当分片：当前布局为前两个，迁移目标为全部三个。
+ */
+@SpringBootTest(properties = {
+        "user.shards.urls=" + ShardingTest.SHARD_0 + "," + ShardingTest.SHARD_1,
+        "user.shards.next-urls=" + ShardingTest.SHARD_0 + "," + ShardingTest.SHARD_1 + "," + ShardingTest.SHARD_2,
+        "user.shards.batch-size=7",
+        "user.shards.settle-ms=0",
+        "user.id.worker-id=1"})
+@ActiveProfiles("test")
+public class ShardingTest {
+
+    static final String SHARD_0 = "jdbc:h2:mem:shard-0;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    static final String SHARD_1 = "jdbc:h2:mem:shard-1;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    static final String SHARD_2 = "jdbc:h2:mem:shard-2;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final List<String> URLS = List.of(SHARD_0, SHARD_1, SHARD_2);
+
+    private static final ShardLayout TWO = new ShardLayout(List.of("shard-0", "shard-1"));
+    private static final ShardLayout THREE = new ShardLayout(List.of("shard-0", "shard-1", "shard-2"));
+
+    @Autowired
+    private UserStore userStore;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ReshardingService reshardingService;
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        for (String url : URLS) {
+            execute(url, "delete from users");
+        }
+        execute(SHARD_0, "delete from shard_layout");
+        execute(SHARD_0, "delete from shard_nodes where node = 'other-node'");
+    }
+
+    @Test
+    void save_EachUserStoredOnlyOnItsShard() throws SQLException {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            users.add(new User("user" + i, "hash" + i));
+        }
+        userStore.saveAll(users.subList(0, 30));
+        for (User user : users.subList(30, 40)) {
+            userStore.save(user);
+        }
+
+        for (int i = 0; i < 40; i++) {
+            assertShard("user" + i, TWO);
+            assertTrue(userStore.existsByUsername("user" + i));
+            assertEquals("hash" + i, userStore.findCredentialsByUsername("user" + i).passwordHash());
+        }
+        assertEquals(40, userStore.count());
+        assertEquals(3, userStore.findExistingUsernames(List.of("user0", "user13", "user39", "nobody")).size());
+
+        // 跨分片按主键归并分页
+        List<UsernameRow> page = userStore.findUsernamesAfter(0, PageRequest.ofSize(25));
+        assertEquals(25, page.size());
+        for (int i = 1; i < page.size(); i++) {
+            assertTrue(page.get(i).id() > page.get(i - 1).id());
+        }
+        assertEquals(15, userStore.findUsernamesAfter(page.get(24).id(), PageRequest.ofSize(25)).size());
+    }
+
+    @Test
+    void registerThenLogin_OnShardedStorage() {
+        String captchaId = CaptchaUtil.storeCaptcha("123456");
+        userService.registerUser(new NewUserRequest("sharded", "Pass123", captchaId, "123456"));
+
+        captchaId = CaptchaUtil.storeCaptcha("123456");
+        String token = userService.loginUser(new LoginRequest("sharded", "Pass123", captchaId, "123456"));
+
+        assertNotNull(token);
+        assertFalse(userService.isUsernameAvailable("sharded"));
+    }
+
+    @Test
+    void dualWrite_MirrorsWritesToTargetShard() throws SQLException {
+        String username = movedUsername();
+        shardRouter.startMigration(THREE);
+        try {
+            User saved = userStore.save(new User(username, "old"));
+            assertEquals(1, count(SHARD_2, username));
+            assertEquals(1, count(urlOf(TWO.shardOf(username)), username));
+
+            assertEquals(1, userStore.updatePassword(saved.getId(), "old", "new"));
+            assertEquals("new", password(SHARD_2, username));
+            // 读取仍走原分片
+            assertEquals("new", userStore.findCredentialsByUsername(username).passwordHash());
+        } finally {
+            shardRouter.abortMigration();
+        }
+    }
+
+    @Test
+    @DirtiesContext
+    void reshard_MovesRowsToNewLayoutAndCleansUp() throws SQLException {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            users.add(new User("user" + i, "hash" + i));
+        }
+        userStore.saveAll(users);
+        long moving = users.stream().filter(u -> !TWO.shardOf(u.getUsername()).equals(THREE.shardOf(u.getUsername()))).count();
+        assertTrue(moving > 0);
+
+        Map<String, Object> status = reshardingService.reshard();
+
+        assertEquals("DONE", status.get("phase"));
+        assertEquals(moving, status.get("copied"));
+        assertEquals(moving, status.get("deleted"));
+        assertEquals(THREE.shards(), shardRouter.routing().current().shards());
+        assertNull(shardRouter.planned());
+        for (int i = 0; i < 60; i++) {
+            assertShard("user" + i, THREE);
+            assertEquals("hash" + i, userStore.findCredentialsByUsername("user" + i).passwordHash());
+        }
+        assertEquals(60, userStore.count());
+        // 新布局持久化在第一个分片上，重启后按它路由
+        assertEquals(SHARD_0 + "," + SHARD_1 + "," + SHARD_2 + " IDLE",
+                query(SHARD_0, "select concat(urls, ' ', phase) from shard_layout"));
+
+        // 切换后新写入直接进新分片
+        userStore.save(new User(movedUsername(), "hash"));
+        assertEquals(1, count(SHARD_2, movedUsername()));
+    }
+
+    @Test
+    void reshard_IdTakenOnTarget_AbortsAndKeepsSourceRow() throws SQLException {
+        String username = movedUsername();
+        User saved = userStore.save(new User(username, "hash"));
+        // 另一个节点号相同的节点生成了同一个主键
+        execute(SHARD_2, "insert into users (id, username, password) values (" + saved.getId() + ", 'other', 'x')");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> reshardingService.reshard());
+
+        assertTrue(e.getMessage().contains(username), e.getMessage());
+        assertEquals(TWO.shards(), shardRouter.routing().current().shards());
+        assertEquals(1, count(urlOf(TWO.shardOf(username)), username));
+        assertEquals("hash", userStore.findCredentialsByUsername(username).passwordHash());
+        assertEquals("x", password(SHARD_2, "other"));
+    }
+
+    @Test
+    void reshard_OtherNodeRunning_Refused() throws SQLException {
+        execute(SHARD_0, "insert into shard_nodes (node, heartbeat_at) values ('other-node', "
+                + System.currentTimeMillis() + ")");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> reshardingService.reshard());
+
+        assertTrue(e.getMessage().contains("other-node"), e.getMessage());
+        assertFalse(shardRouter.routing().migrating());
+        assertEquals(TWO.shards(), shardRouter.routing().current().shards());
+    }
+
+    // 在新布局中会迁到 shard-2 的用户名
+    private static String movedUsername() {
+        for (int i = 0; ; i++) {
+            if (THREE.shardOf("moved" + i).equals("shard-2")) {
+                return "moved" + i;
+            }
+        }
+    }
+
+    private static void assertShard(String username, ShardLayout layout) throws SQLException {
+        String expected = layout.shardOf(username);
+        for (int i = 0; i < URLS.size(); i++) {
+            assertEquals(expected.equals("shard-" + i) ? 1 : 0, count(URLS.get(i), username), username + " on shard-" + i);
+        }
+    }
+
+    private static String urlOf(String shard) {
+        return URLS.get(Integer.parseInt(shard.substring("shard-".length())));
+    }
+
+    private static void execute(String url, String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static int count(String url, String username) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select count(*) from users where username = '" + username + "'")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static String password(String url, String username) throws SQLException {
+        return query(url, "select password from users where username = '" + username + "'");
+    }
+
+    private static String query(String url, String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.lab1.repository;
+
+import com.example.lab1.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void findCredentialsByUsername_ReturnsIdAndHash() {
+        User saved = userRepository.saveAndFlush(new User("alice", "hash-a"));
+
+        UserCredentials credentials = userRepository.findCredentialsByUsername("alice");
+
+        assertEquals(saved.getId(), credentials.id());
+        assertEquals("hash-a", credentials.passwordHash());
+        assertNull(userRepository.findCredentialsByUsername("nobody"));
+    }
+
+    @Test
+    void save_DuplicateUsername_ViolatesUniqueConstraint() {
+        userRepository.saveAndFlush(new User("bob", "hash-1"));
+
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+                () -> userRepository.saveAndFlush(new User("bob", "hash-2")));
+        assertTrue(UserRepository.isUsernameConflict(e));
+    }
+
+    @Test
+    void save_UsernameTooLong_NotUsernameConflict() {
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+                () -> userRepository.saveAndFlush(new User("x".repeat(51), "hash")));
+        assertFalse(UserRepository.isUsernameConflict(e));
+    }
+}
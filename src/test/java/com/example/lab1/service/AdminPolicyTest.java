@@ -0,0 +1,34 @@
+package com.example.lab1.service;
+
+import com.example.lab1.utils.JWTUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdminPolicyTest {
+
+    private final AdminPolicy policy = new AdminPolicy(" admin , ops,,");
+
+    @Test
+    void isAdmin_TrimsAndIgnoresBlankEntries() {
+        assertTrue(policy.isAdmin("admin"));
+        assertTrue(policy.isAdmin("ops"));
+        assertFalse(policy.isAdmin(""));
+        assertFalse(policy.isAdmin(null));
+        assertFalse(new AdminPolicy("").isAdmin("admin"));
+    }
+
+    @Test
+    void requireAdmin_ChecksTokenThenList() {
+        assertEquals("ops", policy.requireAdmin(JWTUtil.generateToken("ops")));
+
+        ResponseStatusException forbidden = assertThrows(ResponseStatusException.class,
+                () -> policy.requireAdmin(JWTUtil.generateToken("someone")));
+        assertEquals(403, forbidden.getStatusCode().value());
+
+        ResponseStatusException invalid = assertThrows(ResponseStatusException.class,
+                () -> policy.requireAdmin("not-a-token"));
+        assertEquals(401, invalid.getStatusCode().value());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.lab1.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadYourWritesTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void markWritten_AtLimit_DropsExpiredFirst() {
+        ReadYourWrites writes = new ReadYourWrites(1000, 4, now::get);
+        writes.markWritten("a");
+        writes.markWritten("b");
+        now.addAndGet(500);
+        writes.markWritten("c");
+        writes.markWritten("d");
+        now.addAndGet(600);
+
+        writes.markWritten("e");
+
+        assertEquals(3, writes.size());
+        assertFalse(writes.isTracked("a"));
+        assertFalse(writes.isTracked("b"));
+        assertTrue(writes.isTracked("c"));
+        assertTrue(writes.isTracked("e"));
+    }
+
+    @Test
+    void markWritten_AtLimitWithinWindow_EvictsSoonestExpiring() {
+        ReadYourWrites writes = new ReadYourWrites(60_000, 8, now::get);
+        for (int i = 0; i < 100; i++) {
+            now.incrementAndGet();
+            writes.markWritten("user" + i);
+            assertTrue(writes.size() <= 8, "size " + writes.size());
+        }
+
+        // 最近的写入仍在窗口内，最早的已被丢弃
+        assertTrue(writes.isTracked("user99"));
+        assertTrue(writes.isTracked("user98"));
+        assertFalse(writes.isTracked("user0"));
+    }
+}
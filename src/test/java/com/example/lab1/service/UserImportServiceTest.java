@@ -0,0 +1,72 @@
+package com.example.lab1.service;
+
+import com.example.lab1.dto.ImportUserRequest;
+import com.example.lab1.dto.UserImportResult;
+import com.example.lab1.entity.User;
+import com.example.lab1.repository.UserRepository;
+import com.example.lab1.utils.JWTUtil;
+import com.example.lab1.utils.PasswordUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"admin.usernames=admin", "user.import.chunk-size=4"})
+@ActiveProfiles("test")
+public class UserImportServiceTest {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void importUsers_InsertsValidRecordsAndReportsFailures() {
+        userRepository.save(new User("existing", "hash"));
+
+        List<ImportUserRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requests.add(new ImportUserRequest("user" + i, "Pass123"));
+        }
+        requests.add(new ImportUserRequest("existing", "Pass123"));
+        requests.add(new ImportUserRequest("user3", "Pass123"));
+        requests.add(new ImportUserRequest("x", "Pass123"));
+
+        UserImportResult result = userImportService.importUsers(JWTUtil.generateToken("admin"), requests);
+
+        // 10 条成功；已存在、批内重复和校验失败各一条
+        assertEquals(13, result.total());
+        assertEquals(10, result.imported());
+        assertEquals(List.of(10, 11, 12), result.failures().stream().map(UserImportResult.Failure::index).toList());
+        assertEquals("用户名已存在", result.failures().get(0).reason());
+        assertEquals("用户名重复", result.failures().get(1).reason());
+        assertEquals("用户名长度必须在3到50个字符之间", result.failures().get(2).reason());
+
+        assertEquals(11, userRepository.count());
+        assertTrue(PasswordUtil.checkPassword("Pass123",
+                userRepository.findCredentialsByUsername("user7").passwordHash()));
+    }
+
+    @Test
+    void importUsers_NonAdmin_Forbidden() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userImportService.importUsers(JWTUtil.generateToken("someone"),
+                        List.of(new ImportUserRequest("user1", "Pass123"))));
+
+        assertEquals(403, exception.getStatusCode().value());
+        assertEquals(0, userRepository.count());
+    }
+}
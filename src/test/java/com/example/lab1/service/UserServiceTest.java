@@ -1,2 +1,483 @@
-package com.example.lab1.service;public class UserServiceTest {
+package com.example.lab1.service;
+
+import com.example.lab1.dto.LoginRequest;
+import com.example.lab1.dto.NewUserRequest;
+import com.example.lab1.dto.UserResponse;
+import com.example.lab1.entity.User;
+import com.example.lab1.exception.BadRequestException;
+import com.example.lab1.exception.ServiceBusyException;
+import com.example.lab1.exception.TooManyAttemptsException;
+import com.example.lab1.repository.UserCredentials;
+import com.example.lab1.repository.UserStore;
+import com.example.lab1.utils.CaptchaUtil;
+import com.example.lab1.utils.JWTUtil;
+import com.example.lab1.utils.LoginJournal;
+import com.example.lab1.utils.PasswordUtil;
+import com.example.lab1.utils.TokenBucketLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Spy;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserServiceTest {
+
+    @Mock
+    private UserStore userStore;
+
+    @Spy
+    private UserProfileCache profileCache = new UserProfileCache(100, 60, 30);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private UserServiceMetrics metrics = new UserServiceMetrics(meterRegistry);
+
+    @Spy
+    private LoginThrottle loginThrottle = new LoginThrottle(true,
+            new TokenBucketLimiter(3, 1, 2, 30_000, 600_000, 100, 60_000),
+            new TokenBucketLimiter(100, 60, 50, 30_000, 600_000, 100, 60_000));
+
+    // 默认 mightContain 返回 false：视为新用户名
+    @Mock
+    private UsernameIndex usernameIndex;
+
+    @Spy
+    private ReadYourWrites readYourWrites = new ReadYourWrites(5000, 100);
+
+    @Mock
+    private LoginAuditService loginAudit;
+
+    @InjectMocks
+    private UserService userService;
+
+    private User testUser;
+    private UserCredentials testCredentials;
+    private NewUserRequest registerRequest;
+    private LoginRequest loginRequest;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User("testUser", "encodedPassword");
+        testUser.setId(1L);
+        testCredentials = new UserCredentials(1L, "encodedPassword");
+
+        registerRequest = new NewUserRequest(
+                "testUser", "Pass123", "captcha-id", "123456");
+
+        loginRequest = new LoginRequest(
+                "testUser", "Pass123", "captcha-id", "123456");
+    }
+
+    @Test
+    void registerUser_Success() {
+        // 模拟验证码验证和密码加密
+        try (MockedStatic<CaptchaUtil> captchaUtil = Mockito.mockStatic(CaptchaUtil.class);
+             MockedStatic<PasswordUtil> passwordUtil = Mockito.mockStatic(PasswordUtil.class)) {
+
+            captchaUtil.when(() -> CaptchaUtil.validateCaptcha(anyString(), anyString())).thenReturn(true);
+            passwordUtil.when(() -> PasswordUtil.encryptPassword(anyString())).thenReturn("encodedPassword");
+
+            when(userStore.save(any(User.class))).thenReturn(testUser);
+
+            // 执行测试
+            UserResponse response = userService.registerUser(registerRequest);
+
+            // 验证结果
+            assertNotNull(response);
+            assertEquals(1L, response.id());
+            assertEquals("testUser", response.username());
+
+            // 验证方法调用
+            verify(userStore).save(any(User.class));
+            verify(userStore, never()).existsByUsername(anyString());
+            verify(loginAudit).registered(1L, "testUser");
+        }
+    }
+
+    @Test
+    void registerUser_InvalidCaptcha() {
+        // 模拟验证码验证失败
+        try (MockedStatic<CaptchaUtil> captchaUtil = Mockito.mockStatic(CaptchaUtil.class)) {
+            captchaUtil.when(() -> CaptchaUtil.validateCaptcha(anyString(), anyString())).thenReturn(false);
+
+            // 执行测试并验证异常
+            BadRequestException exception = assertThrows(BadRequestException.class,
+                    () -> userService.registerUser(registerRequest));
+
+            assertEquals("验证码错误", exception.getMessage());
+
+            // 验证存储库方法未被调用
+            verify(userStore, never()).existsByUsername(anyString());
+            verify(userStore, never()).save(any(User.class));
+        }
+    }
+
+    @Test
+    void registerUser_UsernameExists() {
+        // 模拟验证码验证成功但插入时违反用户名唯一约束
+        try (MockedStatic<CaptchaUtil> captchaUtil = Mockito.mockStatic(CaptchaUtil.class);
+             MockedStatic<PasswordUtil> passwordUtil = Mockito.mockStatic(PasswordUtil.class)) {
+            captchaUtil.when(() -> CaptchaUtil.validateCaptcha(anyString(), anyString())).thenReturn(true);
+            passwordUtil.when(() -> PasswordUtil.encryptPassword(anyString())).thenReturn("encodedPassword");
+            when(userStore.save(any(User.class)))
+                    .thenThrow(new DataIntegrityViolationException("uk_users_username"));
+
+            // 执行测试并验证异常
+            BadRequestException exception = assertThrows(BadRequestException.class,
+                    () -> userService.registerUser(registerRequest));
+
+            assertEquals("用户名已存在", exception.getMessage());
+
+            // 验证方法调用：索引判定为新用户名，只有一次插入，不预先查询；冲突的用户名加入索引
+            verify(userStore).save(any(User.class));
+            verify(userStore, never()).existsByUsername(anyString());
+            verify(usernameIndex).add("testUser");
+        }
+    }
+
+    @Test
+    void registerUser_OtherConstraintViolation_Rethrown() {
+        // 主键冲突等其他约束不是用户名已存在，原样抛出
+        try (MockedStatic<CaptchaUtil> captchaUtil = Mockito.mockStatic(CaptchaUtil.class);
+             MockedStatic<PasswordUtil> passwordUtil = Mockito.mockStatic(PasswordUtil.class)) {
+            captchaUtil.when(() -> CaptchaUtil.validateCaptcha(anyString(), anyString())).thenReturn(true);
+            passwordUtil.when(() -> PasswordUtil.encryptPassword(anyString())).thenReturn("encodedPassword");
+            when(userStore.save(any(User.class)))
+                    .thenThrow(new DataIntegrityViolationException("Unique index or primary key violation: PUBLIC.PRIMARY_KEY_4"));
+
+            assertThrows(DataIntegrityViolationException.class, () -> userService.registerUser(registerRequest));
+
+            verify(usernameIndex, never()).add(anyString());
+        }
+    }
+
+    @Test
+    void loginUser_Success() {
+        // 模拟验证码验证、用户查找、密码检查和令牌生成
+        try (MockedStatic<CaptchaUtil> captchaUtil = Mockito.mockStatic(CaptchaUtil.class);
+             MockedStatic<PasswordUtil> passwordUtil = Mockito.mockStatic(PasswordUtil.class);
+             MockedStatic<JWTUtil> jwtUtil = Mockito.mockStatic(JWTUtil.class)) {
+
+            captchaUtil.when(() -> CaptchaUtil.validateCaptcha(anyString(), anyString())).thenReturn(true);
+            passwordUtil.when(() -> PasswordUtil.checkPassword(anyString(), anyString())).thenReturn(true);
+            jwtUtil.when(() -> JWTUtil.generateToken(anyString())).thenReturn("mock-jwt-token");
+
+            when(userStore.findCredentialsByUsername(anyString())).thenReturn(testCredentials);
+
+            // 执行测试
+            String token = userService.loginUser(loginRequest);
+
+            // 验证结果
+            assertEquals("mock-jwt-token", token);
+            for (String stage : new String[]{"captcha", "lookup", "password", "token"}) {
+                assertEquals(1, meterRegistry.get("user.stage").tag("operation", "login").tag("stage", stage).timer().count());
+            }
+
+            // 验证方法调用
+            verify(userStore).findCredentialsByUsername("testUser");
+            verify(loginAudit).loginSucceeded(1L, "testUser", null);
+        }
+    }
+
+    @Test
+    void loginUser_OutdatedCost_RehashesInBackground() {
+        // 模拟存量哈希的 cost 与当前配置不同
+        try (MockedStatic<CaptchaUtil> captchaUtil = Mockito.mockStatic(CaptchaUtil.class);
+             MockedStatic<PasswordUtil> passwordUtil = Mockito.mockStatic(PasswordUtil.class);
+             MockedStatic<JWTUtil> jwtUtil = Mockito.mockStatic(JWTUtil.class)) {
+
+            captchaUtil.when(() -> CaptchaUtil.validateCaptcha(anyString(), anyString())).thenReturn(true);
+            passwordUtil.when(() -> PasswordUtil.checkPassword(anyString(), anyString())).thenReturn(true);
+            passwordUtil.when(() -> PasswordUtil.needsRehash("encodedPassword")).thenReturn(true);
+            passwordUtil.when(() -> PasswordUtil.rehashInBackground(eq("Pass123"), any()))
+                    .thenAnswer(invocation -> {
+                        Consumer<String> onHashed = invocation.getArgument(1);
+                        onHashed.accept("rehashedPassword");
+                        return null;
+                    });
+            jwtUtil.when(() -> JWTUtil.generateToken(anyString())).thenReturn("mock-jwt-token");
+
+            when(userStore.findCredentialsByUsername(anyString())).thenReturn(testCredentials);
+
+            // 执行测试
+            String token = userService.loginUser(loginRequest);
+
+            // 验证结果：只有旧哈希未被并发修改时才更新
+            assertEquals("mock-jwt-token", token);
+            verify(userStore).updatePassword(1L, "encodedPassword", "rehashedPassword");
+        }
+    }
+
+    @Test
+    void loginUser_InvalidCaptcha() {
+        // 模拟验证码验证失败
+        try (MockedStatic<CaptchaUtil> captchaUtil = Mockito.mockStatic(CaptchaUtil.class)) {
+            captchaUtil.when(() -> CaptchaUtil.validateCaptcha(anyString(), anyString())).thenReturn(false);
+
+            // 执行测试并验证异常
+            BadRequestException exception = assertThrows(BadRequestException.class,
+                    () -> userService.loginUser(loginRequest));
+
+            assertEquals("验证码错误", exception.getMessage());
+
+            // 验证存储库方法未被调用
+            verify(userStore, never()).findCredentialsByUsername(anyString());
+            verify(loginAudit).loginFailed(LoginJournal.Type.CAPTCHA_INVALID, null, "testUser", null);
+        }
+    }
+
+    @Test
+    void loginUser_InvalidCredentials() {
+        // 模拟验证码验证成功但用户名或密码错误
+        try (MockedStatic<CaptchaUtil> captchaUtil = Mockito.mockStatic(CaptchaUtil.class);
+             MockedStatic<PasswordUtil> passwordUtil = Mockito.mockStatic(PasswordUtil.class)) {
+
+            captchaUtil.when(() -> CaptchaUtil.validateCaptcha(anyString(), anyString())).thenReturn(true);
+            passwordUtil.when(() -> PasswordUtil.checkPassword(anyString(), anyString())).thenReturn(false);
+
+            when(userStore.findCredentialsByUsername(anyString())).thenReturn(testCredentials);
+
+            // 执行测试并验证异常
+            BadRequestException exception = assertThrows(BadRequestException.class,
+                    () -> userService.loginUser(loginRequest));
+
+            assertEquals("用户名或密码错误", exception.getMessage());
+            assertEquals(1.0, meterRegistry.get("user.failures").tag("reason", "bad_credentials").counter().count());
+
+            // 验证方法调用
+            verify(userStore).findCredentialsByUsername("testUser");
+            verify(loginAudit).loginFailed(LoginJournal.Type.BAD_CREDENTIALS, 1L, "testUser", null);
+            verify(loginAudit, never()).loginSucceeded(any(), anyString(), any());
+        }
+    }
+
+    @Test
+    void loginUser_HashPoolBusy_Audited() {
+        // 模拟密码校验排队超时
+        try (MockedStatic<CaptchaUtil> captchaUtil = Mockito.mockStatic(CaptchaUtil.class);
+             MockedStatic<PasswordUtil> passwordUtil = Mockito.mockStatic(PasswordUtil.class)) {
+
+            captchaUtil.when(() -> CaptchaUtil.validateCaptcha(anyString(), anyString())).thenReturn(true);
+            passwordUtil.when(() -> PasswordUtil.checkPassword(anyString(), anyString()))
+                    .thenThrow(ServiceBusyException.BUSY);
+
+            when(userStore.findCredentialsByUsername(anyString())).thenReturn(testCredentials);
+
+            // 执行测试并验证异常
+            assertThrows(ServiceBusyException.class, () -> userService.loginUser(loginRequest));
+
+            // 验证审计记录，且不计入限流
+            verify(loginAudit).loginFailed(LoginJournal.Type.BUSY, 1L, "testUser", null);
+            verify(loginThrottle, never()).recordFailure(anyString(), any());
+        }
+    }
+
+    @Test
+    void validateToken_Valid() {
+        // 模拟JWT验证
+        try (MockedStatic<JWTUtil> jwtUtil = Mockito.mockStatic(JWTUtil.class)) {
+            jwtUtil.when(() -> JWTUtil.validateToken(anyString())).thenReturn(true);
+
+            // 执行测试
+            boolean result = userService.validateToken("mock-jwt-token");
+
+            // 验证结果
+            assertTrue(result);
+            verify(metrics, never()).failure(any());
+        }
+    }
+
+    @Test
+    void validateToken_Invalid() {
+        // 模拟JWT验证失败
+        try (MockedStatic<JWTUtil> jwtUtil = Mockito.mockStatic(JWTUtil.class)) {
+            jwtUtil.when(() -> JWTUtil.validateToken(anyString())).thenThrow(new RuntimeException("Invalid token"));
+
+            // 执行测试
+            boolean result = userService.validateToken("invalid-token");
+
+            // 验证结果：计入无效 token 失败
+            assertFalse(result);
+            verify(metrics).failure(UserServiceMetrics.Failure.INVALID_TOKEN);
+        }
+    }
+
+    @Test
+    void getUserProfileByToken_Success() {
+        // 模拟JWT解析和用户查找
+        try (MockedStatic<JWTUtil> jwtUtil = Mockito.mockStatic(JWTUtil.class)) {
+            jwtUtil.when(() -> JWTUtil.getUsernameFromToken(anyString())).thenReturn("testUser");
+            when(userStore.findCredentialsByUsername(anyString())).thenReturn(testCredentials);
+
+            // 执行测试
+            UserResponse response = userService.getUserProfileByToken("mock-jwt-token");
+
+            // 验证结果
+            assertNotNull(response);
+            assertEquals(1L, response.id());
+            assertEquals("testUser", response.username());
+
+            // 验证方法调用
+            verify(userStore).findCredentialsByUsername("testUser");
+        }
+    }
+
+    @Test
+    void getUserProfileByToken_UserNotFound() {
+        // 模拟JWT解析成功但用户不存在
+        try (MockedStatic<JWTUtil> jwtUtil = Mockito.mockStatic(JWTUtil.class)) {
+            jwtUtil.when(() -> JWTUtil.getUsernameFromToken(anyString())).thenReturn("testUser");
+            when(userStore.findCredentialsByUsername(anyString())).thenReturn(null);
+
+            // 执行测试并验证异常
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                    () -> userService.getUserProfileByToken("mock-jwt-token"));
+
+            assertEquals("404 NOT_FOUND \"用户不存在\"", exception.getMessage());
+
+            // 验证方法调用
+            verify(userStore).findCredentialsByUsername("testUser");
+        }
+    }
+
+    @Test
+    void getUserProfileByToken_SecondCall_ServedFromCache() {
+        // 模拟JWT解析和用户查找
+        try (MockedStatic<JWTUtil> jwtUtil = Mockito.mockStatic(JWTUtil.class)) {
+            jwtUtil.when(() -> JWTUtil.getUsernameFromToken(anyString())).thenReturn("testUser");
+            when(userStore.findCredentialsByUsername(anyString())).thenReturn(testCredentials);
+
+            // 执行测试
+            userService.getUserProfileByToken("mock-jwt-token");
+            UserResponse response = userService.getUserProfileByToken("mock-jwt-token");
+
+            // 验证结果：只查询一次数据库
+            assertEquals(1L, response.id());
+            verify(userStore, times(1)).findCredentialsByUsername("testUser");
+        }
+    }
+
+    @Test
+    void getUserProfileByToken_UnknownUser_NegativeCached() {
+        try (MockedStatic<JWTUtil> jwtUtil = Mockito.mockStatic(JWTUtil.class)) {
+            jwtUtil.when(() -> JWTUtil.getUsernameFromToken(anyString())).thenReturn("ghost");
+            when(userStore.findCredentialsByUsername(anyString())).thenReturn(null);
+
+            // 执行测试：两次都返回 404，但只查询一次数据库
+            assertThrows(ResponseStatusException.class, () -> userService.getUserProfileByToken("mock-jwt-token"));
+            assertThrows(ResponseStatusException.class, () -> userService.getUserProfileByToken("mock-jwt-token"));
+
+            verify(userStore, times(1)).findCredentialsByUsername("ghost");
+        }
+    }
+
+    @Test
+    void registerUser_ReplacesNegativeCacheEntry() {
+        // 之前查询过不存在的用户名，注册后应能直接从缓存读到
+        profileCache.putMissing("testUser");
+        try (MockedStatic<CaptchaUtil> captchaUtil = Mockito.mockStatic(CaptchaUtil.class);
+             MockedStatic<PasswordUtil> passwordUtil = Mockito.mockStatic(PasswordUtil.class);
+             MockedStatic<JWTUtil> jwtUtil = Mockito.mockStatic(JWTUtil.class)) {
+
+            captchaUtil.when(() -> CaptchaUtil.validateCaptcha(anyString(), anyString())).thenReturn(true);
+            passwordUtil.when(() -> PasswordUtil.encryptPassword(anyString())).thenReturn("encodedPassword");
+            jwtUtil.when(() -> JWTUtil.getUsernameFromToken(anyString())).thenReturn("testUser");
+            when(userStore.save(any(User.class))).thenReturn(testUser);
+
+            userService.registerUser(registerRequest);
+            UserResponse response = userService.getUserProfileByToken("mock-jwt-token");
+
+            assertEquals(1L, response.id());
+            verify(userStore, never()).findCredentialsByUsername(anyString());
+        }
+    }
+
+    @Test
+    void getUserProfileByToken_InvalidToken() {
+        // 模拟JWT解析失败
+        try (MockedStatic<JWTUtil> jwtUtil = Mockito.mockStatic(JWTUtil.class)) {
+            jwtUtil.when(() -> JWTUtil.getUsernameFromToken(anyString())).thenThrow(new RuntimeException("Invalid token"));
+
+            // 执行测试并验证异常
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                    () -> userService.getUserProfileByToken("invalid-token"));
+
+            assertEquals("401 UNAUTHORIZED \"无效的Token\"", exception.getMessage());
+            assertEquals(1.0, meterRegistry.get("user.failures").tag("reason", "invalid_token").counter().count());
+
+            // 验证存储库方法未被调用
+            verify(userStore, never()).findCredentialsByUsername(anyString());
+        }
+    }
+
+    @Test
+    void loginUser_RepeatedBadPasswords_ThrottledBeforeCaptcha() {
+        // 连续两次密码错误后锁定，第三次在校验验证码之前就被拒绝
+        try (MockedStatic<CaptchaUtil> captchaUtil = Mockito.mockStatic(CaptchaUtil.class);
+             MockedStatic<PasswordUtil> passwordUtil = Mockito.mockStatic(PasswordUtil.class)) {
+
+            captchaUtil.when(() -> CaptchaUtil.validateCaptcha(anyString(), anyString())).thenReturn(true);
+            passwordUtil.when(() -> PasswordUtil.checkPassword(anyString(), anyString())).thenReturn(false);
+            when(userStore.findCredentialsByUsername(anyString())).thenReturn(testCredentials);
+
+            assertThrows(BadRequestException.class, () -> userService.loginUser(loginRequest, "10.0.0.1"));
+            assertThrows(BadRequestException.class, () -> userService.loginUser(loginRequest, "10.0.0.1"));
+            TooManyAttemptsException exception = assertThrows(TooManyAttemptsException.class,
+                    () -> userService.loginUser(loginRequest, "10.0.0.2"));
+
+            assertEquals("尝试次数过多，请稍后再试", exception.getMessage());
+            assertTrue(exception.getRetryAfterSeconds() > 0);
+            assertEquals(1.0, meterRegistry.get("user.failures").tag("reason", "throttled").counter().count());
+            captchaUtil.verify(() -> CaptchaUtil.validateCaptcha(anyString(), anyString()), times(2));
+            passwordUtil.verify(() -> PasswordUtil.checkPassword(anyString(), anyString()), times(2));
+        }
+    }
+
+    @Test
+    void registerUser_IndexHit_TakenNameRejectedBeforeHashing() {
+        try (MockedStatic<CaptchaUtil> captchaUtil = Mockito.mockStatic(CaptchaUtil.class);
+             MockedStatic<PasswordUtil> passwordUtil = Mockito.mockStatic(PasswordUtil.class)) {
+            captchaUtil.when(() -> CaptchaUtil.validateCaptcha(anyString(), anyString())).thenReturn(true);
+            when(usernameIndex.mightContain("testUser")).thenReturn(true);
+            when(userStore.existsByUsername("testUser")).thenReturn(true);
+
+            BadRequestException exception = assertThrows(BadRequestException.class,
+                    () -> userService.registerUser(registerRequest));
+
+            // 查库确认已占用后直接返回，不做 bcrypt，也不插入
+            assertEquals("用户名已存在", exception.getMessage());
+            passwordUtil.verify(() -> PasswordUtil.encryptPassword(anyString()), never());
+            verify(userStore, never()).save(any(User.class));
+        }
+    }
+
+    @Test
+    void isUsernameAvailable_OnlyIndexHitsQueryDatabase() {
+        when(usernameIndex.mightContain("newUser")).thenReturn(false);
+        when(usernameIndex.mightContain("testUser")).thenReturn(true);
+        when(userStore.existsByUsername("testUser")).thenReturn(true);
+
+        assertTrue(userService.isUsernameAvailable("newUser"));
+        assertFalse(userService.isUsernameAvailable("testUser"));
+
+        verify(userStore, never()).existsByUsername("newUser");
+        verify(userStore, times(1)).existsByUsername("testUser");
+    }
 }
@@ -0,0 +1,89 @@
+package com.example.lab1.service;
+
+import com.example.lab1.repository.UserStore;
+import com.example.lab1.repository.UsernameRow;
+import com.example.lab1.utils.UserIdGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UsernameIndexTest {
+
+    private final UserStore userStore = mock(UserStore.class);
+    private final UsernameIndex index = new UsernameIndex(userStore, 1000, 0.01, 2, 0);
+
+    @Test
+    void mightContain_TrueUntilLoaded() {
+        assertFalse(index.isLoaded());
+        assertTrue(index.mightContain("anyone"));
+    }
+
+    @Test
+    void rebuild_LoadsAllPagesByKeyset() {
+        when(userStore.count()).thenReturn(3L);
+        when(userStore.findUsernamesAfter(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(new UsernameRow(1L, "alice"), new UsernameRow(5L, "Bob")));
+        when(userStore.findUsernamesAfter(eq(5L), any(Pageable.class)))
+                .thenReturn(List.of(new UsernameRow(9L, "carol")));
+
+        index.rebuild();
+
+        assertTrue(index.isLoaded());
+        assertTrue(index.mightContain("alice"));
+        assertTrue(index.mightContain("carol"));
+        // 不区分大小写
+        assertTrue(index.mightContain("bob"));
+        assertTrue(index.mightContain("ALICE"));
+        assertFalse(index.mightContain("dave"));
+        // 最后一页不满一批时结束
+        verify(userStore, times(2)).findUsernamesAfter(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void add_DuringRebuildIsKeptAfterSwitch() {
+        when(userStore.count()).thenReturn(0L);
+        when(userStore.findUsernamesAfter(eq(0L), any(Pageable.class))).thenAnswer(invocation -> {
+            // 模拟重建过程中本节点注册了新用户
+            index.add("dave");
+            return List.of();
+        });
+
+        index.rebuild();
+
+        assertTrue(index.mightContain("dave"));
+        assertFalse(index.mightContain("erin"));
+    }
+
+    @Test
+    void tail_AddsUsersRegisteredWithinLookback() {
+        UsernameIndex tailing = new UsernameIndex(userStore, 1000, 0.01, 2, 0, 2000, 60);
+        long now = System.currentTimeMillis();
+        long afterId = UserIdGenerator.firstIdAt(now - 60_000) - 1;
+        when(userStore.count()).thenReturn(0L);
+        when(userStore.findUsernamesAfter(eq(0L), any(Pageable.class))).thenReturn(List.of());
+        when(userStore.findUsernamesAfter(eq(afterId), any(Pageable.class)))
+                .thenReturn(List.of(new UsernameRow(afterId + 10, "frank"), new UsernameRow(afterId + 20, "grace")));
+        when(userStore.findUsernamesAfter(eq(afterId + 20), any(Pageable.class)))
+                .thenReturn(List.of(new UsernameRow(afterId + 30, "heidi")));
+
+        // 过滤器建好之前不查库
+        tailing.tail(now);
+        verify(userStore, never()).findUsernamesAfter(eq(afterId), any(Pageable.class));
+
+        tailing.rebuild();
+        assertFalse(tailing.mightContain("frank"));
+
+        // 其他节点注册的用户名不必等下次重建
+        tailing.tail(now);
+        assertTrue(tailing.mightContain("frank"));
+        assertTrue(tailing.mightContain("grace"));
+        assertTrue(tailing.mightContain("heidi"));
+        assertFalse(tailing.mightContain("ivan"));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.lab1.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BcryptCostCalibratorTest {
+
+    @AfterEach
+    void tearDown() {
+        PasswordUtil.setLogRounds(10);
+    }
+
+    @Test
+    void calibrate_GenerousTarget_ReturnsMaxCost() {
+        int cost = new BcryptCostCalibrator(60_000, 4, 6).calibrate();
+
+        assertEquals(6, cost);
+    }
+
+    @Test
+    void calibrate_UnreachableTarget_ReturnsMinCost() {
+        int cost = new BcryptCostCalibrator(0, 4, 6).calibrate();
+
+        assertEquals(4, cost);
+    }
+
+    @Test
+    void needsRehash_OnlyLowerCost_ReturnsTrue() {
+        PasswordUtil.setLogRounds(5);
+        String hash = PasswordUtil.encryptPassword("Test123");
+        assertTrue(hash.startsWith("$2a$05$"));
+        assertFalse(PasswordUtil.needsRehash(hash));
+
+        PasswordUtil.setLogRounds(6);
+        assertTrue(PasswordUtil.needsRehash(hash));
+
+        // 更强的哈希不降级
+        PasswordUtil.setLogRounds(4);
+        assertFalse(PasswordUtil.needsRehash(hash));
+        assertFalse(PasswordUtil.needsRehash("not-a-bcrypt-hash"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.lab1.utils;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptchaPoolTest {
+
+    @Test
+    void take_AfterRefill_ReturnsPreRenderedCaptcha() throws Exception {
+        // 准备测试数据
+        CaptchaPool pool = new CaptchaPool(4, 40, CaptchaPool.Fallback.RENDER, 0);
+        pool.refill();
+
+        // 执行测试
+        CaptchaUtil.RenderedCaptcha captcha = pool.take();
+
+        // 验证结果
+        assertTrue(captcha.text().matches("\\d{6}"));
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(captcha.png()));
+        assertEquals(120, image.getWidth());
+        assertEquals(40, image.getHeight());
+        assertEquals(1, pool.getHits());
+        assertEquals(3, pool.available());
+    }
+
+    @Test
+    void refill_NeverExceedsPoolSize() {
+        CaptchaPool pool = new CaptchaPool(2, 1000, CaptchaPool.Fallback.RENDER, 0);
+
+        pool.refill();
+        pool.refill();
+
+        assertEquals(2, pool.available());
+    }
+
+    @Test
+    void take_EmptyPool_FallsBackToInlineRender() {
+        CaptchaPool pool = new CaptchaPool(2, 10, CaptchaPool.Fallback.BLOCK, 10);
+
+        CaptchaUtil.RenderedCaptcha captcha = pool.take();
+
+        assertNotNull(captcha);
+        assertEquals(1, pool.getMisses());
+        assertEquals(0, pool.getHits());
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.lab1.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptchaTestHookTest {
+
+    @Test
+    void peek_ReturnsAnswerUntilValidated() {
+        InMemoryCaptchaStore delegate = new InMemoryCaptchaStore(100, 60_000, 1000);
+        CaptchaTestHook hook = new CaptchaTestHook(delegate, 100, 60_000);
+
+        String captchaId = hook.store().store("123456");
+
+        // 读取答案不消费验证码
+        assertEquals("123456", hook.peek(captchaId));
+        assertEquals("123456", hook.peek(captchaId));
+        assertTrue(hook.store().validate(captchaId, "123456"));
+        assertNull(hook.peek(captchaId));
+    }
+
+    @Test
+    void store_OverCapacity_DropsOldestAnswer() {
+        CaptchaTestHook hook = new CaptchaTestHook(new InMemoryCaptchaStore(100, 60_000, 1000), 1, 60_000);
+
+        String first = hook.store().store("111111");
+        String second = hook.store().store("222222");
+
+        assertNull(hook.peek(first));
+        assertEquals("222222", hook.peek(second));
+        // 丢弃的答案不影响验证码本身
+        assertTrue(hook.store().validate(first, "111111"));
+    }
+
+    @Test
+    void store_UnsubmittedCaptchasExpire_NewAnswersStillRecorded() {
+        AtomicLong now = new AtomicLong();
+        CaptchaTestHook hook = new CaptchaTestHook(new InMemoryCaptchaStore(100, 60_000, 1000), 2, 1000, now::get);
+
+        // 取了验证码但从不提交
+        String abandoned = hook.store().store("111111");
+        hook.store().store("222222");
+        now.set(1000);
+        assertNull(hook.peek(abandoned));
+
+        for (int i = 0; i < 10; i++) {
+            String captchaId = hook.store().store("33333" + i);
+            assertEquals("33333" + i, hook.peek(captchaId));
+            now.addAndGet(100);
+        }
+    }
+}
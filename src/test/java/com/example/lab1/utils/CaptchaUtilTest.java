@@ -0,0 +1,84 @@
+package com.example.lab1.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptchaUtilTest {
+
+    @AfterEach
+    void tearDown() {
+        CaptchaUtil.setCaptchaRenderer(new GlyphAtlasCaptchaRenderer());
+    }
+
+    @Test
+    void generateCaptcha_AtlasRenderer_SixDigitsOn120x40() {
+        CaptchaUtil.setCaptchaRenderer(new GlyphAtlasCaptchaRenderer());
+        assertCaptchaShape(CaptchaUtil.generateCaptcha());
+    }
+
+    @Test
+    void generateCaptcha_Graphics2DRenderer_SixDigitsOn120x40() {
+        CaptchaUtil.setCaptchaRenderer(new Graphics2DCaptchaRenderer());
+        assertCaptchaShape(CaptchaUtil.generateCaptcha());
+    }
+
+    @Test
+    void renderCaptcha_ReusedCanvas_ProducesFreshImages() throws IOException {
+        CaptchaUtil.RenderedCaptcha first = CaptchaUtil.renderCaptcha();
+        CaptchaUtil.RenderedCaptcha second = CaptchaUtil.renderCaptcha();
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(second.png()));
+        assertEquals(120, decoded.getWidth());
+        assertEquals(40, decoded.getHeight());
+        // 随机干扰和噪点不会让两张图片完全相同
+        assertFalse(Arrays.equals(first.png(), second.png()));
+    }
+
+    @Test
+    void atlasRenderer_DrawsGlyphsInDigitArea() {
+        GlyphAtlasCaptchaRenderer renderer = new GlyphAtlasCaptchaRenderer();
+        assertEquals(81, renderer.variantCount());
+
+        BufferedImage image = new BufferedImage(120, 40, BufferedImage.TYPE_INT_RGB);
+        renderer.render("888888", image, new Random(42));
+
+        // 每个数字所在的列都应该有成片的深色像素（字形颜色各通道都小于 120，干扰线各通道不小于 150）；
+        // 60 个随机噪点中各通道都小于 120 的平均只有 6 个左右，凑不够一个字形的像素数
+        int[] inkPerColumn = new int[7];
+        for (int x = 0; x < 120; x++) {
+            for (int y = 0; y < 40; y++) {
+                int rgb = image.getRGB(x, y) & 0xFFFFFF;
+                if (((rgb >> 16) & 0xFF) < 120 && ((rgb >> 8) & 0xFF) < 120 && (rgb & 0xFF) < 120) {
+                    inkPerColumn[x / 18]++;
+                }
+            }
+        }
+        for (int i = 0; i < 6; i++) {
+            assertTrue(inkPerColumn[i] >= 20, "第 " + i + " 个数字没有绘制: " + inkPerColumn[i]);
+        }
+    }
+
+    @Test
+    void atlasRenderer_RejectsNonDigitText() {
+        BufferedImage image = new BufferedImage(120, 40, BufferedImage.TYPE_INT_RGB);
+        assertThrows(IllegalArgumentException.class, () -> new GlyphAtlasCaptchaRenderer().render("12a456", image));
+    }
+
+    private static void assertCaptchaShape(Map<String, Object> captcha) {
+        String text = (String) captcha.get("text");
+        BufferedImage image = (BufferedImage) captcha.get("image");
+        assertTrue(text.matches("\\d{6}"));
+        assertEquals(120, image.getWidth());
+        assertEquals(40, image.getHeight());
+    }
+}
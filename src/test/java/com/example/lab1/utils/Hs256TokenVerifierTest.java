@@ -0,0 +1,119 @@
+package com.example.lab1.utils;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Hs256TokenVerifierTest {
+
+    private static final String TEST_SECRET_KEY = "test-secret-key-with-at-least-32-characters";
+    private static final Key KEY = Keys.hmacShaKeyFor(TEST_SECRET_KEY.getBytes(StandardCharsets.UTF_8));
+
+    private final Hs256TokenVerifier verifier = new Hs256TokenVerifier(TEST_SECRET_KEY);
+
+    private static String token(String subject, long expMillis) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(expMillis))
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Test
+    void verify_ValidToken_ReturnsSubjectAndExp() {
+        long exp = System.currentTimeMillis() + 60_000;
+        String token = token("测试用户", exp);
+
+        Hs256TokenVerifier.Result result = verifier.verify(token, System.currentTimeMillis());
+
+        assertEquals(Hs256TokenVerifier.Status.VALID, result.status());
+        assertEquals("测试用户", result.subject());
+        assertEquals(exp / 1000 * 1000, result.expiresAtMillis());
+    }
+
+    @Test
+    void verify_TamperedSignature_ReturnsInvalid() {
+        String token = token("testUser", System.currentTimeMillis() + 60_000);
+        char last = token.charAt(token.length() - 2);
+        String tampered = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A') + token.charAt(token.length() - 1);
+
+        assertEquals(Hs256TokenVerifier.Status.INVALID, verifier.verify(tampered, System.currentTimeMillis()).status());
+    }
+
+    @Test
+    void verify_OtherKey_ReturnsInvalid() {
+        String token = token("testUser", System.currentTimeMillis() + 60_000);
+        Hs256TokenVerifier other = new Hs256TokenVerifier("another-secret-key-with-at-least-32-characters");
+
+        assertEquals(Hs256TokenVerifier.Status.INVALID, other.verify(token, System.currentTimeMillis()).status());
+    }
+
+    @Test
+    void verify_PastExp_ReturnsExpired() {
+        long now = System.currentTimeMillis();
+        String token = token("testUser", now - 10_000);
+
+        Hs256TokenVerifier.Result result = verifier.verify(token, now);
+
+        assertEquals(Hs256TokenVerifier.Status.EXPIRED, result.status());
+        assertNull(result.subject());
+    }
+
+    @Test
+    void verify_UnexpectedClaimOrHeader_ReturnsUnsupported() {
+        long exp = System.currentTimeMillis() + 60_000;
+        String withNotBefore = Jwts.builder()
+                .setSubject("testUser")
+                .setNotBefore(new Date())
+                .setExpiration(new Date(exp))
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+        String withKeyId = Jwts.builder()
+                .setHeaderParam("kid", "k1")
+                .setSubject("testUser")
+                .setExpiration(new Date(exp))
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+
+        // 交给 jjwt 处理
+        assertEquals(Hs256TokenVerifier.Status.UNSUPPORTED, verifier.verify(withNotBefore, 0).status());
+        assertEquals(Hs256TokenVerifier.Status.UNSUPPORTED, verifier.verify(withKeyId, 0).status());
+        assertEquals(Hs256TokenVerifier.Status.UNSUPPORTED, verifier.verify("invalid.token.here", 0).status());
+    }
+
+    @Test
+    void decode_RejectsNonCanonicalInput() {
+        byte[] out = new byte[4];
+
+        assertEquals(2, Hs256TokenVerifier.decode("AQI", 0, 3, out));
+        assertEquals(-1, Hs256TokenVerifier.decode("AQJ", 0, 3, out));
+        assertEquals(-1, Hs256TokenVerifier.decode("A+I", 0, 3, out));
+    }
+
+    @Test
+    void verify_OnVirtualThreads_ResultsAreIndependent() throws Exception {
+        long exp = System.currentTimeMillis() + 60_000;
+        String alice = token("alice", exp);
+        String bob = token("bob", exp);
+
+        // 虚拟线程共享 Mac 池，每次得到独立的 Result
+        Hs256TokenVerifier.Result[] results = new Hs256TokenVerifier.Result[2];
+        Thread thread = Thread.ofVirtual().start(() -> {
+            results[0] = verifier.verify(alice, System.currentTimeMillis());
+            results[1] = verifier.verify(bob, System.currentTimeMillis());
+        });
+        thread.join();
+
+        assertNotSame(results[0], results[1]);
+        assertEquals("alice", results[0].subject());
+        assertEquals("bob", results[1].subject());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.lab1.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryCaptchaStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    @Test
+    void validate_IsOneShot() {
+        InMemoryCaptchaStore store = new InMemoryCaptchaStore(10, 60_000, 1000, now::get);
+        String captchaId = store.store("012345");
+
+        // 前导0也要匹配，且只能校验一次
+        assertFalse(store.validate(store.store("012345"), "12345"));
+        assertTrue(store.validate(captchaId, "012345"));
+        assertFalse(store.validate(captchaId, "012345"));
+    }
+
+    @Test
+    void validate_AfterTtl_ReturnsFalseAndEvicts() {
+        InMemoryCaptchaStore store = new InMemoryCaptchaStore(10, 5_000, 1000, now::get);
+        String captchaId = store.store("123456");
+
+        // 推进时间，超过 TTL
+        now.addAndGet(6_000);
+        store.advance();
+
+        // 验证结果
+        assertEquals(0, store.size());
+        assertEquals(1, store.getExpirations());
+        assertFalse(store.validate(captchaId, "123456"));
+    }
+
+    @Test
+    void validate_LongTtl_CascadesFromUpperLevel() {
+        // 300 个 tick 的 TTL 会先挂在第1层，到期前需要下沉到第0层
+        InMemoryCaptchaStore store = new InMemoryCaptchaStore(10, 300_000, 1000, now::get);
+        String expiring = store.store("111111");
+
+        now.addAndGet(299_000);
+        store.advance();
+        assertEquals(1, store.size());
+
+        now.addAndGet(2_000);
+        store.advance();
+        assertEquals(0, store.size());
+        assertFalse(store.validate(expiring, "111111"));
+    }
+
+    @Test
+    void store_OverCapacity_EvictsEarliest() {
+        InMemoryCaptchaStore store = new InMemoryCaptchaStore(2, 60_000, 1000, now::get);
+        String first = store.store("111111");
+        now.addAndGet(1_000);
+        String second = store.store("222222");
+        now.addAndGet(1_000);
+        String third = store.store("333333");
+
+        // 最早到期的 first 被淘汰
+        assertEquals(2, store.size());
+        assertEquals(1, store.getCapacityEvictions());
+        assertFalse(store.validate(first, "111111"));
+        assertTrue(store.validate(second, "222222"));
+        assertTrue(store.validate(third, "333333"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.lab1.utils;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeyRingTest {
+
+    private static final String SECRET_A = "test-secret-key-with-at-least-32-characters";
+    private static final String SECRET_B = "another-secret-key-with-at-least-32-characters";
+    private static final String SECRET_C = "third-secret-key-with-at-least-32-characters";
+
+    @AfterEach
+    void tearDown() {
+        JWTUtil.setKeyGracePeriod(JWTUtil.getExpirationTime());
+        JWTUtil.setSecretKey(SECRET_A);
+    }
+
+    private static String header(String token) {
+        return new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void generateToken_WritesActiveKid() {
+        JWTUtil.setSecretKey("k1", SECRET_A);
+
+        String token = JWTUtil.generateToken("testUser");
+
+        assertTrue(header(token).contains("\"kid\":\"k1\""));
+        assertTrue(JWTUtil.validateToken(token));
+        // 带 kid 的 header 仍走快速验签，不退回 jjwt
+        JwtKeyRing.SigningKey key = JWTUtil.getKeyRing().select(token, token.indexOf('.'), System.currentTimeMillis());
+        assertEquals(Hs256TokenVerifier.Status.VALID, key.verifier().verify(token, System.currentTimeMillis()).status());
+    }
+
+    @Test
+    void rotateKey_OldTokensValidDuringGrace() {
+        JWTUtil.setSecretKey("k1", SECRET_A);
+        String oldToken = JWTUtil.generateToken("testUser");
+        assertTrue(JWTUtil.validateToken(oldToken));
+
+        JWTUtil.rotateKey("k2", SECRET_B);
+        String newToken = JWTUtil.generateToken("testUser");
+
+        // 新 token 使用新 kid，旧 token 在宽限期内仍然有效
+        assertTrue(header(newToken).contains("\"kid\":\"k2\""));
+        assertTrue(JWTUtil.validateToken(newToken));
+        assertTrue(JWTUtil.validateToken(oldToken));
+        assertEquals("testUser", JWTUtil.getUsernameFromToken(oldToken));
+    }
+
+    @Test
+    void retireKey_AfterGrace_RejectsOldTokensEvenIfCached() {
+        JWTUtil.setSecretKey("k1", SECRET_A);
+        String oldToken = JWTUtil.generateToken("testUser");
+        JWTUtil.rotateKey("k2", SECRET_B);
+        assertTrue(JWTUtil.validateToken(oldToken));
+
+        JWTUtil.retireKey("k1", 0);
+
+        assertFalse(JWTUtil.validateToken(oldToken));
+        assertTrue(JWTUtil.validateToken(JWTUtil.generateToken("testUser")));
+    }
+
+    @Test
+    void retireKey_ActiveKey_Throws() {
+        JWTUtil.setSecretKey("k1", SECRET_A);
+
+        assertThrows(IllegalStateException.class, () -> JWTUtil.retireKey("k1", 0));
+    }
+
+    @Test
+    void validateToken_TokenWithoutKid_UsesLegacyKey() {
+        // 引入 kid 之前签发的 token，header 中没有 kid
+        String legacyToken = Jwts.builder()
+                .setSubject("testUser")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET_A.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+
+        // 部署新密钥，原密钥作为上一个密钥负责旧 token
+        JWTUtil.setSecretKey("k2", SECRET_B);
+        assertFalse(JWTUtil.validateToken(legacyToken));
+        JWTUtil.addVerificationKey("k1", SECRET_A, true, System.currentTimeMillis() + 60_000);
+
+        assertTrue(JWTUtil.validateToken(legacyToken));
+    }
+
+    @Test
+    void validateToken_UnknownKid_ReturnsFalse() {
+        JWTUtil.setSecretKey("k1", SECRET_A);
+        JWTUtil.rotateKey("k2", SECRET_B);
+        String token = JWTUtil.generateToken("testUser");
+
+        JWTUtil.setSecretKey("k3", SECRET_C);
+
+        assertFalse(JWTUtil.validateToken(token));
+    }
+
+    @Test
+    void select_ExpiredKey_ReturnsNullAndIsPurgedOnNextChange() {
+        JwtKeyRing ring = new JwtKeyRing("k1", SECRET_A);
+        ring.rotate("k2", SECRET_B, 1_000, 10_000);
+        String header = ring.active().header();
+        String oldHeader = ring.byKid("k1", 10_000).header();
+        String token = oldHeader + ".payload.signature";
+
+        assertNotNull(ring.select(token, oldHeader.length(), 10_999));
+        assertNull(ring.select(token, oldHeader.length(), 11_000));
+
+        ring.add("k3", SECRET_C, false, Long.MAX_VALUE, 11_000);
+        assertEquals(Set.of("k2", "k3"), Set.copyOf(ring.kids()));
+        assertEquals("k2", ring.select(header + ".x.y", header.length(), 11_000).kid());
+    }
+
+    @Test
+    void add_DuplicateKid_Throws() {
+        JwtKeyRing ring = new JwtKeyRing("k1", SECRET_A);
+
+        assertThrows(IllegalArgumentException.class, () -> ring.add("k1", SECRET_B, false, Long.MAX_VALUE, 0));
+    }
+}
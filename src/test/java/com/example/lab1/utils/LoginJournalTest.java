@@ -0,0 +1,162 @@
+package com.example.lab1.utils;
+
+import com.example.lab1.utils.LoginJournal.Event;
+import com.example.lab1.utils.LoginJournal.Type;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LoginJournal open(int maxSegments) {
+        LoginJournal journal = new LoginJournal(tempDir, LoginJournal.MIN_SEGMENT_BYTES, 10, 1024, 64, maxSegments, 5);
+        journal.start();
+        return journal;
+    }
+
+    private static void awaitWritten(LoginJournal journal, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (journal.getWritten() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(count, journal.getWritten());
+    }
+
+    private static long countFiles(Path dir, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.toString().endsWith(suffix)).count();
+        }
+    }
+
+    @Test
+    void history_NewestFirstAndOnlyThatUser() throws Exception {
+        try (LoginJournal journal = open(10)) {
+            journal.record(Type.REGISTER, 1, "alice", null);
+            journal.record(Type.BAD_CREDENTIALS, 1, "alice", "10.0.0.1");
+            journal.record(Type.CAPTCHA_INVALID, 0, "alice", "10.0.0.1");
+            journal.record(Type.LOGIN_SUCCESS, 2, "bob", "10.0.0.2");
+            journal.record(Type.LOGIN_SUCCESS, 1, "alice", "10.0.0.1");
+            awaitWritten(journal, 5);
+
+            List<Event> history = journal.history(1, 10);
+
+            // 用户 id 未知的事件写入文件但不进索引
+            assertEquals(List.of(Type.LOGIN_SUCCESS, Type.BAD_CREDENTIALS, Type.REGISTER),
+                    history.stream().map(Event::type).toList());
+            assertEquals("10.0.0.1", history.get(0).clientIp());
+            assertNull(history.get(2).clientIp());
+            assertEquals(1, journal.history(1, 1).size());
+            assertEquals(List.of(), journal.history(3, 10));
+        }
+    }
+
+    @Test
+    void rollover_SealedSegmentsIndexedAndRecoveredAfterRestart() throws Exception {
+        try (LoginJournal journal = open(100)) {
+            for (int i = 0; i < 200; i++) {
+                journal.record(Type.LOGIN_SUCCESS, i % 10 + 1, "user" + (i % 10 + 1), "10.0.0." + i);
+            }
+            awaitWritten(journal, 200);
+            assertTrue(journal.getSegments() > 2, "segments: " + journal.getSegments());
+        }
+        // 写满的分段都有索引文件，当前分段没有
+        assertEquals(countFiles(tempDir, ".log") - 1, countFiles(tempDir, ".idx"));
+
+        // 模拟写到一半的记录：当前分段末尾只有长度没有内容，重启时丢弃并从这里继续写
+        try (LoginJournal journal = open(100)) {
+            journal.record(Type.BAD_CREDENTIALS, 3, "user3", "10.0.0.250");
+            awaitWritten(journal, 1);
+        }
+        Path last;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            last = files.filter(path -> path.toString().endsWith(".log")).sorted().reduce((a, b) -> b).orElseThrow();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(last.toFile(), "rw")) {
+            int offset = 0;
+            int length;
+            while ((length = readInt(file, offset)) != 0) {
+                offset += 8 + length;
+            }
+            file.seek(offset);
+            file.writeInt(40);
+        }
+
+        try (LoginJournal journal = open(100)) {
+            List<Event> history = journal.history(3, 5);
+            assertEquals(5, history.size());
+            assertEquals(new Event(history.get(0).timeMillis(), Type.BAD_CREDENTIALS, 3, "user3", "10.0.0.250"), history.get(0));
+            assertEquals("10.0.0.192", history.get(1).clientIp());
+            assertEquals("10.0.0.182", history.get(2).clientIp());
+
+            journal.record(Type.LOGIN_SUCCESS, 3, "user3", "10.0.0.251");
+            awaitWritten(journal, 1);
+            assertEquals("10.0.0.251", journal.history(3, 1).get(0).clientIp());
+        }
+    }
+
+    @Test
+    void retention_OldSegmentsDeletedAndSkipped() throws Exception {
+        try (LoginJournal journal = open(2)) {
+            journal.record(Type.REGISTER, 7, "old", null);
+            for (int i = 0; i < 300; i++) {
+                journal.record(Type.LOGIN_SUCCESS, 8, "busy", "10.0.0.1");
+            }
+            awaitWritten(journal, 301);
+
+            assertEquals(2, journal.getSegments());
+            assertEquals(2, countFiles(tempDir, ".log"));
+            assertEquals(List.of(), journal.history(7, 5));
+            assertEquals(5, journal.history(8, 5).size());
+        }
+    }
+
+    @Test
+    void close_ConcurrentRecords_EveryEventWrittenOrDropped() throws Exception {
+        LoginJournal journal = new LoginJournal(tempDir, 1 << 20, 10, 1 << 16, 64, 10, 5);
+        journal.start();
+        int threads = 4;
+        AtomicLong attempts = new AtomicLong();
+        CountDownLatch started = new CountDownLatch(threads);
+        List<Thread> recorders = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread recorder = new Thread(() -> {
+                started.countDown();
+                for (int k = 0; k < 20_000; k++) {
+                    journal.record(Type.LOGIN_SUCCESS, k % 100 + 1, "user", null);
+                    attempts.incrementAndGet();
+                }
+            });
+            recorder.start();
+            recorders.add(recorder);
+        }
+        started.await();
+
+        // 关闭时仍有线程在 record：每个事件要么写入文件，要么计入 dropped
+        journal.close();
+        for (Thread recorder : recorders) {
+            recorder.join();
+        }
+
+        assertEquals(attempts.get(), journal.getWritten() + journal.getDropped());
+        assertEquals(0, journal.getQueued());
+    }
+
+    private static int readInt(RandomAccessFile file, long offset) throws IOException {
+        file.seek(offset);
+        return file.readInt();
+    }
+}
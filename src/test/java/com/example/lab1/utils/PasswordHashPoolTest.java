@@ -0,0 +1,104 @@
+package com.example.lab1.utils;
+
+import com.example.lab1.exception.ServiceBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashPoolTest {
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    // 占住线程池线程，中断也不退出
+    private boolean blockUntilReleased() {
+        while (true) {
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+                // 继续等待
+            }
+        }
+    }
+
+    @Test
+    void execute_RunsTaskOnPoolThread() {
+        PasswordHashPool pool = new PasswordHashPool(1, 1, 1000);
+
+        String threadName = pool.execute(() -> Thread.currentThread().getName());
+
+        assertTrue(threadName.startsWith("password-hash-"));
+        assertEquals(1, pool.getStartedCount());
+        pool.shutdown();
+    }
+
+    @Test
+    void execute_QueueFull_RejectsImmediately() throws Exception {
+        // 1 个线程被占住，队列容量 1 也被占住
+        PasswordHashPool pool = new PasswordHashPool(1, 1, 5000);
+        CountDownLatch running = new CountDownLatch(1);
+        callers.submit(() -> pool.execute(() -> {
+            running.countDown();
+            return blockUntilReleased();
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        callers.submit(() -> pool.execute(() -> true));
+        while (pool.getQueueDepth() < 1) {
+            Thread.sleep(1);
+        }
+
+        // 执行测试并验证异常
+        ServiceBusyException exception = assertThrows(ServiceBusyException.class, () -> pool.execute(() -> true));
+
+        assertEquals("服务繁忙，请稍后重试", exception.getMessage());
+        assertEquals(1, pool.getRejectedCount());
+        pool.shutdown();
+    }
+
+    @Test
+    void execute_WaitTooLong_TimesOut() throws Exception {
+        PasswordHashPool pool = new PasswordHashPool(1, 4, 50);
+        CountDownLatch running = new CountDownLatch(1);
+        callers.submit(() -> pool.execute(() -> {
+            running.countDown();
+            return blockUntilReleased();
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ServiceBusyException.class, () -> pool.execute(() -> true));
+        assertTrue(pool.getTimedOutCount() >= 1);
+
+        // 放弃的任务轮到时直接跳过，不再执行
+        release.countDown();
+        assertEquals("next", pool.execute(() -> "next"));
+        assertEquals(2, pool.getStartedCount());
+        pool.shutdown();
+    }
+
+    @Test
+    void execute_StartedTaskSlowerThanMaxWait_Completes() {
+        // maxWait 只限制排队时间，已开始的哈希算完为止
+        PasswordHashPool pool = new PasswordHashPool(1, 1, 20);
+
+        String result = pool.execute(() -> {
+            Thread.sleep(200);
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(0, pool.getTimedOutCount());
+        pool.shutdown();
+    }
+}
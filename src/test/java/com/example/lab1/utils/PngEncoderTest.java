@@ -0,0 +1,41 @@
+package com.example.lab1.utils;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PngEncoderTest {
+
+    @Test
+    void encode_ReusedWriter_ProducesDecodablePng() throws IOException {
+        PngEncoder encoder = new PngEncoder(1, 0.75f);
+        BufferedImage image = new BufferedImage(120, 40, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(10, 10, 0x123456);
+
+        // 同一个 writer 和缓冲区连续编码两次，结果一致且可以解码
+        byte[] first = encoder.encode(image);
+        byte[] second = encoder.encode(image);
+        assertArrayEquals(first, second);
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(first));
+        assertEquals(120, decoded.getWidth());
+        assertEquals(40, decoded.getHeight());
+        assertEquals(0x123456, decoded.getRGB(10, 10) & 0xFFFFFF);
+    }
+
+    @Test
+    void encode_DefaultCompression_DecodesToSameImage() throws IOException {
+        PngEncoder encoder = new PngEncoder(1, -1);
+        BufferedImage image = (BufferedImage) CaptchaUtil.generateCaptcha().get("image");
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(encoder.encode(image)));
+
+        assertEquals(image.getRGB(60, 20) & 0xFFFFFF, decoded.getRGB(60, 20) & 0xFFFFFF);
+        assertEquals(image.getRGB(5, 5) & 0xFFFFFF, decoded.getRGB(5, 5) & 0xFFFFFF);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.lab1.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemoteCaptchaStoreTest {
+
+    private EmbeddedCaptchaServer server;
+    private RemoteCaptchaStore nodeA;
+    private RemoteCaptchaStore nodeB;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new EmbeddedCaptchaServer(0);
+        nodeA = new RemoteCaptchaStore("localhost", server.getPort(), 60_000, 4, 1000);
+        nodeB = new RemoteCaptchaStore("localhost", server.getPort(), 60_000, 4, 1000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        nodeA.close();
+        nodeB.close();
+        server.close();
+    }
+
+    @Test
+    void validate_OnOtherNode_IsOneShot() {
+        // 节点 A 签发，节点 B 校验
+        String captchaId = nodeA.store("123456");
+
+        assertTrue(nodeB.validate(captchaId, "123456"));
+        assertFalse(nodeA.validate(captchaId, "123456"));
+        assertEquals(0, server.size());
+    }
+
+    @Test
+    void validate_IncorrectInput_ConsumesCaptcha() {
+        String captchaId = nodeA.store("123456");
+
+        assertFalse(nodeB.validate(captchaId, "654321"));
+        assertFalse(nodeB.validate(captchaId, "123456"));
+    }
+
+    @Test
+    void validate_AfterTtl_ReturnsFalse() throws Exception {
+        try (RemoteCaptchaStore shortLived = new RemoteCaptchaStore("localhost", server.getPort(), 50, 1, 1000)) {
+            String captchaId = shortLived.store("123456");
+            Thread.sleep(120);
+
+            assertFalse(shortLived.validate(captchaId, "123456"));
+        }
+    }
+
+    @Test
+    void store_ConcurrentWrites_AllVisible() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> ids = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String text = String.format("%06d", i);
+                ids.add(executor.submit(() -> nodeA.store(text)));
+            }
+            for (int i = 0; i < ids.size(); i++) {
+                assertTrue(nodeB.validate(ids.get(i).get(), String.format("%06d", i)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
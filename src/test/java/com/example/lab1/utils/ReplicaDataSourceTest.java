@@ -0,0 +1,101 @@
+package com.example.lab1.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaDataSourceTest {
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    // 可切换为不可用的数据源
+    private static final class FlakyDataSource extends AbstractDataSource {
+        private final DataSource target;
+        private volatile boolean down;
+
+        FlakyDataSource(DataSource target) {
+            this.target = target;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("connection refused");
+            }
+            return target.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+
+    private static String url(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getURL();
+        }
+    }
+
+    @Test
+    void getConnection_RoundRobinsAcrossReplicas() throws SQLException {
+        try (ReplicaDataSource dataSource = new ReplicaDataSource(List.of(
+                new ReplicaDataSource.Replica("r0", h2("rr-a")),
+                new ReplicaDataSource.Replica("r1", h2("rr-b"))), h2("rr-primary"), 1)) {
+
+            String first = url(dataSource);
+            String second = url(dataSource);
+
+            assertNotEquals(first, second);
+            assertEquals(first, url(dataSource));
+            assertEquals(3, dataSource.getReplicaConnections());
+        }
+    }
+
+    @Test
+    void getConnection_SkipsFailedReplicaAndFallsBackToPrimary() throws SQLException {
+        FlakyDataSource flaky = new FlakyDataSource(h2("fb-a"));
+        try (ReplicaDataSource dataSource = new ReplicaDataSource(List.of(
+                new ReplicaDataSource.Replica("r0", flaky)), h2("fb-primary"), 1)) {
+            flaky.down = true;
+
+            // 取连接失败的副本被停用，改用主库
+            assertTrue(url(dataSource).contains("fb-primary"));
+            assertFalse(dataSource.getReplicas().get(0).healthy());
+            assertEquals(1, dataSource.getPrimaryFallbacks());
+
+            // 健康检查通过后恢复
+            flaky.down = false;
+            dataSource.checkHealth();
+            assertTrue(dataSource.getReplicas().get(0).healthy());
+            assertTrue(url(dataSource).contains("fb-a"));
+        }
+    }
+
+    @Test
+    void onPrimary_BypassesReplicas() throws Exception {
+        try (ReplicaDataSource dataSource = new ReplicaDataSource(List.of(
+                new ReplicaDataSource.Replica("r0", h2("op-a"))), h2("op-primary"), 1)) {
+
+            String url = ReplicaDataSource.onPrimary(() -> {
+                try {
+                    return url(dataSource);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            assertTrue(url.contains("op-primary"));
+            assertEquals(0, dataSource.getPrimaryFallbacks());
+        }
+    }
+}
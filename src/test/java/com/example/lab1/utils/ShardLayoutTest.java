@@ -0,0 +1,49 @@
+package com.example.lab1.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardLayoutTest {
+
+    private static final ShardLayout THREE = new ShardLayout(List.of("shard-0", "shard-1", "shard-2"));
+    private static final ShardLayout FOUR = new ShardLayout(List.of("shard-0", "shard-1", "shard-2", "shard-3"));
+
+    @Test
+    void shardOf_IgnoresCase() {
+        for (int i = 0; i < 100; i++) {
+            assertEquals(THREE.shardOf("User" + i), THREE.shardOf("user" + i));
+        }
+    }
+
+    @Test
+    void shardOf_SpreadsEvenly() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 30_000; i++) {
+            counts.merge(THREE.shardOf("user" + i), 1, Integer::sum);
+        }
+        assertEquals(3, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > 9_000 && count < 11_000, "count: " + count);
+        }
+    }
+
+    @Test
+    void addingShard_OnlyMovesKeysToNewShard() {
+        int moved = 0;
+        for (int i = 0; i < 20_000; i++) {
+            String before = THREE.shardOf("user" + i);
+            String after = FOUR.shardOf("user" + i);
+            if (!before.equals(after)) {
+                assertEquals("shard-3", after);
+                moved++;
+            }
+        }
+        // 约 1/4 的用户迁到新分片
+        assertTrue(moved > 4_500 && moved < 5_500, "moved: " + moved);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.lab1.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    @Test
+    void acquire_BurstThenRefill() {
+        // 容量 2，每分钟补充 60 个（每秒 1 个）
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 60, 100, 1000, 60_000, 10, 60_000, now::get);
+
+        assertEquals(0, limiter.acquire("alice"));
+        assertEquals(0, limiter.acquire("alice"));
+        long wait = limiter.acquire("alice");
+        assertTrue(wait > 0 && wait <= 1000);
+        // 其他 key 不受影响
+        assertEquals(0, limiter.acquire("bob"));
+
+        now.addAndGet(1000);
+        assertEquals(0, limiter.acquire("alice"));
+    }
+
+    @Test
+    void recordFailure_LockoutDoublesEachTime() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(100, 60, 2, 1000, 60_000, 10, 60_000, now::get);
+
+        limiter.recordFailure("alice");
+        assertEquals(0, limiter.acquire("alice"));
+
+        // 达到阈值：锁定 1 秒
+        limiter.recordFailure("alice");
+        assertEquals(1000, limiter.acquire("alice"));
+
+        // 再失败一次：锁定 2 秒
+        now.addAndGet(1000);
+        limiter.recordFailure("alice");
+        assertEquals(2000, limiter.acquire("alice"));
+
+        // 成功后重新计数
+        now.addAndGet(2000);
+        limiter.recordSuccess("alice");
+        limiter.recordFailure("alice");
+        assertEquals(0, limiter.acquire("alice"));
+    }
+
+    @Test
+    void size_IsBoundedAndIdleKeysEvicted() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 60, 1, 600_000, 600_000, 8, 60_000, now::get);
+        limiter.recordFailure("locked");
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire("user" + i);
+        }
+        assertTrue(limiter.size() <= 8);
+        // 被锁定的 key 不会因容量淘汰而解锁
+        assertTrue(limiter.acquire("locked") > 0);
+
+        // 空闲超时后清理
+        now.addAndGet(600_001);
+        limiter.acquire("fresh");
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void size_LockedKeysCappedEarliestUnlockEvicted() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 60, 1, 1000, 600_000, 8, 600_000, now::get);
+        // 第 i 个 key 失败 i + 1 次，越往后锁定越久
+        for (int i = 0; i < 8; i++) {
+            for (int f = 0; f <= i; f++) {
+                limiter.recordFailure("attacker" + i);
+            }
+        }
+        assertEquals(8, limiter.size());
+
+        for (int f = 0; f < 3; f++) {
+            limiter.recordFailure("victim");
+        }
+
+        // 全部锁定时同样不超过上限，先淘汰最早解锁的
+        assertTrue(limiter.size() <= 8);
+        assertEquals(0, limiter.acquire("attacker0"));
+        assertTrue(limiter.acquire("attacker7") > 0);
+        assertTrue(limiter.acquire("victim") > 0);
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.lab1.utils;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationListTest {
+
+    private static final long LIFETIME = 86_400_000L;
+    private static final long NOW = 1_700_000_000_000L;
+    private static final String SECRET = "test-secret-key-with-at-least-32-characters";
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        JWTUtil.setRevocationList(null);
+        JWTUtil.setSecretKey(SECRET);
+    }
+
+    private static TokenRevocationList memoryList() {
+        return new TokenRevocationList(LIFETIME, 1000, 0.01, null, false, NOW);
+    }
+
+    @Test
+    void revokeToken_OnlyThatTokenIsRevoked() {
+        TokenRevocationList list = memoryList();
+        long exp = NOW + LIFETIME;
+
+        assertTrue(list.revokeToken("h.p.sig-a", exp, NOW));
+
+        assertTrue(list.isRevoked("h.p.sig-a", "alice", NOW - 1000, exp, NOW));
+        assertFalse(list.isRevoked("h.p.sig-b", "alice", NOW - 1000, exp, NOW));
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    void isRevoked_FilterAnswersMostChecksWithoutExactLookup() {
+        TokenRevocationList list = memoryList();
+        long exp = NOW + LIFETIME;
+        for (int i = 0; i < 500; i++) {
+            list.revokeToken("h.p.revoked-" + i, exp, NOW);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (list.isRevoked("h.p.valid-" + i, "alice", NOW, exp, NOW)) {
+                falsePositives++;
+            }
+        }
+
+        // 精确集合兜底，不会误判；过滤器按 1% 误判率配置，查精确集合的次数应远小于校验次数
+        assertEquals(0, falsePositives);
+        assertTrue(list.getExactLookups() < 500, "exact lookups: " + list.getExactLookups());
+        assertEquals(10_000, list.getChecks());
+    }
+
+    @Test
+    void revokeToken_ExpiredTokenIsIgnored() {
+        TokenRevocationList list = memoryList();
+
+        assertFalse(list.revokeToken("h.p.sig", NOW - 1, NOW));
+        assertEquals(0, list.size());
+    }
+
+    @Test
+    void revokeToken_FarFutureExpGoesToOverflow() {
+        TokenRevocationList list = memoryList();
+
+        assertTrue(list.revokeToken("h.p.sig", Long.MAX_VALUE, NOW));
+
+        assertTrue(list.isRevoked("h.p.sig", "alice", NOW, Long.MAX_VALUE, NOW));
+        assertFalse(list.isRevoked("h.p.other", "alice", NOW, Long.MAX_VALUE, NOW));
+    }
+
+    @Test
+    void revokeUser_RevokesTokensIssuedBefore() {
+        TokenRevocationList list = memoryList();
+        list.revokeUser("alice", NOW, NOW + LIFETIME);
+
+        assertTrue(list.isRevoked("h.p.old", "alice", NOW - 60_000, NOW + LIFETIME, NOW + 1000));
+        assertFalse(list.isRevoked("h.p.new", "alice", NOW + 1000, NOW + LIFETIME, NOW + 1000));
+        assertFalse(list.isRevoked("h.p.bob", "bob", NOW - 60_000, NOW + LIFETIME, NOW + 1000));
+    }
+
+    @Test
+    void purgeExpired_DropsEntriesAfterTokensExpire() {
+        TokenRevocationList list = memoryList();
+        list.revokeToken("h.p.short", NOW + 60_000, NOW);
+        list.revokeToken("h.p.long", NOW + LIFETIME, NOW);
+        list.revokeUser("alice", NOW, NOW + 60_000);
+
+        list.purgeExpired(NOW + 120_000);
+
+        assertEquals(1, list.size());
+        assertTrue(list.isRevoked("h.p.long", "bob", NOW, NOW + LIFETIME, NOW + 120_000));
+    }
+
+    @Test
+    void log_ReplayedAndCompactedOnRestart() throws Exception {
+        Path log = tempDir.resolve("revocations.log");
+        try (TokenRevocationList list = new TokenRevocationList(LIFETIME, 1000, 0.01, log, false, NOW)) {
+            list.revokeToken("h.p.short", NOW + 60_000, NOW);
+            list.revokeToken("h.p.long", NOW + LIFETIME, NOW);
+            list.revokeUser("alice", NOW, NOW + LIFETIME);
+        }
+        // 模拟写到一半的最后一行
+        Files.writeString(log, "T 17000", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        long restart = NOW + 120_000;
+        try (TokenRevocationList list = new TokenRevocationList(LIFETIME, 1000, 0.01, log, false, restart)) {
+            assertTrue(list.isRevoked("h.p.long", "bob", NOW, NOW + LIFETIME, restart));
+            assertTrue(list.isRevoked("h.p.any", "alice", NOW - 1000, NOW + LIFETIME, restart));
+            assertFalse(list.isRevoked("h.p.short", "bob", NOW, NOW + 60_000, NOW));
+            assertEquals(2, list.size());
+        }
+        // 重写后只剩未过期的两条记录
+        List<String> lines = Files.readAllLines(log, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+    }
+
+    @Test
+    void start_CompactionFails_SweepKeepsRunning() throws Exception {
+        Path log = tempDir.resolve("revocations.log");
+        long now = System.currentTimeMillis();
+        try (TokenRevocationList list = new TokenRevocationList(LIFETIME, 1000, 0.01, log, false, now)) {
+            // 以 root 运行时目录权限不起作用，用同名目录占住临时文件路径让重写失败
+            Path tmp = Files.createDirectory(tempDir.resolve("revocations.log.tmp"));
+            for (int i = 0; i < 1100; i++) {
+                list.revokeToken("h.p.t" + i, now + 200, now);
+            }
+            list.start(20);
+            awaitTrue(() -> list.size() == 0);
+
+            // 重写失败后清理仍在进行，注销仍写入原日志
+            long later = System.currentTimeMillis();
+            assertTrue(list.revokeToken("h.p.late", later + 200, later));
+            assertEquals(1101, Files.readAllLines(log, StandardCharsets.UTF_8).size());
+            awaitTrue(() -> list.size() == 0);
+
+            // 故障排除后下一次清理完成重写
+            Files.delete(tmp);
+            awaitTrue(() -> Files.readAllLines(log, StandardCharsets.UTF_8).isEmpty());
+        }
+    }
+
+    private interface Condition {
+        boolean test() throws Exception;
+    }
+
+    private static void awaitTrue(Condition condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.test()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void jwtUtil_RevokedTokenRejectedEvenAfterCaching() {
+        JWTUtil.setSecretKey(SECRET);
+        JWTUtil.setRevocationList(new TokenRevocationList(LIFETIME, 1000, 0.01, null, false, System.currentTimeMillis()));
+        String token = JWTUtil.generateToken("testUser");
+        String other = JWTUtil.generateToken("otherUser");
+        // 先校验一次，写入已验签缓存
+        assertTrue(JWTUtil.validateToken(token));
+
+        JWTUtil.revokeToken(token);
+
+        assertFalse(JWTUtil.validateToken(token));
+        assertThrows(JwtException.class, () -> JWTUtil.getUsernameFromToken(token));
+        assertTrue(JWTUtil.validateToken(other));
+    }
+
+    @Test
+    void jwtUtil_RevokeUserRejectsExistingTokens() {
+        JWTUtil.setSecretKey(SECRET);
+        JWTUtil.setRevocationList(new TokenRevocationList(LIFETIME, 1000, 0.01, null, false, System.currentTimeMillis()));
+        String token = JWTUtil.generateToken("testUser");
+        String other = JWTUtil.generateToken("otherUser");
+        assertTrue(JWTUtil.validateToken(token));
+
+        JWTUtil.revokeUser("testUser");
+
+        assertFalse(JWTUtil.validateToken(token));
+        assertTrue(JWTUtil.validateToken(other));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.lab1.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserIdGeneratorTest {
+
+    @AfterEach
+    void tearDown() {
+        UserIdGenerator.setWorkerId(0);
+    }
+
+    @Test
+    void nextId_IncreasingAndCarriesWorkerId() {
+        UserIdGenerator.setWorkerId(37);
+        long previous = UserIdGenerator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            long id = UserIdGenerator.nextId();
+            assertTrue(id > previous);
+            assertEquals(37, UserIdGenerator.workerIdOf(id));
+            previous = id;
+        }
+    }
+
+    @Test
+    void nextId_UniqueAcrossThreads() throws InterruptedException {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    ids.add(UserIdGenerator.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(160_000, ids.size());
+    }
+
+    @Test
+    void setWorkerId_RejectsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> UserIdGenerator.setWorkerId(-1));
+        assertThrows(IllegalArgumentException.class, () -> UserIdGenerator.setWorkerId(UserIdGenerator.MAX_WORKER_ID + 1));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.lab1.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private static final String SECRET_A = "test-secret-key-with-at-least-32-characters";
+    private static final String SECRET_B = "another-secret-key-with-at-least-32-characters";
+
+    @AfterEach
+    void tearDown() {
+        JWTUtil.setSecretKey(SECRET_A);
+    }
+
+    @Test
+    void validateToken_SecondCall_HitsCache() {
+        JWTUtil.setSecretKey(SECRET_A);
+        String token = JWTUtil.generateToken("testUser");
+        VerifiedTokenCache cache = JWTUtil.getTokenCache();
+        long hits = cache.getHits();
+
+        // 第一次完整验签，第二次命中缓存
+        assertTrue(JWTUtil.validateToken(token));
+        assertEquals("testUser", JWTUtil.getUsernameFromToken(token));
+
+        assertEquals(hits + 1, cache.getHits());
+    }
+
+    @Test
+    void setSecretKey_InvalidatesCachedTokens() {
+        JWTUtil.setSecretKey(SECRET_A);
+        String token = JWTUtil.generateToken("testUser");
+        assertTrue(JWTUtil.validateToken(token));
+
+        // 换密钥后旧 token 不能再从缓存中通过
+        JWTUtil.setSecretKey(SECRET_B);
+
+        assertFalse(JWTUtil.validateToken(token));
+    }
+
+    @Test
+    void get_EntryPastExp_ReturnsNull() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("h.p.sig", "testUser", 2_000, 1_000, cache.generation());
+
+        assertEquals("testUser", cache.get("h.p.sig", 1_500));
+        assertNull(cache.get("h.p.sig", 2_000));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_ForeignPayloadWithCachedSignature_Misses() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("h.p.sig", "testUser", 2_000, 1_000, cache.generation());
+
+        assertNull(cache.get("h.forged.sig", 1_500));
+    }
+
+    @Test
+    void put_AfterInvalidate_IsDropped() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        long generation = cache.generation();
+        cache.invalidate();
+
+        cache.put("h.p.sig", "testUser", 2_000, 1_000, generation);
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_OverCapacity_StaysBounded() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(8);
+        for (int i = 0; i < 100; i++) {
+            cache.put("h.p" + i + ".sig" + i, "user" + i, 2_000, 1_000, cache.generation());
+        }
+
+        assertTrue(cache.size() <= 8);
+    }
+}